@@ -0,0 +1,80 @@
+package nars.bench;
+
+import nars.bag.Bag;
+import nars.bag.impl.ConcurrentCurveBag;
+import nars.bag.impl.CurveBag;
+import nars.bag.impl.HeapBag;
+import nars.bag.impl.LevelBag;
+import nars.bag.impl.SlotBag;
+import nars.bag.tx.BagForgetting;
+import nars.util.data.random.XorShift1024StarRandom;
+import nars.util.meter.bag.NullItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * put, peekNext and forgetNext of each bag implementation, on a bag kept
+ * full by a key space larger than its capacity
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BagBench {
+
+    @Param({ "CurveBag", "SlotBag", "ConcurrentCurveBag", "LevelBag", "HeapBag" })
+    public String impl;
+
+    @Param({ "64", "1024" })
+    public int capacity;
+
+    Bag<CharSequence, NullItem> bag;
+    NullItem[] items;
+    int next;
+
+    final BagForgetting<CharSequence, NullItem> forgetting = new BagForgetting<>();
+    long now;
+
+    @Setup
+    public void setup() {
+        Random rng = new XorShift1024StarRandom(1);
+
+        switch (impl) {
+            case "CurveBag": bag = new CurveBag<>(capacity, rng); break;
+            case "SlotBag": bag = new SlotBag<>(capacity, rng); break;
+            case "ConcurrentCurveBag": bag = new ConcurrentCurveBag<>(capacity, rng); break;
+            case "LevelBag": bag = new LevelBag<>(100, capacity); break;
+            case "HeapBag": bag = new HeapBag<>(rng, capacity); break;
+            default: throw new RuntimeException("unknown bag: " + impl);
+        }
+        bag.mergePlus();
+
+        items = new NullItem[capacity * 4];
+        for (int i = 0; i < items.length; i++)
+            items[i] = new NullItem(rng.nextFloat(), Integer.toString(i));
+
+        for (int i = 0; i < capacity * 2; i++)
+            put();
+    }
+
+    @Benchmark
+    public NullItem put() {
+        NullItem x = items[next++ % items.length];
+        bag.put(x);
+        return x;
+    }
+
+    @Benchmark
+    public NullItem peekNext() {
+        return bag.peekNext();
+    }
+
+    @Benchmark
+    public NullItem forgetNext() {
+        return bag.peekNext(forgetting.set(10f, now++));
+    }
+}
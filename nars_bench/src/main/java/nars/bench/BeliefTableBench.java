@@ -0,0 +1,76 @@
+package nars.bench;
+
+import nars.NAR;
+import nars.concept.Concept;
+import nars.concept.util.ArrayListBeliefTable;
+import nars.concept.util.BeliefTable;
+import nars.concept.util.TemporalBeliefTable;
+import nars.process.ConceptProcess;
+import nars.task.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding temporal beliefs, with revision, to a concept's belief table.
+ * Each iteration adds a batch of new beliefs, created for it, to a new
+ * table, so no belief is added twice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, batchSize = BeliefTableBench.BATCH)
+@Measurement(iterations = 20, batchSize = BeliefTableBench.BATCH)
+@Fork(1)
+public class BeliefTableBench {
+
+    static final int BATCH = 1024;
+
+    @Param({ "ArrayListBeliefTable", "TemporalBeliefTable" })
+    public String impl;
+
+    @Param({ "8", "64", "512" })
+    public int capacity;
+
+    NAR nar;
+    Concept concept;
+    ConceptProcess premise;
+    Task[] beliefs;
+    BeliefTable table;
+    int next;
+
+    @Setup
+    public void setup() {
+        nar = Workload.newNAR();
+        nar.nal(7);
+        nar.believe("<a --> b>");
+        nar.frame(4);
+        concept = nar.concept("<a --> b>");
+        premise = Workload.premises(1, 10).get(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void newTable() {
+        //a sensor-like stream: one observation per time step
+        beliefs = new Task[BATCH];
+        for (int i = 0; i < beliefs.length; i++) {
+            float f = (i % 10) / 10f;
+            beliefs[i] = nar.task("<a --> b>. :|: %" + f + ";0.9%");
+            beliefs[i].setOccurrenceTime(i);
+        }
+        next = 0;
+
+        switch (impl) {
+            case "ArrayListBeliefTable": table = new ArrayListBeliefTable(nar.memory, capacity); break;
+            case "TemporalBeliefTable": table = new TemporalBeliefTable(nar.memory, 4, capacity); break;
+            default: throw new RuntimeException("unknown table: " + impl);
+        }
+    }
+
+    @Benchmark
+    public Task add() {
+        Task t = beliefs[next++];
+        return table.add(t, new BeliefTable.SolutionQualityMatchingOrderRanker(t, nar.time()),
+                concept, premise);
+    }
+}
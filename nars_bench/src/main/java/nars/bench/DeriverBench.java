@@ -0,0 +1,38 @@
+package nars.bench;
+
+import nars.nal.Deriver;
+import nars.process.ConceptProcess;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derivation of each of a fixed set of premises by the standard rule trie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeriverBench {
+
+    static final int premises = 512;
+
+    List<ConceptProcess> p;
+    Deriver deriver;
+    int next;
+
+    @Setup
+    public void setup() {
+        p = Workload.premises(premises, 100);
+        deriver = Deriver.standardDeriver;
+    }
+
+    @Benchmark
+    public void derive(Blackhole bh) {
+        deriver.run(p.get(next++ % p.size()), bh::consume);
+    }
+}
@@ -0,0 +1,40 @@
+package nars.bench;
+
+import nars.NAR;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole reasoner throughput: a reasoner is loaded with the NAL test scripts
+ * and each invocation runs one frame
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FrameBench {
+
+    List<String> scripts;
+    NAR nar;
+
+    @Setup(Level.Trial)
+    public void load() {
+        scripts = Workload.load();
+    }
+
+    /** restarts from the same inputs each iteration so the workload does not drift */
+    @Setup(Level.Iteration)
+    public void setup() {
+        nar = Workload.newNAR();
+        scripts.forEach(nar::input);
+    }
+
+    @Benchmark
+    public NAR frame() {
+        return nar.frame();
+    }
+}
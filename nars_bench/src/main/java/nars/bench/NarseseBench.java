@@ -0,0 +1,38 @@
+package nars.bench;
+
+import nars.Memory;
+import nars.Narsese;
+import nars.task.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Narsese task parsing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NarseseBench {
+
+    Narsese parser;
+    Memory memory;
+
+    @Setup
+    public void setup() {
+        parser = Narsese.the();
+        memory = Workload.newNAR().memory;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(8)
+    public Task task() {
+        Task t = null;
+        for (String s : Workload.tasks)
+            t = parser.task(s, memory);
+        return t;
+    }
+}
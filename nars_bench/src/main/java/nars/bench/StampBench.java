@@ -0,0 +1,75 @@
+package nars.bench;
+
+import nars.Global;
+import nars.truth.Stamp;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evidential base merging and overlap tests
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StampBench {
+
+    long[] a, b, disjoint;
+    long aSig, bSig, disjointSig;
+
+    @Setup
+    public void setup() {
+        int n = Global.MAXIMUM_EVIDENTAL_BASE_LENGTH / 2;
+        a = new long[n];
+        b = new long[n];
+        disjoint = new long[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i * 2;
+            b[i] = i * 3;
+            disjoint[i] = 1000 + i;
+        }
+        aSig = Stamp.signature(a);
+        bSig = Stamp.signature(b);
+        disjointSig = Stamp.signature(disjoint);
+    }
+
+    @Benchmark
+    public long[] zip() {
+        return Stamp.zip(a, b);
+    }
+
+    /** as derivation did before zipSet */
+    @Benchmark
+    public long[] zipToSet() {
+        return Stamp.toSetArray(Stamp.zip(a, b));
+    }
+
+    @Benchmark
+    public long[] zipSet() {
+        return Stamp.zipSet(a, b);
+    }
+
+    @Benchmark
+    public boolean overlapping() {
+        return Stamp.overlapping(a, b);
+    }
+
+    @Benchmark
+    public boolean notOverlapping() {
+        return Stamp.overlapping(a, disjoint);
+    }
+
+    @Benchmark
+    public boolean overlappingSignature() {
+        return Stamp.overlapping(a, aSig, b, bSig);
+    }
+
+    /** typical premise: two short bases, usually disjoint */
+    @Benchmark
+    public boolean notOverlappingSignature() {
+        return Stamp.overlapping(a, aSig, disjoint, disjointSig);
+    }
+}
@@ -0,0 +1,58 @@
+package nars.bench;
+
+import nars.NAR;
+import nars.Op;
+import nars.term.Term;
+import nars.term.transform.FindSubst;
+import nars.util.data.random.XorShift1024StarRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FindSubst unification of rule patterns against concrete terms
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnifyBench {
+
+    /** pattern, term */
+    static final String[][] pairs = {
+            { "<%1 --> %2>", "<bird --> animal>" },
+            { "(<%1 --> %2>, <%2 --> %3>)", "(<robin --> bird>, <bird --> animal>)" },
+            { "<(&&, %1, %2) ==> %3>", "<(&&, <a --> b>, <c --> d>) ==> <e --> f>>" },
+            { "<{%1, %2} --> %3>", "<{tom, tim} --> person>" },
+            { "(<%1 --> %2>, <%1 --> %3>)", "(<b --> c>, <a --> b>)" }
+    };
+
+    Term[] x, y;
+    Random rng;
+
+    @Setup
+    public void setup() {
+        NAR n = Workload.newNAR();
+        x = new Term[pairs.length];
+        y = new Term[pairs.length];
+        for (int i = 0; i < pairs.length; i++) {
+            x[i] = n.term(pairs[i][0]);
+            y[i] = n.term(pairs[i][1]);
+        }
+        rng = new XorShift1024StarRandom(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public int unify() {
+        int matched = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (new FindSubst(Op.VAR_PATTERN, rng).next(x[i], y[i], 256))
+                matched++;
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,69 @@
+package nars.bench;
+
+import nars.Global;
+import nars.NAR;
+import nars.nar.Default;
+import nars.process.ConceptProcess;
+import nars.task.in.FileInput;
+import nars.task.in.LibraryInput;
+import nars.util.event.On;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed inputs shared by the benchmarks, so that results are comparable
+ * between runs and releases
+ */
+public class Workload {
+
+    /** the NAL test scripts which are run by the reasoner benchmarks */
+    public static final String[] scripts = { "test1", "test2", "test3", "test4", "test5", "test6" };
+
+    public static final String[] tasks = {
+            "<bird --> animal>.",
+            "<robin --> [flying]>. %0.9;0.8%",
+            "<(&&, <$x --> bird>, <$x --> [flying]>) ==> <$x --> animal>>.",
+            "<(*, {tom}, {sky}) --> likes>?",
+            "<{tim} --> (/, livingIn, _, {graz})>!",
+            "(--, <robin --> [swimmer]>). :|:",
+            "<(&/, <a --> b>, +5, <c --> d>) =/> <e --> f>>.",
+            "<#y --> (&, [yellow], bird)>?"
+    };
+
+    public static List<String> load() {
+        List<String> l = new ArrayList<>();
+        for (String path : LibraryInput.getUnitTests(scripts).values()) {
+            try {
+                l.add(FileInput.load(path));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return l;
+    }
+
+    public static NAR newNAR() {
+        Global.DEBUG = false;
+        return new Default(1024, 1, 2, 3);
+    }
+
+    /** runs the scripts and collects up to n of the premises that were fired */
+    public static List<ConceptProcess> premises(int n, int cycles) {
+        List<ConceptProcess> premises = new ArrayList<>(n);
+
+        for (String s : load()) {
+            NAR nar = newNAR();
+            On o = nar.memory.eventConceptProcess.on(p -> {
+                if (premises.size() < n)
+                    premises.add(p);
+            });
+            nar.input(s);
+            nar.frame(cycles);
+            o.off();
+        }
+
+        return premises;
+    }
+}
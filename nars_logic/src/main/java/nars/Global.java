@@ -65,6 +65,10 @@ public class Global {
 
     public static boolean EXIT_ON_EXCEPTION = true;
 
+    /** load the standard derivation rules and their trie from a disk cache, rebuilt when the rule file or code changes.
+     *  cached rule terms recompute their transient hashes and metrics when read (see DerivationRuleCacheTest) */
+    public static boolean DERIVATION_RULE_CACHE = true;
+
 
     /** use this for advanced error checking, at the expense of lower performance.
         it is enabled for unit tests automatically regardless of the value here.    */
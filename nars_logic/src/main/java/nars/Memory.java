@@ -37,13 +37,16 @@ import nars.util.data.random.XorShift1024StarRandom;
 import nars.util.event.DefaultTopic;
 import nars.util.event.EventEmitter;
 import nars.util.event.Topic;
+import nars.util.io.ProvenanceJournal;
 import nars.util.meter.EmotionMeter;
 import nars.util.meter.LogicMeter;
+import nars.util.meter.ReasonerMetrics;
 
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -117,10 +120,16 @@ public class Memory extends Param {
 
     public final Clock clock;
 
-    public final TermIndex terms = new MyTermIndex();
+    public final TermIndex terms;
 
     public final CacheBag<Term, Concept> concepts;
 
+    /** created on first use, so that a deserialized Memory has them too */
+    transient private volatile ReasonerMetrics metrics = null;
+
+    /** when set, tasks record their parents and log here rather than holding them (see ProvenanceJournal) */
+    transient public ProvenanceJournal journal = null;
+
 
     /** maximum NAL level currently supported by this memory, for restricting it to activity below NAL8 */
     int level;
@@ -128,20 +137,26 @@ public class Memory extends Param {
     /** for creating new stamps
      * TODO move this to and make this the repsonsibility of Clock implementations
      * */
-    long currentStampSerial = 1;
+    final AtomicLong currentStampSerial = new AtomicLong(1);
 
 
     public Memory(Clock clock, CacheBag<Term, Concept> concepts) {
         this(clock, new XorShift1024StarRandom(1), concepts);
     }
 
+    public Memory(Clock clock, Random rng, CacheBag<Term, Concept> concepts) {
+        this(clock, rng, concepts, new MyTermIndex());
+    }
+
     /**
      * Create a new memory
      */
-    public Memory(Clock clock, Random rng, CacheBag<Term, Concept> concepts) {
+    public Memory(Clock clock, Random rng, CacheBag<Term, Concept> concepts, TermIndex terms) {
 
         this.random = rng;
 
+        this.terms = terms;
+
         this.level = 9;
 
         this.clock = clock;
@@ -268,8 +283,7 @@ public class Memory extends Param {
      * produces a new stamp serial #, used to uniquely identify inputs
      */
     public final long newStampSerial() {
-        //TODO maybe AtomicLong ?
-        return currentStampSerial++;
+        return currentStampSerial.getAndIncrement();
     }
 
 
@@ -286,18 +300,34 @@ public class Memory extends Param {
         return concepts;
     }
 
+    public final ReasonerMetrics metrics() {
+        ReasonerMetrics m = metrics;
+        if (m == null) {
+            synchronized (this) {
+                m = metrics;
+                if (m == null)
+                    metrics = m = new ReasonerMetrics();
+            }
+        }
+        return m;
+    }
+
     public final void cycle(int num) {
 
         //final Clock clock = this.clock;
         final Topic<Memory> end = eventCycleEnd;
+        final ReasonerMetrics metrics = metrics();
 
         //synchronized (clock) {
 
             for (; num > 0; num--) {
 
+                final long start = System.nanoTime();
 
                 end.emit(this);
 
+                metrics.cycleTime.record(System.nanoTime() - start);
+                metrics.cycles.inc();
             }
 
         //}
@@ -19,19 +19,23 @@ import nars.task.Task;
 import nars.task.flow.Input;
 import nars.task.flow.TaskQueue;
 import nars.task.flow.TaskStream;
+import nars.task.in.BatchInput;
 import nars.task.in.FileInput;
+import nars.task.in.StreamingFileInput;
 import nars.task.in.TextInput;
 import nars.term.*;
 import nars.truth.DefaultTruth;
 import nars.truth.Truth;
 import nars.util.data.Util;
 import nars.util.event.*;
+import nars.util.io.Checkpoint;
 import net.openhft.affinity.AffinityLock;
 import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -120,6 +124,9 @@ abstract public class NAR implements Serializable, Level, ConceptBuilder {
 
     private int concurrency = 1;
 
+    /** tracks the changes for incremental checkpoints, once one is written */
+    transient private Checkpoint checkpoint = null;
+
 
     public NAR(final Memory m) {
         super();
@@ -177,6 +184,36 @@ abstract public class NAR implements Serializable, Level, ConceptBuilder {
         return fi;
     }
 
+    /** streams the tasks of a Narsese file, inputting up to tasksPerFrame parsed tasks each frame */
+    public StreamingFileInput input(final Path file, int tasksPerFrame) throws IOException {
+        StreamingFileInput si = new StreamingFileInput(this, file);
+        si.input(this, tasksPerFrame);
+        return si;
+    }
+
+    /**
+     * checkpoints the concepts to a file; incrementally if requested, after
+     * the first checkpoint to the same file.  the concepts are encoded at
+     * the start of the next frame while running, otherwise immediately, and
+     * written in the background.
+     */
+    public synchronized CompletableFuture<Checkpoint.Stats> checkpoint(final Path file, boolean incremental) {
+        Checkpoint c = this.checkpoint;
+        if (c == null || !c.path.equals(file)) {
+            if (c != null) c.close();
+            this.checkpoint = c = new Checkpoint(this, file);
+        }
+        return running() ? c.saveNextFrame(incremental) : c.save(incremental);
+    }
+
+    /**
+     * restores the concepts and time of a checkpoint; this should not be running
+     * @return the number of concepts restored
+     */
+    public int restore(final Path file) throws IOException {
+        return Checkpoint.restore(this, file);
+    }
+
     /**
      * inputs a task, only if the parsed text is valid; returns null if invalid
      */
@@ -439,6 +476,7 @@ abstract public class NAR implements Serializable, Level, ConceptBuilder {
             return false;
         }
 
+        m.metrics().inputs.inc();
         m.eventInput.emit(t);
 
         return true;
@@ -1111,6 +1149,15 @@ abstract public class NAR implements Serializable, Level, ConceptBuilder {
 
     abstract public NAR forEachConcept(Consumer<Concept> recip);
 
+    /**
+     * supplies the concepts whose terms may unify with a pattern: a superset
+     * of those which do, to be confirmed by unification.  by default, all
+     * concepts; implementations may narrow it with an index.
+     */
+    public NAR forEachConceptUnifiable(Term pattern, Consumer<Concept> recip) {
+        return forEachConcept(recip);
+    }
+
 //    public NAR forEachConceptActive(Consumer<Concept> recip) {
 //        nar.memory.getCycleProcess().forEachConcept(recip);
 //        return this;
@@ -1322,6 +1369,14 @@ abstract public class NAR implements Serializable, Level, ConceptBuilder {
         input((Input) new TaskStream(taskStream));
     }
 
+    /**
+     * inputs many lines of Narsese at once, parsed in parallel;
+     * see BatchInput
+     */
+    public final BatchInput.Stats inputBatch(final Stream<String> lines) {
+        return BatchInput.lines(this, lines);
+    }
+
     /**
      * execute a Task as a TaskProcess (synchronous)
      */
@@ -962,10 +962,25 @@ public class Narsese extends BaseParser<Object>  {
     }
 
 
+    /**
+     * parses the tasks of an input which must be entirely valid; unlike
+     * tasks(), which supplies what was parsed before an error, throws
+     * NarseseException if it is not
+     */
+    public static void tasksStrict(String input, Consumer<Task> c, final Memory m) throws NarseseException {
+        ParsingResult r = the().inputParser.run(input);
+        if (!r.isSuccess())
+            throw new NarseseException("invalid input: " + input);
+
+        tasksRaw(r, o -> c.accept(decodeTask(input, m, o)));
+    }
+
     /** supplies the source array of objects that can construct a Task */
     public static void tasksRaw(String input, Consumer<Object[]> c) {
+        tasksRaw(the().inputParser.run(input), c);
+    }
 
-        ParsingResult r = the().inputParser.run(input);
+    private static void tasksRaw(ParsingResult r, Consumer<Object[]> c) {
 
         int size = r.getValueStack().size();
 
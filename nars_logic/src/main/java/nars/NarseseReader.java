@@ -0,0 +1,747 @@
+package nars;
+
+import nars.nal.TaskRule;
+import nars.nal.meta.Ellipsis;
+import nars.nal.nal1.Negation;
+import nars.nal.nal4.Product;
+import nars.nal.nal7.Tense;
+import nars.nal.nal8.ImmediateOperator;
+import nars.nal.nal8.Operator;
+import nars.op.io.echo;
+import nars.task.Task;
+import nars.term.Atom;
+import nars.term.Term;
+import nars.term.Terms;
+import nars.term.Variable;
+import nars.truth.DefaultTruth;
+import nars.truth.Truth;
+import nars.util.Texts;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static nars.Op.*;
+import static nars.Symbols.*;
+
+/**
+ * Hand-written recursive descent parser of Narsese, which accepts the same
+ * grammar as the Grappa parser {@link Narsese} and produces the same terms
+ * and tasks.
+ * <p>
+ * Each method follows the rule of the same name in Narsese: alternatives are
+ * tried in the same order, the first which matches is taken, and the terms
+ * are constructed as the rule's actions construct them.  Rules return the
+ * index after their match, or FAIL, and leave their result in 'value'.
+ * <p>
+ * Several alternatives of a term begin by parsing a term at the same position
+ * (a colon inheritance, an operation, and the term itself), so the result of
+ * each variant of the term rule is memoized per position; parsing stays
+ * linear where backtracking alone is exponential in the nesting depth.  The
+ * subterms of the compounds being parsed are collected on one shared stack.
+ * <p>
+ * Not thread safe; the() returns a parser of the current thread.
+ */
+public class NarseseReader {
+
+    static final ThreadLocal<NarseseReader> readers = ThreadLocal.withInitial(NarseseReader::new);
+
+    public static NarseseReader the() {
+        return readers.get();
+    }
+
+    static final int FAIL = -1;
+
+    /** the operator symbols, of which the longest match is taken */
+    static final String[] opSymbols = {
+            INTERSECTION_EXT.str, INTERSECTION_INT.str,
+            DIFFERENCE_EXT.str, DIFFERENCE_INT.str,
+            PRODUCT.str,
+            IMAGE_EXT.str, IMAGE_INT.str,
+            INHERITANCE.str,
+            SIMILARITY.str,
+            PROPERTY.str,
+            INSTANCE.str,
+            INSTANCE_PROPERTY.str,
+            NEGATION.str,
+            IMPLICATION.str,
+            EQUIVALENCE.str,
+            IMPLICATION_AFTER.str, IMPLICATION_BEFORE.str, IMPLICATION_WHEN.str,
+            EQUIVALENCE_AFTER.str, EQUIVALENCE_WHEN.str,
+            DISJUNCTION.str,
+            CONJUNCTION.str,
+            SEQUENCE.str,
+            PARALLEL.str
+    };
+
+    static final Op[] opValues = new Op[opSymbols.length];
+
+    static {
+        for (int i = 0; i < opSymbols.length; i++)
+            opValues[i] = getOperator(opSymbols[i]);
+    }
+
+    /** memo arrays longer than this are released after parsing */
+    static final int MAX_RETAINED = 1024 * 1024;
+
+    private String in;
+    private int len;
+
+    /** result of the last matched rule */
+    private Object value;
+
+    /** result of the last matched Op rule */
+    private Op op;
+
+    /** result of the last matched ShortFloat rule */
+    private float number;
+
+    /** tense of the task being parsed */
+    private Tense tense;
+
+    /** subterms of the compounds being parsed */
+    private Term[] args = new Term[16];
+    private int argc;
+
+    /**
+     * per variant of the term rule, the end of its match at each position
+     * plus one, or FAIL, or 0 if not yet parsed; and its result
+     */
+    private final int[][] memoEnd = new int[4][];
+    private final Object[][] memoValue = new Object[4][];
+
+
+    /** parse one term */
+    public <T extends Term> T termRaw(String input) throws Narsese.NarseseException {
+        start(input);
+        try {
+            if (Term(0, true, true) == FAIL || value == null)
+                throw new Narsese.NarseseException("invalid term: " + input);
+            return (T) value;
+        } finally {
+            finish();
+        }
+    }
+
+    /** parse one term and normalize it */
+    public <T extends Term> T term(String input) throws Narsese.NarseseException {
+        return termRaw(input).normalizeDestructively();
+    }
+
+    public TaskRule taskRule(String input) throws Narsese.NarseseException {
+        Term x;
+        start(input);
+        try {
+            if (TaskRule(0) == FAIL || value == null)
+                throw new Narsese.NarseseException("invalid rule: " + input);
+            x = (Term) value;
+        } finally {
+            finish();
+        }
+        return x.normalizeDestructively();
+    }
+
+    /** parse one task */
+    public Task task(String input, Memory m) throws Narsese.NarseseException {
+        Object[] x;
+        start(input);
+        try {
+            if (Task(0) == FAIL)
+                throw new Narsese.NarseseException("invalid task: " + input);
+            x = (Object[]) value;
+        } catch (Narsese.NarseseException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new Narsese.NarseseException(e + ": parsing: " + input, e);
+        } finally {
+            finish();
+        }
+
+        try {
+            return Narsese.decodeTask(input, m, x);
+        } catch (Exception e) {
+            throw new Narsese.NarseseException("input: " + input, e);
+        }
+    }
+
+    /**
+     * parses the tasks of an input, which are supplied only if all of the
+     * input is valid
+     * @return whether it was valid
+     */
+    public boolean tasks(String input, Consumer<Task> c, Memory m) {
+        return tasksRaw(input, o -> c.accept(Narsese.decodeTask(input, m, o)));
+    }
+
+    /** supplies the source arrays of objects that can construct a Task, as Narsese.tasksRaw */
+    public boolean tasksRaw(String input, Consumer<Object[]> c) {
+        List<Object[]> found = Global.newArrayList();
+        start(input);
+        try {
+            if (!Input(found))
+                return false;
+        } finally {
+            finish();
+        }
+        found.forEach(c);
+        return true;
+    }
+
+
+    private void start(String input) {
+        in = input;
+        len = input.length();
+        argc = 0;
+        for (int i = 0; i < 4; i++) {
+            if (memoEnd[i] == null || memoEnd[i].length <= len) {
+                memoEnd[i] = new int[len + 1];
+                memoValue[i] = new Object[len + 1];
+            }
+        }
+    }
+
+    private void finish() {
+        for (int i = 0; i < 4; i++) {
+            if (memoEnd[i].length > MAX_RETAINED) {
+                memoEnd[i] = null;
+                memoValue[i] = null;
+            } else {
+                Arrays.fill(memoEnd[i], 0, len + 1, 0);
+                Arrays.fill(memoValue[i], 0, len + 1, null);
+            }
+        }
+        Arrays.fill(args, 0, argc, null);
+        argc = 0;
+        in = null;
+        value = null;
+    }
+
+
+    private boolean Input(List<Object[]> found) {
+        int p = 0;
+        while (true) {
+            int e = LineComment(p);
+            if (e != FAIL) {
+                found.add(new Object[]{value});
+            } else {
+                e = Task(p);
+                if (e == FAIL)
+                    break;
+                found.add((Object[]) value);
+            }
+            p = s(e);
+        }
+        return p == len;
+    }
+
+    private int LineComment(int p) {
+        p = s(p);
+        if (!in.startsWith("//", p))
+            return FAIL;
+        int e = p + 2;
+        while (e < len && in.charAt(e) != '\n') e++;
+        value = ImmediateOperator.command(echo.class, in.substring(p + 2, e));
+        return (e < len) ? e + 1 : e;
+    }
+
+    private int Task(int p) {
+        p = s(p);
+
+        float[] budget = null;
+        if (is(p, BUDGET_VALUE_MARK)) {
+            p = Budget(p + 1);
+            budget = (float[]) value;
+        }
+
+        int e = Term(p, true, false);
+        if (e == FAIL || e == len || ".?!@;".indexOf(in.charAt(e)) == -1)
+            return FAIL;
+        Term term = (Term) value;
+        Character punc = in.charAt(e++);
+
+        tense = Tense.Eternal;
+        int t = Tense(s(e));
+        if (t != FAIL)
+            e = t;
+
+        Truth truth = null;
+        t = Truth(s(e));
+        if (t != FAIL) {
+            e = t;
+            truth = (Truth) value;
+        }
+
+        value = new Object[]{budget, term, punc, truth, tense};
+        return e;
+    }
+
+    /** the budget following its mark, which always matches */
+    private int Budget(int p) {
+        int e = ShortFloat(p);
+        float pri = number;
+        if (is(e, VALUE_SEPARATOR)) {
+            e = ShortFloat(e + 1);
+            float dur = number;
+            if (is(e, VALUE_SEPARATOR)) {
+                e = ShortFloat(e + 1);
+                //the order in which Narsese pops them from its stack
+                value = new float[]{dur, number, pri};
+            } else {
+                value = new float[]{pri, dur};
+            }
+        } else {
+            value = new float[]{pri};
+        }
+        return is(e, BUDGET_VALUE_MARK) ? e + 1 : e;
+    }
+
+    private int Tense(int p) {
+        if (in.startsWith(TENSE_PRESENT, p)) tense = Tense.Present;
+        else if (in.startsWith(TENSE_PAST, p)) tense = Tense.Past;
+        else if (in.startsWith(TENSE_FUTURE, p)) tense = Tense.Future;
+        else return FAIL;
+        return p + 3;
+    }
+
+    private int Truth(int p) {
+        if (!is(p, TRUTH_VALUE_MARK))
+            return FAIL;
+        int e = ShortFloat(p + 1);
+        float freq = number;
+
+        int t = TruthTenseSeparator(e, VALUE_SEPARATOR);
+        if (t != FAIL) {
+            e = ShortFloat(t);
+            value = new DefaultTruth(freq, number);
+            if (is(e, TRUTH_VALUE_MARK)) e++;
+        } else {
+            value = new DefaultTruth(freq, Global.DEFAULT_JUDGMENT_CONFIDENCE);
+            t = TruthTenseSeparator(e, TRUTH_VALUE_MARK);
+            if (t != FAIL) e = t;
+        }
+        return e;
+    }
+
+    private int TruthTenseSeparator(int p, char defaultChar) {
+        if (p == len) return FAIL;
+        char c = in.charAt(p);
+        if (c == defaultChar) return p + 1;
+        switch (c) {
+            case '|': tense = Tense.Present; return p + 1;
+            case '\\': tense = Tense.Past; return p + 1;
+            case '/': tense = Tense.Future; return p + 1;
+        }
+        return FAIL;
+    }
+
+    /** at most one digit, then optionally a fraction; may be empty, which is NaN */
+    private int ShortFloat(int p) {
+        int e = p;
+        if (digit(e)) e++;
+        if (is(e, '.') && digit(e + 1)) {
+            e += 2;
+            while (digit(e)) e++;
+        }
+        number = Texts.f((e == p) ? "NaN" : in.substring(p, e), 0, 1f);
+        return e;
+    }
+
+
+    private int Term(int p, boolean includeOperation, boolean includeRules) {
+        int variant = (includeOperation ? 2 : 0) | (includeRules ? 1 : 0);
+        int m = memoEnd[variant][p];
+        if (m != 0) {
+            if (m == FAIL) return FAIL;
+            value = memoValue[variant][p];
+            return m - 1;
+        }
+
+        int e = TermAlternatives(s(p), includeOperation, includeRules);
+        if (e == FAIL) {
+            memoEnd[variant][p] = FAIL;
+            return FAIL;
+        }
+
+        value = Narsese.the(value);
+        e = s(e);
+        memoEnd[variant][p] = e + 1;
+        memoValue[variant][p] = value;
+        return e;
+    }
+
+    private int TermAlternatives(int p, boolean includeOperation, boolean includeRules) {
+        int e;
+        if ((e = QuotedLiteral(p, 3)) != FAIL ||
+            (e = QuotedLiteral(p, 1)) != FAIL ||
+            (e = Operator(p)) != FAIL ||
+            (e = Interval(p)) != FAIL ||
+            (e = EmptyProduct(p)) != FAIL)
+            return e;
+
+        if (includeRules &&
+            ((e = Ellipsis(p)) != FAIL ||
+             (e = EllipsisExpand(p)) != FAIL ||
+             (e = TaskRule(p)) != FAIL))
+            return e;
+
+        if (includeOperation &&
+            ((e = ColonReverseInheritance(p)) != FAIL ||
+             (e = EmptyOperation(p)) != FAIL ||
+             (e = Operation(p)) != FAIL))
+            return e;
+
+        if ((e = Statement(p)) != FAIL ||
+            (e = Variable(p)) != FAIL ||
+            (e = Negation(p)) != FAIL ||
+            (e = Set(p, SET_EXT_OPENER, SET_EXT_CLOSER)) != FAIL ||
+            (e = Set(p, SET_INT_OPENER, SET_INT_CLOSER)) != FAIL ||
+            (e = Parenthesized(p)) != FAIL ||
+            (e = Atom(p)) != FAIL ||
+            (e = ImageIndex(p)) != FAIL)
+            return e;
+
+        return FAIL;
+    }
+
+    /** a string between 'quotes' double quotes, as an atom name including one pair of quotes */
+    private int QuotedLiteral(int p, int quotes) {
+        if (!quotes(p, quotes))
+            return FAIL;
+        int from = p + quotes, to = from;
+        while (to < len && in.charAt(to) != '\"') to++;
+        if (to == from || !quotes(to, quotes))
+            return FAIL;
+        value = '\"' + in.substring(from, to) + '\"';
+        return to + quotes;
+    }
+
+    private boolean quotes(int p, int n) {
+        if (p + n > len) return false;
+        for (int i = p; i < p + n; i++)
+            if (in.charAt(i) != '\"') return false;
+        return true;
+    }
+
+    private int Operator(int p) {
+        if (!is(p, OPERATOR.ch))
+            return FAIL;
+        int e = Term(p + 1, false, false);
+        if (e == FAIL)
+            return FAIL;
+        value = new Operator((Term) value);
+        return e;
+    }
+
+    private int Interval(int p) {
+        if (!is(p, INTERVAL_PREFIX) || !digit(p + 1))
+            return FAIL;
+        int e = p + 2;
+        while (digit(e)) e++;
+        value = $.cycles(Texts.i(in.substring(p + 1, e)));
+        return e;
+    }
+
+    private int EmptyProduct(int p) {
+        if (!is(p, COMPOUND_TERM_OPENER))
+            return FAIL;
+        int e = s(p + 1);
+        if (!is(e, COMPOUND_TERM_CLOSER))
+            return FAIL;
+        value = Product.empty;
+        return e + 1;
+    }
+
+    private int Ellipsis(int p) {
+        int e = Variable(p);
+        if (e == FAIL)
+            return FAIL;
+        Variable v = (Variable) value;
+        if (!in.startsWith("..", e))
+            return FAIL;
+        e = Term(e + 2, true, false);
+        if (e == FAIL)
+            return FAIL;
+        value = new Ellipsis(v, (Term) value);
+        return e;
+    }
+
+    private int EllipsisExpand(int p) {
+        if (!in.startsWith("..", p))
+            return FAIL;
+        value = Ellipsis.Expand;
+        return p + 2;
+    }
+
+    /** premises |- conclusions; unlike other compounds, null terms are kept */
+    private int TaskRule(int p) {
+        if (!is(p, STATEMENT_OPENER))
+            return FAIL;
+        int mark = argc;
+
+        int e = Term(p + 1, false, false);
+        if (e == FAIL)
+            return FAIL;
+        push((Term) value);
+        e = Terms(e, true);
+        int premises = argc - mark;
+
+        e = s(e);
+        if (in.startsWith(TASK_RULE_FWD, e) && (e = Term(e + TASK_RULE_FWD.length(), true, true)) != FAIL) {
+            push((Term) value);
+            e = s(Terms(e, true));
+            if (is(e, STATEMENT_CLOSER)) {
+                Term[] l = pop(mark);
+                value = new TaskRule(
+                        Product.make(Arrays.copyOfRange(l, 0, premises)),
+                        Product.make(Arrays.copyOfRange(l, premises, l.length)));
+                return e + 1;
+            }
+        }
+
+        pop(mark);
+        return FAIL;
+    }
+
+    /** y:x is &lt;x --&gt; y&gt; */
+    private int ColonReverseInheritance(int p) {
+        int e = Term(p, false, true);
+        if (e == FAIL)
+            return FAIL;
+        Term pred = (Term) value;
+        e = s(e);
+        if (!is(e, ':'))
+            return FAIL;
+        e = Term(e + 1, true, true);
+        if (e == FAIL)
+            return FAIL;
+        value = $.inh((Term) value, pred);
+        return e;
+    }
+
+    /** operation() */
+    private int EmptyOperation(int p) {
+        int e = Term(p, false, false);
+        if (e == FAIL || !is(e, COMPOUND_TERM_OPENER))
+            return FAIL;
+        Term operator = (Term) value;
+        e = s(e + 1);
+        if (!is(e, COMPOUND_TERM_CLOSER))
+            return FAIL;
+        int mark = argc;
+        pushNonNull(operator);
+        value = popTerm(mark, OPERATOR);
+        return e + 1;
+    }
+
+    /** operation(p1, p2) */
+    private int Operation(int p) {
+        int e = Term(p, false, false);
+        if (e == FAIL || !is(e, COMPOUND_TERM_OPENER))
+            return FAIL;
+        int mark = argc;
+        pushNonNull((Term) value);
+        return MultiArgTerm(e + 1, mark, OPERATOR, COMPOUND_TERM_CLOSER);
+    }
+
+    /** &lt;term op term&gt; */
+    private int Statement(int p) {
+        if (!is(p, STATEMENT_OPENER))
+            return FAIL;
+        return SpacedTerm(p + 1, STATEMENT_CLOSER);
+    }
+
+    private int Variable(int p) {
+        if (p == len)
+            return FAIL;
+        char type = in.charAt(p);
+        if (type != VAR_INDEPENDENT && type != VAR_DEPENDENT && type != VAR_QUERY && type != VAR_PATTERN)
+            return FAIL;
+        int e = Atom(p + 1);
+        if (e == FAIL)
+            return FAIL;
+        value = Variable.the(type, (String) value);
+        return e;
+    }
+
+    /** negation shorthand */
+    private int Negation(int p) {
+        if (!in.startsWith(NEGATION.str, p))
+            return FAIL;
+        int e = Term(p + NEGATION.str.length(), true, true);
+        if (e == FAIL)
+            return FAIL;
+        value = Negation.make(Atom.the(value));
+        return e;
+    }
+
+    private int Set(int p, Op open, char close) {
+        if (!is(p, open.ch))
+            return FAIL;
+        return MultiArgTerm(p + 1, argc, open, close);
+    }
+
+    /** (op, terms), or a product of (terms), or (term op term) */
+    private int Parenthesized(int p) {
+        if (!is(p, COMPOUND_TERM_OPENER))
+            return FAIL;
+        p++;
+
+        int e = Op(p);
+        if (e != FAIL) {
+            int mark = argc;
+            Op o = op;
+            e = s(Terms(e, false));
+            if (is(e, COMPOUND_TERM_CLOSER)) {
+                value = popTerm(mark, o);
+                return e + 1;
+            }
+            pop(mark);
+        }
+
+        if ((e = MultiArgTerm(p, argc, PRODUCT, COMPOUND_TERM_CLOSER)) != FAIL)
+            return e;
+
+        return SpacedTerm(p, COMPOUND_TERM_CLOSER);
+    }
+
+    /**
+     * term (, term)* close; the terms follow those pushed since 'mark'
+     */
+    private int MultiArgTerm(int p, int mark, Op defaultOp, char close) {
+        int e = Term(p, true, true);
+        if (e != FAIL) {
+            pushNonNull((Term) value);
+            e = s(Terms(e, false));
+            if (is(e, close)) {
+                value = popTerm(mark, defaultOp);
+                return e + 1;
+            }
+        }
+        pop(mark);
+        return FAIL;
+    }
+
+    /** term op term close */
+    private int SpacedTerm(int p, char close) {
+        int mark = argc;
+        int e = Term(p, true, true);
+        if (e != FAIL) {
+            pushNonNull((Term) value);
+            e = Op(s(e));
+            if (e != FAIL) {
+                Op o = op;
+                e = Term(e, true, true);
+                if (e != FAIL) {
+                    pushNonNull((Term) value);
+                    e = s(e);
+                    if (is(e, close)) {
+                        value = popTerm(mark, o);
+                        return e + 1;
+                    }
+                }
+            }
+        }
+        pop(mark);
+        return FAIL;
+    }
+
+    /** (, term)*, pushing each term */
+    private int Terms(int p, boolean keepNull) {
+        while (true) {
+            int q = s(p);
+            if (!is(q, ARGUMENT_SEPARATOR))
+                return p;
+            int e = Term(q + 1, true, true);
+            if (e == FAIL)
+                return p;
+            if (keepNull) push((Term) value);
+            else pushNonNull((Term) value);
+            p = e;
+        }
+    }
+
+    /** the longest operator symbol at p */
+    private int Op(int p) {
+        int longest = -1;
+        for (int i = 0; i < opSymbols.length; i++) {
+            String o = opSymbols[i];
+            if (in.startsWith(o, p) && (longest == -1 || o.length() > opSymbols[longest].length()))
+                longest = i;
+        }
+        if (longest == -1)
+            return FAIL;
+        op = opValues[longest];
+        return p + opSymbols[longest].length();
+    }
+
+    /** an atom's name, which may also name a variable */
+    private int Atom(int p) {
+        int e = p;
+        while (e < len && Narsese.isValidAtomChar(in.charAt(e))) e++;
+        if (e == p)
+            return FAIL;
+        value = in.substring(p, e);
+        return e;
+    }
+
+    private int ImageIndex(int p) {
+        if (!is(p, IMAGE_PLACE_HOLDER))
+            return FAIL;
+        value = Narsese.imageIndexTerm;
+        return p + 1;
+    }
+
+
+    /** the compound of the terms pushed since 'mark', as Narsese.popTerm */
+    private Term popTerm(int mark, Op o) {
+        if (argc == mark)
+            return null;
+        Term[] t = pop(mark);
+        if (o == null) o = PRODUCT;
+        if (o == OPERATOR)
+            return $.oper(new Operator(t[0]), Product.make(Arrays.copyOfRange(t, 1, t.length)));
+        return Terms.term(o, t);
+    }
+
+    private void push(Term t) {
+        if (argc == args.length)
+            args = Arrays.copyOf(args, argc * 2);
+        args[argc++] = t;
+    }
+
+    /** Narsese.popTerm drops null subterms */
+    private void pushNonNull(Term t) {
+        if (t != null) push(t);
+    }
+
+    private Term[] pop(int mark) {
+        Term[] t = Arrays.copyOfRange(args, mark, argc);
+        Arrays.fill(args, mark, argc, null);
+        argc = mark;
+        return t;
+    }
+
+    /** whitespace, optional */
+    private int s(int p) {
+        while (p < len) {
+            switch (in.charAt(p)) {
+                case ' ': case '\t': case '\f': case '\n': case '\r':
+                    p++;
+                    break;
+                default:
+                    return p;
+            }
+        }
+        return p;
+    }
+
+    private boolean is(int p, char c) {
+        return p < len && in.charAt(p) == c;
+    }
+
+    private boolean digit(int p) {
+        if (p >= len) return false;
+        char c = in.charAt(p);
+        return c >= '0' && c <= '9';
+    }
+}
@@ -81,6 +81,10 @@ public abstract class Param extends Container implements Level {
 //    /** budget summary necessary to execute a desired Goal */
 //    public final AtomicDouble questionFromGoalThreshold = new AtomicDouble(0);
 
+    /** time within which a derivation identical to a previous one is discarded
+     *  before input (see DerivationFilter).  0 disables the filter */
+    public final AtomicInteger derivationDuplicateWindow = new AtomicInteger(0);
+
     /** budget summary necessary to run a TaskProcess for a given Task
      *  this should be equal to zero to allow subconcept seeding. */
     public final AtomicDouble taskProcessThreshold = new AtomicDouble(0);
@@ -100,6 +104,11 @@ public abstract class Param extends Container implements Level {
 
     /** Maximum number of beliefs kept in a Concept */
     public final AtomicInteger conceptBeliefsMax = new AtomicInteger();
+
+    /** Maximum number of temporal beliefs kept in a Concept, indexed by occurrence time
+     *  separately from the eternal beliefs (see TemporalBeliefTable).
+     *  0 keeps all beliefs in one table of conceptBeliefsMax */
+    public final AtomicInteger conceptTemporalBeliefsMax = new AtomicInteger();
     
     /** Maximum number of questions, and max # of quests kept in a Concept */
     public final AtomicInteger conceptQuestionsMax = new AtomicInteger();
@@ -279,7 +279,7 @@ public interface Premise extends Level, Tasked {
         }
 
         if (task.isJudgmentOrGoal() && task.getConfidence() < DefaultTruth.DEFAULT_TRUTH_EPSILON) {
-            memory.remove(task, "Insufficient confidence");
+            removed(task, "Insufficient confidence");
             return null;
         }
 
@@ -288,14 +288,25 @@ public interface Premise extends Level, Tasked {
         }
 
         if (!FilterDuplicateExistingBelief.isUniqueBelief(this, task)) {
-            memory.remove(task, "Duplicate");
+            removed(task, "Duplicate");
             return null;
         }
 
-        memory.eventDerived.emit(task);
+        memory.metrics().derivations.inc();
+        derived(task);
         return task;
     }
 
+    /** emits a validated derivation */
+    default void derived(Task task) {
+        nar().memory.eventDerived.emit(task);
+    }
+
+    /** removes a rejected derivation */
+    default void removed(Task task, String reason) {
+        nar().memory.remove(task, reason);
+    }
+
 
 
 
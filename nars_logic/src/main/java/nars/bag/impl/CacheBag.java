@@ -6,7 +6,8 @@ import nars.concept.Concept;
 import nars.term.Term;
 
 
-public interface CacheBag<K, V extends Itemized<K>>  {
+/** an index of items by key; iteration visits every item, including any not held on the heap */
+public interface CacheBag<K, V extends Itemized<K>> extends Iterable<V> {
     
 
     void clear();
@@ -0,0 +1,321 @@
+package nars.bag.impl;
+
+import nars.Memory;
+import nars.bag.Bag;
+import nars.bag.BagSelector;
+import nars.bag.BagTransaction;
+import nars.bag.tx.BagForgetting;
+import nars.budget.Itemized;
+import nars.util.data.random.XorShift1024StarRandom;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * CurveBag which can be accessed by many threads.  Items are partitioned by
+ * key hash into a number of stripes, each an independently locked CurveBag,
+ * so threads accessing different keys rarely contend.
+ * <p>
+ * Sampling first selects a stripe with probability proportional to its size
+ * and then samples within it by the curve.  Since hashing spreads priorities
+ * evenly across the stripes, an item's rank within its stripe is, in
+ * expectation, the same fraction of the stripe as its rank in the whole bag,
+ * so the sampling distribution approximates that of a single CurveBag.
+ * Likewise capacity is divided among the stripes, so the item displaced when
+ * full is the lowest of its stripe rather than necessarily of the whole bag.
+ * <p>
+ * size() and the priority statistics are not atomic with respect to
+ * concurrent modification.  The no-argument forgetNext() relies on shared
+ * state set by setForgetNext and is not thread safe; use
+ * forgetNext(forgetDurations, memory) instead.
+ */
+public class ConcurrentCurveBag<K, V extends Itemized<K>> extends Bag<K, V> {
+
+    private final CurveBag<K, V>[] stripes;
+    private final int mask;
+
+    public ConcurrentCurveBag(int capacity, Random rng) {
+        this(CurveBag.power6BagCurve, capacity, 16, rng);
+    }
+
+    /** @param stripes number of stripes, rounded up to a power of 2 */
+    public ConcurrentCurveBag(CurveBag.BagCurve curve, int capacity, int stripes, Random rng) {
+        super();
+
+        int n = 1;
+        while (n < stripes) n <<= 1;
+        //each stripe holds at least one item
+        while (n > 1 && n > capacity) n >>= 1;
+
+        this.mask = n - 1;
+        this.stripes = new CurveBag[n];
+        for (int i = 0; i < n; i++) {
+            //each stripe samples with its own generator since they are used concurrently
+            this.stripes[i] = new CurveBag<>(curve, stripeCapacity(capacity, n, i),
+                    new XorShift1024StarRandom(rng.nextLong()));
+        }
+
+        mergeAverage();
+    }
+
+    /** divides the capacity as evenly as possible */
+    static int stripeCapacity(int capacity, int stripes, int i) {
+        return capacity / stripes + ((i < capacity % stripes) ? 1 : 0);
+    }
+
+    final CurveBag<K, V> stripe(final K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & mask];
+    }
+
+    /** selects a non-empty stripe with probability proportional to its size, or null if all are empty */
+    final CurveBag<K, V> sampleStripe() {
+        final CurveBag<K, V>[] stripes = this.stripes;
+        if (stripes.length == 1)
+            return stripes[0];
+
+        int s = size();
+        if (s == 0) return null;
+
+        int r = ThreadLocalRandom.current().nextInt(s);
+        CurveBag<K, V> last = null;
+        for (CurveBag<K, V> b : stripes) {
+            int bs = b.size();
+            if (bs == 0) continue;
+            last = b;
+            r -= bs;
+            if (r < 0)
+                return b;
+        }
+
+        //sizes changed during the scan
+        return last;
+    }
+
+    public int stripes() {
+        return stripes.length;
+    }
+
+    @Override
+    public Bag mergeAverage() {
+        super.mergeAverage();
+        for (CurveBag<K, V> b : stripes) b.mergeAverage();
+        return this;
+    }
+
+    @Override
+    public Bag mergePlus() {
+        super.mergePlus();
+        for (CurveBag<K, V> b : stripes) b.mergePlus();
+        return this;
+    }
+
+    @Override
+    public Bag mergeMax() {
+        super.mergeMax();
+        for (CurveBag<K, V> b : stripes) b.mergeMax();
+        return this;
+    }
+
+    @Override
+    public void clear() {
+        for (CurveBag<K, V> b : stripes) {
+            synchronized (b) {
+                b.clear();
+            }
+        }
+    }
+
+    @Override
+    public V peekNext() {
+        for (int i = 0; i < stripes.length; i++) {
+            CurveBag<K, V> b = sampleStripe();
+            if (b == null) return null;
+            synchronized (b) {
+                V v = b.peekNext();
+                if (v != null) return v;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V peekNext(BagSelector<K, V> selector) {
+        for (int i = 0; i < stripes.length; i++) {
+            CurveBag<K, V> b = sampleStripe();
+            if (b == null) return null;
+            synchronized (b) {
+                V v = b.peekNext(selector);
+                if (v != null) return v;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V pop() {
+        for (int i = 0; i < stripes.length; i++) {
+            CurveBag<K, V> b = sampleStripe();
+            if (b == null) return null;
+            synchronized (b) {
+                V v = b.pop();
+                if (v != null) return v;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        CurveBag<K, V> b = stripe(key);
+        synchronized (b) {
+            return b.remove(key);
+        }
+    }
+
+    @Override
+    public V put(V newItem) {
+        CurveBag<K, V> b = stripe(newItem.name());
+        synchronized (b) {
+            return b.put(newItem);
+        }
+    }
+
+    @Override
+    public V get(K key) {
+        CurveBag<K, V> b = stripe(key);
+        synchronized (b) {
+            return b.get(key);
+        }
+    }
+
+    /** the update is atomic with respect to the stripe of the transaction's key */
+    @Override
+    public V update(BagTransaction<K, V> tx) {
+        K key = tx.name();
+        CurveBag<K, V> b = (key != null) ? stripe(key) : sampleStripe();
+        if (b == null)
+            b = stripes[0];
+        synchronized (b) {
+            return b.update(tx);
+        }
+    }
+
+    @Override
+    public V forgetNext(float forgetDurations, Memory m) {
+        BagForgetting<K, V> f = new BagForgetting<K, V>().set(m.durationToCycles(forgetDurations), m.time());
+        peekNext(f);
+        return f.current;
+    }
+
+    @Override
+    public int forgetNext(float forgetCycles, V[] batch, int start, int stop, long now, int maxAdditionalAttempts) {
+        if (isEmpty())
+            return 0;
+
+        return peekNext(new BagForgetting<K, V>().set(forgetCycles, now),
+                batch, start, stop, maxAdditionalAttempts);
+    }
+
+    @Override
+    public void forgetNext(float forgetCycles, float accuracy, Memory m) {
+        final int conceptsToForget = (int) Math.ceil(size() * accuracy);
+        if (conceptsToForget == 0) return;
+
+        BagForgetting<K, V> f = new BagForgetting<K, V>().set(forgetCycles, m.time());
+        for (int i = 0; i < conceptsToForget; i++) {
+            peekNext(f);
+        }
+    }
+
+    @Override
+    public Set<K> keySet() {
+        Set<K> s = new HashSet<>(size());
+        for (CurveBag<K, V> b : stripes) {
+            synchronized (b) {
+                s.addAll(b.keySet());
+            }
+        }
+        return s;
+    }
+
+    @Override
+    public int capacity() {
+        int c = 0;
+        for (CurveBag<K, V> b : stripes) c += b.capacity();
+        return c;
+    }
+
+    @Override
+    public void setCapacity(int c) {
+        for (int i = 0; i < stripes.length; i++) {
+            CurveBag<K, V> b = stripes[i];
+            synchronized (b) {
+                b.setCapacity(stripeCapacity(c, stripes.length, i));
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int s = 0;
+        for (CurveBag<K, V> b : stripes) s += b.size();
+        return s;
+    }
+
+    /** a snapshot of the items, in descending priority */
+    public List<V> toList() {
+        List<V> l = new ArrayList<>(size());
+        for (CurveBag<K, V> b : stripes) {
+            synchronized (b) {
+                b.forEach(l::add);
+            }
+        }
+        l.sort((x, y) -> Float.compare(y.getPriority(), x.getPriority()));
+        return l;
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return toList().iterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super V> action) {
+        toList().forEach(action);
+    }
+
+    @Override
+    public float getPriorityMin() {
+        float min = 1.0f;
+        boolean any = false;
+        for (CurveBag<K, V> b : stripes) {
+            synchronized (b) {
+                if (!b.isEmpty()) {
+                    min = Math.min(min, b.getPriorityMin());
+                    any = true;
+                }
+            }
+        }
+        return any ? min : 0;
+    }
+
+    @Override
+    public float getPriorityMax() {
+        float max = 0;
+        for (CurveBag<K, V> b : stripes) {
+            synchronized (b) {
+                if (!b.isEmpty())
+                    max = Math.max(max, b.getPriorityMax());
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + '[' + stripes.length + " stripes]";
+    }
+}
@@ -0,0 +1,412 @@
+package nars.bag.impl;
+
+import com.gs.collections.impl.map.mutable.primitive.IntLongHashMap;
+import nars.Global;
+import nars.Memory;
+import nars.bag.Bag;
+import nars.concept.Concept;
+import nars.concept.util.ConceptBuilder;
+import nars.concept.util.ConceptExternalizer;
+import nars.term.Term;
+import nars.util.io.BinaryCodec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Two-tier concept index: a bounded number of hot concepts remain on the heap
+ * while cold concepts are spilled (via ConceptExternalizer) to a memory-mapped
+ * file, and re-loaded when they are next accessed.
+ *
+ * Eviction is LRU and priority-aware: of the least recently used concepts
+ * (the eviction window) the one with the lowest priority is spilled first.
+ * Concepts in the active bag (see setActive) are never spilled, since the bag
+ * would keep using the instance while a re-loaded copy replaced it here.  The
+ * hot capacity should exceed the capacity of the active concept bag; when
+ * every hot concept is active the hot tier grows past its capacity.
+ * A concept which fails to spill stays hot.
+ *
+ * File layout: a sequence of records which do not span mapped segments:
+ *      int length, byte live, int term hash, long previous record offset with the same term hash, bytes
+ * A length of SKIP marks the unused end of a segment.  The only on-heap
+ * index of the cold tier is a primitive map of term hash to the offset of
+ * its most recent record; colliding terms are chained through the records.
+ * Re-loaded records are marked dead in place; once the dead records make up
+ * most of the file, the live records are moved down over them (compact()).
+ */
+public class MappedCacheBag extends AbstractCacheBag<Term, Concept> {
+
+    /** size of each mapped region of the file */
+    public static final int SEGMENT_SIZE = 1 << 26;
+
+    static final int HEADER = 4 + 1 + 4 + 8;
+    static final byte DEAD = 0, LIVE = 1;
+    static final int SKIP = -1;
+
+    /** dead bytes below which the file is not compacted */
+    static final long COMPACT_MIN = SEGMENT_SIZE / 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = Global.newArrayList();
+
+    /** maximum number of concepts kept on heap */
+    private final int capacity;
+
+    /** number of least recently used concepts compared by priority when evicting */
+    private final int evictionWindow;
+
+    /** access-ordered, so iteration begins at the least recently used */
+    private final LinkedHashMap<Term, Concept> hot;
+
+    /** term hash -> offset of the most recent record with that hash */
+    private final IntLongHashMap index = new IntLongHashMap();
+
+    /** write position */
+    private long end = 0;
+
+    private int coldSize = 0;
+
+    /** bytes of dead records */
+    private long dead = 0;
+
+    /** concepts which are not spilled, or null */
+    private Bag<Term, Concept> active;
+
+    private transient ConceptExternalizer externalizer;
+
+    public static MappedCacheBag temporary(int capacity) throws IOException {
+        Path p = Files.createTempFile("concepts", ".bin");
+        p.toFile().deleteOnExit();
+        return new MappedCacheBag(p, capacity, 8);
+    }
+
+    public MappedCacheBag(Path path, int capacity, int evictionWindow) throws IOException {
+        super();
+
+        this.path = path;
+        this.capacity = capacity;
+        this.evictionWindow = evictionWindow;
+        this.hot = new LinkedHashMap<>(capacity, 0.75f, true);
+
+        this.channel = FileChannel.open(path, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void start(Memory memory) {
+        super.start(memory);
+        this.externalizer = new ConceptExternalizer(memory.the(ConceptBuilder.class));
+    }
+
+    /** the bag of active concepts, which are kept on the heap */
+    public synchronized void setActive(Bag<Term, Concept> active) {
+        this.active = active;
+    }
+
+    @Override
+    public synchronized void clear() {
+        hot.clear();
+        index.clear();
+        end = 0;
+        dead = 0;
+        coldSize = 0;
+    }
+
+    @Override
+    public synchronized Concept get(Term key) {
+        Concept c = hot.get(key);
+        if (c == null) {
+            c = take(key);
+            if (c != null) {
+                hot.put(key, c);
+                evict();
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public synchronized Concept remove(Term key) {
+        Concept c = hot.remove(key);
+        return (c != null) ? c : take(key);
+    }
+
+    @Override
+    public synchronized Concept put(Concept c) {
+        Term key = c.getTerm();
+        Concept existing = hot.put(key, c);
+        if (existing == null) {
+            //supersedes any spilled instance
+            existing = take(key);
+        }
+        evict();
+        return existing;
+    }
+
+    @Override
+    public synchronized int size() {
+        return hot.size() + coldSize;
+    }
+
+    /** number of concepts currently on the heap */
+    public synchronized int sizeHot() {
+        return hot.size();
+    }
+
+    /** number of bytes written to the file, including dead records */
+    public synchronized long sizeBytes() {
+        return end;
+    }
+
+    private void evict() {
+        final Bag<Term, Concept> active = this.active;
+
+        while (hot.size() > capacity) {
+
+            Concept victim = null;
+            int candidates = 0;
+            for (Concept c : hot.values()) {
+                if (active != null && active.get(c.getTerm()) != null)
+                    continue;
+                if (victim == null || c.getPriority() < victim.getPriority())
+                    victim = c;
+                if (++candidates == evictionWindow)
+                    break;
+            }
+
+            if (victim == null)
+                return; //all are active
+
+            Term key = victim.getTerm();
+            if (!spill(victim)) {
+                hot.get(key); //most recently used, so that it is not retried first
+                return;
+            }
+            hot.remove(key);
+        }
+    }
+
+    /** writes a record of the concept; false if it could not be written */
+    private boolean spill(Concept c) {
+        byte[] b;
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream o = new ObjectOutputStream(baos);
+            externalizer.writeObject(o, c);
+            o.flush();
+            b = baos.toByteArray();
+        } catch (IOException e) {
+            memory.eventError.emit(e);
+            return false;
+        }
+
+        int len = HEADER + b.length;
+        if (len > SEGMENT_SIZE) {
+            memory.eventError.emit(c + " too large to spill: " + len + " bytes");
+            return false;
+        }
+
+        if (dead >= COMPACT_MIN && dead > end / 2)
+            compact();
+
+        long at = place(end, len);
+        int h = c.getTerm().hashCode();
+
+        ByteBuffer bb = segment((int) (at / SEGMENT_SIZE));
+        bb.position((int) (at % SEGMENT_SIZE));
+        bb.putInt(b.length).put(LIVE).putInt(h).putLong(index.getIfAbsent(h, -1)).put(b);
+
+        index.put(h, at);
+        end = at + len;
+        coldSize++;
+        return true;
+    }
+
+    /** the offset at which a record of len bytes is written, from the given
+     *  offset or, marking the rest of its segment unused, the next segment */
+    private long place(long at, int len) {
+        int pos = (int) (at % SEGMENT_SIZE);
+        if (pos + len <= SEGMENT_SIZE)
+            return at;
+
+        if (pos + 4 <= SEGMENT_SIZE)
+            segment((int) (at / SEGMENT_SIZE)).putInt(pos, SKIP);
+        return (at / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+    }
+
+    /** moves the live records down over the dead ones, in order, and rebuilds the index */
+    public synchronized void compact() {
+        index.clear();
+
+        long read = 0, write = 0;
+        while (read < end) {
+            int seg = (int) (read / SEGMENT_SIZE);
+            int pos = (int) (read % SEGMENT_SIZE);
+            ByteBuffer bb = segment(seg);
+
+            int len = (pos + HEADER <= SEGMENT_SIZE) ? bb.getInt(pos) : SKIP;
+            if (len == SKIP) {
+                read = ((long) seg + 1) * SEGMENT_SIZE;
+                continue;
+            }
+
+            int total = HEADER + len;
+            if (bb.get(pos + 4) == LIVE) {
+                int h = bb.getInt(pos + 5);
+
+                //the write offset never passes the read offset, so the record can be copied down
+                byte[] r = new byte[total];
+                bb.position(pos);
+                bb.get(r);
+
+                write = place(write, total);
+                ByteBuffer wb = segment((int) (write / SEGMENT_SIZE));
+                int wpos = (int) (write % SEGMENT_SIZE);
+                wb.position(wpos);
+                wb.put(r);
+                wb.putLong(wpos + 9, index.getIfAbsent(h, -1));
+
+                index.put(h, write);
+                write += total;
+            }
+
+            read += total;
+        }
+
+        end = write;
+        dead = 0;
+    }
+
+    /**
+     * visits the hot concepts, then copies of the spilled concepts read from
+     * the file, which remain spilled
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super Concept> each) {
+        hot.values().forEach(each);
+
+        long at = 0;
+        while (at < end) {
+            int seg = (int) (at / SEGMENT_SIZE);
+            int pos = (int) (at % SEGMENT_SIZE);
+            ByteBuffer bb = segment(seg);
+
+            int len = (pos + HEADER <= SEGMENT_SIZE) ? bb.getInt(pos) : SKIP;
+            if (len == SKIP) {
+                at = ((long) seg + 1) * SEGMENT_SIZE;
+                continue;
+            }
+
+            if (bb.get(pos + 4) == LIVE) {
+                byte[] b = new byte[len];
+                bb.position(pos + HEADER);
+                bb.get(b);
+
+                Concept c = null;
+                try {
+                    ObjectInputStream i = new ObjectInputStream(new ByteArrayInputStream(b));
+                    byte[] term = new byte[i.readInt()];
+                    i.readFully(term);
+                    c = externalizer.readObject(i, BinaryCodec.decodeTerm(term));
+                } catch (Exception e) {
+                    memory.eventError.emit(e);
+                }
+                if (c != null)
+                    each.accept(c);
+            }
+
+            at += HEADER + len;
+        }
+    }
+
+    /** a snapshot, which reads every spilled concept onto the heap; forEach streams them instead */
+    @Override
+    public Iterator<Concept> iterator() {
+        List<Concept> l = Global.newArrayList();
+        forEach(l::add);
+        return l.iterator();
+    }
+
+    /** removes and returns a spilled concept, or null if it is not in the file */
+    private Concept take(Term key) {
+
+        int h = key.hashCode();
+        long o = index.getIfAbsent(h, -1);
+
+        while (o != -1) {
+            ByteBuffer bb = segment((int) (o / SEGMENT_SIZE));
+            int pos = (int) (o % SEGMENT_SIZE);
+            bb.position(pos);
+
+            int len = bb.getInt();
+            byte live = bb.get();
+            bb.getInt(); //hash
+            long prev = bb.getLong();
+
+            if (live == LIVE) {
+                byte[] b = new byte[len];
+                bb.get(b);
+
+                try {
+                    ObjectInputStream i = new ObjectInputStream(new ByteArrayInputStream(b));
+                    byte[] term = new byte[i.readInt()];
+                    i.readFully(term);
+                    Term t = BinaryCodec.decodeTerm(term);
+                    if (t.equals(key)) {
+                        Concept c = externalizer.readObject(i, t);
+                        bb.put(pos + 4, DEAD);
+                        dead += HEADER + len;
+                        coldSize--;
+                        return c;
+                    }
+                } catch (Exception e) {
+                    memory.eventError.emit(e);
+                }
+            }
+
+            o = prev;
+        }
+
+        return null;
+    }
+
+    /** a view of the mapped segment, whose position can be modified independently */
+    private ByteBuffer segment(int i) {
+        try {
+            while (segments.size() <= i) {
+                long start = ((long) segments.size()) * SEGMENT_SIZE;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, SEGMENT_SIZE));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return segments.get(i).duplicate();
+    }
+
+    @Override
+    public synchronized void delete() {
+        clear();
+        segments.clear();
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '[' + path + ", hot=" + sizeHot() + ", size=" + size() + ']';
+    }
+}
@@ -0,0 +1,372 @@
+package nars.bag.impl;
+
+import com.gs.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import nars.bag.Bag;
+import nars.bag.BagSelector;
+import nars.bag.tx.BagForgetting;
+import nars.budget.Budget;
+import nars.budget.Itemized;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Curve-sampled bag with a structure-of-arrays layout.  Each item occupies a
+ * fixed slot, and the budget components of the slot are held in parallel
+ * primitive arrays, so that ranking, sampling and forgetting scan contiguous
+ * floats rather than dereferencing each item.  The ranking is an array of
+ * slot ids in descending priority.
+ * <p>
+ * Items remain Budgets themselves (see Item), so the arrays mirror their
+ * budgets: values are loaded when an item is put, and reloaded from the item
+ * when it is sampled for forgetting, which is then written back to the item.
+ * Budget changes made to an item while it is in the bag affect its rank
+ * when it is next put, updated or forgotten, as with the other bags.
+ * <p>
+ * The mirror costs 28 bytes per slot (three floats, a long and two ints)
+ * in addition to the items, so this trades heap for locality.  The link
+ * bags of the default concepts remain CurveBags.
+ */
+public class SlotBag<K, V extends Itemized<K>> extends Bag<K, V> {
+
+    public final CurveBag.BagCurve curve;
+    private final Random random;
+
+    private final ObjectIntHashMap<K> slots;
+
+    private Object[] items;
+    private float[] pri, dur, qua;
+    private long[] lastForget;
+
+    /** slot ids in descending priority */
+    private int[] order;
+    /** position of each slot in order */
+    private int[] rank;
+
+    /** unoccupied slot ids */
+    private int[] free;
+    private int freeCount;
+
+    private int size;
+
+    public SlotBag(int capacity, Random rng) {
+        this(CurveBag.power6BagCurve, capacity, rng);
+    }
+
+    public SlotBag(CurveBag.BagCurve curve, int capacity, Random rng) {
+        super();
+        this.curve = curve;
+        this.random = rng;
+        this.slots = new ObjectIntHashMap<>(capacity);
+        allocate(capacity);
+        mergeAverage();
+    }
+
+    private void allocate(int capacity) {
+        int prev = (items == null) ? 0 : items.length;
+
+        items = (prev == 0) ? new Object[capacity] : Arrays.copyOf(items, capacity);
+        pri = (prev == 0) ? new float[capacity] : Arrays.copyOf(pri, capacity);
+        dur = (prev == 0) ? new float[capacity] : Arrays.copyOf(dur, capacity);
+        qua = (prev == 0) ? new float[capacity] : Arrays.copyOf(qua, capacity);
+        lastForget = (prev == 0) ? new long[capacity] : Arrays.copyOf(lastForget, capacity);
+        order = (prev == 0) ? new int[capacity] : Arrays.copyOf(order, capacity);
+        rank = (prev == 0) ? new int[capacity] : Arrays.copyOf(rank, capacity);
+
+        //the new slots are free
+        int[] f = new int[capacity];
+        if (free != null)
+            System.arraycopy(free, 0, f, 0, freeCount);
+        free = f;
+        for (int s = capacity - 1; s >= prev; s--)
+            free[freeCount++] = s;
+    }
+
+    /** priority used for ordering; deleted items rank lowest */
+    private float rankPri(int slot) {
+        float p = pri[slot];
+        return (p != p) ? -1 : p;
+    }
+
+    private void load(int slot, V v) {
+        Budget b = v.getBudget();
+        pri[slot] = b.getPriority();
+        dur[slot] = b.getDurability();
+        qua[slot] = b.getQuality();
+        lastForget[slot] = b.getLastForgetTime();
+    }
+
+    /** moves a slot up or down the ranking after its priority changed */
+    private void reorder(int slot) {
+        final int[] order = this.order, rank = this.rank;
+        final float p = rankPri(slot);
+        int r = rank[slot];
+
+        while (r > 0 && rankPri(order[r - 1]) < p) {
+            int o = order[r - 1];
+            order[r] = o;
+            rank[o] = r;
+            r--;
+        }
+        while (r < size - 1 && rankPri(order[r + 1]) > p) {
+            int o = order[r + 1];
+            order[r] = o;
+            rank[o] = r;
+            r++;
+        }
+
+        order[r] = slot;
+        rank[slot] = r;
+    }
+
+    private int insert(V v) {
+        int slot = free[--freeCount];
+        items[slot] = v;
+        load(slot, v);
+        slots.put(v.name(), slot);
+
+        order[size] = slot;
+        rank[slot] = size;
+        size++;
+        reorder(slot);
+        return slot;
+    }
+
+    private V removeSlot(int slot) {
+        V v = item(slot);
+
+        final int[] order = this.order, rank = this.rank;
+        for (int r = rank[slot]; r < size - 1; r++) {
+            int o = order[r + 1];
+            order[r] = o;
+            rank[o] = r;
+        }
+        size--;
+
+        slots.remove(v.name());
+        items[slot] = null;
+        free[freeCount++] = slot;
+        return v;
+    }
+
+    private V item(int slot) {
+        return (V) items[slot];
+    }
+
+    /** samples a slot by the curve over the priority ranking */
+    private int sample() {
+        final int s = size;
+        if (s == 1) return order[0];
+        return order[CurveBag.index(curve.valueOf(random.nextFloat()), s)];
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        Arrays.fill(items, null);
+        size = 0;
+        freeCount = 0;
+        for (int s = items.length - 1; s >= 0; s--)
+            free[freeCount++] = s;
+    }
+
+    @Override
+    public V peekNext() {
+        while (size > 0) {
+            int slot = sample();
+            if (!Budget.isDeleted(pri[slot]) && !item(slot).isDeleted())
+                return item(slot);
+            removeSlot(slot);
+        }
+        return null;
+    }
+
+    /** forgetting is applied to the arrays, then written back to the item */
+    @Override
+    public V peekNext(BagSelector<K, V> selector) {
+        if (selector.getClass() != BagForgetting.class)
+            return super.peekNext(selector);
+
+        BagForgetting<K, V> f = (BagForgetting<K, V>) selector;
+
+        while (size > 0) {
+            int slot = sample();
+            V v = item(slot);
+            if (Budget.isDeleted(pri[slot]) || v.isDeleted()) {
+                removeSlot(slot);
+                selector.overflow(v);
+                continue;
+            }
+
+            f.current = v;
+
+            //from the live budget, which may have changed since it was put
+            load(slot, v);
+
+            Budget b = v.getBudget();
+            b.setPriority(f.forget(pri[slot], dur[slot], qua[slot]));
+            b.setLastForgetTime(f.now());
+
+            pri[slot] = b.getPriority();
+            lastForget[slot] = f.now();
+            reorder(slot);
+
+            return v;
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        int slot = slots.getIfAbsent(key, -1);
+        return (slot == -1) ? null : removeSlot(slot);
+    }
+
+    @Override
+    public V put(V v) {
+        int slot = slots.getIfAbsent(v.name(), -1);
+        if (slot != -1) {
+            V existing = item(slot);
+            if (!existing.isDeleted())
+                merge(v.getBudget(), existing.getBudget());
+            items[slot] = v;
+            load(slot, v);
+            reorder(slot);
+            return null;
+        }
+
+        V displaced = null;
+        if (size >= items.length) {
+            int lowest = order[size - 1];
+            if (rankPri(lowest) > v.getPriority()) {
+                //insufficient priority to enter the bag
+                return v;
+            }
+            displaced = removeSlot(lowest);
+        }
+
+        insert(v);
+        return displaced;
+    }
+
+    @Override
+    public V get(K key) {
+        int slot = slots.getIfAbsent(key, -1);
+        if (slot == -1) return null;
+        V v = item(slot);
+        if (v.isDeleted()) {
+            removeSlot(slot);
+            return null;
+        }
+        return v;
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return slots.keysView().toSet();
+    }
+
+    @Override
+    public int capacity() {
+        return items.length;
+    }
+
+    @Override
+    public void setCapacity(int c) {
+        if (c == items.length) return;
+
+        while (size > c)
+            removeSlot(order[size - 1]);
+
+        if (c > items.length) {
+            allocate(c);
+        } else {
+            //compact the occupied slots into 0..c-1
+            Object[] oldItems = items;
+            int n = size;
+            Object[] occupied = new Object[n];
+            for (int r = 0; r < n; r++)
+                occupied[r] = oldItems[order[r]];
+
+            items = null;
+            free = null;
+            freeCount = 0;
+            slots.clear();
+            size = 0;
+            allocate(c);
+
+            for (int r = 0; r < n; r++)
+                insert((V) occupied[r]);
+        }
+    }
+
+    @Override
+    public V pop() {
+        V v = peekNext();
+        if (v != null)
+            remove(v.name());
+        return v;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** iterates in descending priority */
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            int r = 0;
+
+            @Override
+            public boolean hasNext() {
+                return r < size;
+            }
+
+            @Override
+            public V next() {
+                if (r >= size)
+                    throw new NoSuchElementException();
+                return item(order[r++]);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(Consumer<? super V> action) {
+        for (int r = 0; r < size; r++)
+            action.accept(item(order[r]));
+    }
+
+    @Override
+    public void forEach(int max, Consumer<V> action) {
+        int n = Math.min(size, max);
+        for (int r = 0; r < n; r++)
+            action.accept(item(order[r]));
+    }
+
+    @Override
+    public float getPrioritySum() {
+        float total = 0;
+        for (int r = 0; r < size; r++) {
+            float p = pri[order[r]];
+            if (p == p) total += p;
+        }
+        return total;
+    }
+
+    @Override
+    public float getPriorityMax() {
+        return (size == 0) ? 0 : Math.max(0, rankPri(order[0]));
+    }
+
+    @Override
+    public float getPriorityMin() {
+        return (size == 0) ? 0 : Math.max(0, rankPri(order[size - 1]));
+    }
+}
@@ -2,6 +2,7 @@ package nars.bag.tx;
 
 import nars.bag.BagSelector;
 import nars.budget.Budget;
+import nars.budget.BudgetFunctions;
 import nars.budget.Itemized;
 
 /**
@@ -36,6 +37,15 @@ public class BagForgetting<K, V extends Itemized<K>> implements BagSelector<K,V>
 
 
 
+    /** the priority which updateItem results in for the given budget components */
+    public final float forget(float priority, float durability, float quality) {
+        return BudgetFunctions.forgetIterative(priority, durability, quality, forgetCycles, 0);
+    }
+
+    public final long now() {
+        return now;
+    }
+
     @Override
     public void updateItem(V v, Budget result) {
         this.current = v;
@@ -223,12 +223,18 @@ public final class BudgetFunctions extends UtilityFunctions {
      * @param relativeThreshold The relative threshold of the bag
      */
     @Deprecated public static float forgetIterative(final Budget budget, final float forgetCycles, final float relativeThreshold) {
-        float newPri = budget.getQuality() * relativeThreshold;      // re-scaled quality
-        final float dp = budget.getPriority() - newPri;                     // priority above quality
+        final float newPri = forgetIterative(budget.getPriority(), budget.getDurability(), budget.getQuality(), forgetCycles, relativeThreshold);
+        budget.setPriority(newPri);
+        return newPri;
+    }
+
+    /** forgetIterative on budget components, for budgets not stored in a Budget instance */
+    public static float forgetIterative(final float priority, final float durability, final float quality, final float forgetCycles, final float relativeThreshold) {
+        float newPri = quality * relativeThreshold;      // re-scaled quality
+        final float dp = priority - newPri;                     // priority above quality
         if (dp > 0) {
-            newPri += (float) (dp * pow(budget.getDurability(), 1.0f / (forgetCycles * dp)));
+            newPri += (float) (dp * pow(durability, 1.0f / (forgetCycles * dp)));
         }    // priority Durability
-        budget.setPriority(newPri);
         return newPri;
     }
 
@@ -13,6 +13,7 @@ import nars.concept.util.ArrayListBeliefTable;
 import nars.concept.util.ArrayListTaskTable;
 import nars.concept.util.BeliefTable;
 import nars.concept.util.TaskTable;
+import nars.concept.util.TemporalBeliefTable;
 import nars.link.TaskLink;
 import nars.link.TermLink;
 import nars.link.TermLinkBuilder;
@@ -70,7 +71,10 @@ public class DefaultConcept extends AtomConcept {
 
         this.memory = memory;
         //TODO lazy instantiate?
-        this.beliefs = new ArrayListBeliefTable(memory, p.conceptBeliefsMax.intValue());
+        final int temporalBeliefs = p.conceptTemporalBeliefsMax.intValue();
+        this.beliefs = (temporalBeliefs > 0) ?
+                new TemporalBeliefTable(memory, p.conceptBeliefsMax.intValue(), temporalBeliefs) :
+                new ArrayListBeliefTable(memory, p.conceptBeliefsMax.intValue());
         this.goals = new ArrayListBeliefTable(memory, p.conceptGoalsMax.intValue());
 
         final int maxQuestions = p.conceptQuestionsMax.intValue();
@@ -8,6 +8,7 @@ import nars.bag.tx.BagActivator;
 import nars.budget.Budget;
 import nars.concept.Concept;
 import nars.term.Term;
+import nars.term.index.DiscriminationTree;
 
 /**
  * Created by me on 3/15/15.
@@ -24,6 +25,9 @@ public class ConceptActivator extends BagActivator<Term, Concept> implements Con
     public final NAR nar;
     private final ConceptBuilder builder;
 
+    /** index of the terms of the concepts in the bag, maintained if non-null */
+    private DiscriminationTree<Concept> index;
+
     public ConceptActivator(NAR nar, ConceptBuilder builder) {
         this.nar = nar;
         this.builder = builder;
@@ -60,10 +64,21 @@ public class ConceptActivator extends BagActivator<Term, Concept> implements Con
         if (c == null) {
             c = builder.apply(n);
             i.put(c);
+            nar.memory.metrics().conceptsCreated.inc();
         }
+        if (index != null)
+            index.put(c);
         return c;
     }
 
+    public DiscriminationTree<Concept> getIndex() {
+        return index;
+    }
+
+    public void setIndex(DiscriminationTree<Concept> index) {
+        this.index = index;
+    }
+
     @Override
     public final Concept apply(Term t) {
         return builder.apply(t);
@@ -159,6 +174,9 @@ public class ConceptActivator extends BagActivator<Term, Concept> implements Con
     @Override
     public final void overflow(Concept c) {
         //getMemory().logic.CONCEPT_FORGET.hit();
+        nar.memory.metrics().conceptsEvicted.inc();
+        if (index != null)
+            index.remove(c);
         off(c);
     }
 
@@ -1,7 +1,9 @@
 package nars.concept.util;
 
+import nars.budget.Budget;
 import nars.concept.Concept;
 import nars.term.Term;
+import nars.util.io.BinaryCodec;
 import org.infinispan.commons.marshall.Externalizer;
 
 import java.io.IOException;
@@ -22,7 +24,9 @@ public class ConceptExternalizer implements Externalizer<Concept> {
     @Override
     public void writeObject(ObjectOutput output, Concept c) throws IOException {
 
-        output.writeObject(c.getTerm());
+        byte[] term = BinaryCodec.encode(c.getTerm());
+        output.writeInt(term.length);
+        output.write(term);
 
         c.getTermLinks().writeValues(output);
         c.getTaskLinks().writeValues(output);
@@ -36,13 +40,23 @@ public class ConceptExternalizer implements Externalizer<Concept> {
         c.getQuests().writeValues(output);
         c.getQuestions().writeValues(output);
 
+        Budget b = c.getBudget();
+        output.writeFloat(b.getPriority());
+        output.writeFloat(b.getDurability());
+        output.writeFloat(b.getQuality());
+        output.writeLong(b.getLastForgetTime());
 
     }
 
     @Override
     public Concept readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+        byte[] term = new byte[input.readInt()];
+        input.readFully(term);
+        return readObject(input, BinaryCodec.decodeTerm(term));
+    }
 
-        Term term = (Term) input.readObject();
+    /** reads the remainder of a concept whose term has already been read */
+    public Concept readObject(ObjectInput input, Term term) throws IOException, ClassNotFoundException {
 
         Concept c = builder.apply(term);
 
@@ -59,6 +73,11 @@ public class ConceptExternalizer implements Externalizer<Concept> {
         c.getQuests().readValues(input);
         c.getQuestions().readValues(input);
 
+        Budget b = c.getBudget();
+        b.setPriority(input.readFloat());
+        b.setDurability(input.readFloat());
+        b.setQuality(input.readFloat());
+        b.setLastForgetTime(input.readLong());
 
         return c;
     }
@@ -5,12 +5,14 @@ import javolution.util.function.Equality;
 import nars.Memory;
 import nars.budget.Budget;
 import nars.task.Task;
+import nars.util.io.BinaryCodec;
 import org.apache.commons.math3.analysis.interpolation.BivariateGridInterpolator;
 import org.apache.commons.math3.analysis.interpolation.UnivariateInterpolator;
 
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -87,17 +89,17 @@ public interface TaskTable extends Iterable<Task> {
             e.printStackTrace();
             return;
         }
+        //the tasks share one atom dictionary
+        BinaryCodec.Encoder e = new BinaryCodec.Encoder();
         int written[] = new int[] { 0 }; //HACK to prevent writing more than the specified
         forEach(t -> {
             if (written[0] < s) {
-                try {
-                    output.writeObject(t);
-                    written[0] = written[0] + 1;
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+                e.task(t);
+                written[0] = written[0] + 1;
             }
         });
+        output.writeInt(e.length());
+        e.writeTo(output);
     }
 
     default public <T> void readValues(ObjectInput input) throws IOException {
@@ -107,9 +109,12 @@ public interface TaskTable extends Iterable<Task> {
             int num = input.readInt();
             int cap = input.readInt();
             setCapacity(cap);
+
+            byte[] b = new byte[input.readInt()];
+            input.readFully(b);
+            BinaryCodec.Decoder d = new BinaryCodec.Decoder(ByteBuffer.wrap(b));
             for (int i = 0; i < num; i++) {
-                Task t = (Task) input.readObject();
-                add(t);
+                add(d.task());
             }
         } catch (Exception e) {
             System.err.println(e);
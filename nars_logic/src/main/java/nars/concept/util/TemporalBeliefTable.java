@@ -0,0 +1,351 @@
+package nars.concept.util;
+
+import com.google.common.collect.Iterators;
+import com.gs.collections.api.block.procedure.Procedure2;
+import javolution.util.function.Equality;
+import nars.Global;
+import nars.Memory;
+import nars.Premise;
+import nars.budget.Budget;
+import nars.concept.Concept;
+import nars.nal.nal7.Tense;
+import nars.task.Task;
+import nars.term.TermMetadata;
+import nars.truth.Truth;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static nars.nal.nal1.LocalRules.getRevision;
+import static nars.nal.nal1.LocalRules.revisible;
+
+/**
+ * Belief table which keeps eternal beliefs in a ranked list and indexes
+ * temporal beliefs by occurrence time, so that selecting the belief for a
+ * query, or the candidate for revising an input, only projects the temporal
+ * beliefs nearest the target time rather than every belief.
+ * <p>
+ * This is a lossy approximation of ranking every belief, as
+ * ArrayListBeliefTable does: only the NEIGHBORS temporal beliefs nearest on
+ * either side of the target are ranked.  Projection weakens a belief with its
+ * distance from the target, so when the temporal beliefs have similar
+ * confidence and originality the result is the same; but a distant belief
+ * which is much more confident than the nearer ones, and would rank above
+ * them, is not found.
+ * <p>
+ * When the temporal beliefs exceed their capacity, the one furthest from the
+ * present is removed (the lowest confidence, at the same occurrence time),
+ * with a memory removal event, even if it is the belief being added.
+ * <p>
+ * Iterates the eternal beliefs in rank order, then the temporal beliefs from
+ * the latest to the earliest.
+ */
+public class TemporalBeliefTable implements BeliefTable {
+
+    /** temporal beliefs examined on each side of a target time */
+    public static final int NEIGHBORS = 4;
+
+    final Memory memory;
+
+    final ArrayListBeliefTable eternal;
+
+    final TreeMap<Long, List<Task>> temporal = new TreeMap<>();
+    private int temporalSize = 0;
+    private int temporalCapacity;
+
+    public TemporalBeliefTable(Memory mem, int eternalCapacity, int temporalCapacity) {
+        this.memory = mem;
+        this.eternal = new ArrayListBeliefTable(mem, eternalCapacity);
+        this.temporalCapacity = temporalCapacity;
+    }
+
+    public int getEternalCapacity() {
+        return eternal.getCapacity();
+    }
+
+    public int getTemporalCapacity() {
+        return temporalCapacity;
+    }
+
+    @Override
+    public int getCapacity() {
+        return eternal.getCapacity() + temporalCapacity;
+    }
+
+    /** divides the capacity between eternal and temporal beliefs in the current proportion */
+    @Override
+    public void setCapacity(int newCapacity) {
+        int e = eternal.getCapacity(), total = e + temporalCapacity;
+        int ne = (total == 0) ? newCapacity / 2 : Math.round(newCapacity * (e / (float) total));
+        if (ne == 0 && newCapacity > 1 && e > 0) ne = 1;
+
+        eternal.setCapacity(ne);
+        temporalCapacity = newCapacity - ne;
+        while (temporalSize > temporalCapacity)
+            removeFurthest(memory, memory.time());
+    }
+
+    @Override
+    public int size() {
+        return eternal.size() + temporalSize;
+    }
+
+    public int temporalSize() {
+        return temporalSize;
+    }
+
+    @Override
+    public void clear() {
+        eternal.clear();
+        temporal.clear();
+        temporalSize = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        if (temporalSize == 0)
+            return eternal.iterator();
+        return Iterators.concat(eternal.iterator(),
+                Iterators.concat(Iterators.transform(temporal.descendingMap().values().iterator(), List::iterator)));
+    }
+
+    @Override
+    public Task add(final Task input, BeliefTable.Ranker ranking, Concept c, Premise nal) {
+
+        final Memory memory = c.getMemory();
+
+        if (isEmpty()) {
+            add(input);
+            ArrayListBeliefTable.onChanged(c, memory);
+            return input;
+        }
+
+        boolean tableChanged = tryAdd(input, ranking, memory);
+
+        long now = memory.time();
+        Task top = top(input, now);
+
+        if (top != null && !input.isDeleted() && revisible(input, top)) {
+
+            Task revised = getRevision(input, top, nal, now);
+
+            if (revised != null && !input.equals(revised)) {
+                if (tryAdd(revised, ranking, memory))
+                    tableChanged = true;
+
+                top = revised;
+            }
+        }
+
+        if (top == null)
+            top = input;
+
+        nal.updateBelief(top);
+
+        if (tableChanged)
+            ArrayListBeliefTable.onChanged(c, memory);
+
+        return top;
+    }
+
+    @Override
+    public boolean tryAdd(Task input, Ranker r, Memory memory) {
+        if (input.isEternal()) {
+            if (eternal.isEmpty())
+                return eternal.add(input);
+            return eternal.tryAdd(input, r, memory);
+        }
+
+        List<Task> at = temporal.get(input.getOccurrenceTime());
+        if (at != null) {
+            for (int i = 0; i < at.size(); i++) {
+                Task b = at.get(i);
+                if (b == input) return false;
+                if (b.equals(input)) {
+                    memory.remove(input, "Duplicate");
+                    return false;
+                }
+            }
+        }
+
+        insert(input);
+
+        if (temporalSize > temporalCapacity)
+            return removeFurthest(memory, memory.time()) != input;
+
+        return true;
+    }
+
+    @Override
+    public boolean add(Task t) {
+        if (t.isEternal())
+            return eternal.add(t);
+        insert(t);
+        return true;
+    }
+
+    private void insert(Task t) {
+        temporal.computeIfAbsent(t.getOccurrenceTime(), k -> Global.newArrayList(1)).add(t);
+        temporalSize++;
+    }
+
+    /** removes the temporal belief furthest from 'now', and reports it removed */
+    private Task removeFurthest(Memory memory, long now) {
+        if (temporalSize == 0) return null;
+
+        Map.Entry<Long, List<Task>> first = temporal.firstEntry(), last = temporal.lastEntry();
+        Map.Entry<Long, List<Task>> furthest =
+                (Math.abs(now - first.getKey()) > Math.abs(last.getKey() - now)) ? first : last;
+
+        List<Task> l = furthest.getValue();
+        int weakest = 0;
+        for (int i = 1; i < l.size(); i++) {
+            if (l.get(i).getTruth().getConfidence() < l.get(weakest).getTruth().getConfidence())
+                weakest = i;
+        }
+
+        Task removed = l.remove(weakest);
+        if (l.isEmpty())
+            temporal.remove(furthest.getKey());
+        temporalSize--;
+
+        memory.remove(removed, "Temporal belief furthest from present");
+        return removed;
+    }
+
+    @Override
+    public Task add(Task t, Equality<Task> equality, Procedure2<Budget, Budget> duplicateMerge, Memory m) {
+        if (t.isEternal())
+            return eternal.add(t, equality, duplicateMerge, m);
+
+        List<Task> at = temporal.get(t.getOccurrenceTime());
+        if (at != null) {
+            for (Task existing : at) {
+                if (equality.areEqual(existing, t)) {
+                    if (existing != t) {
+                        duplicateMerge.value(existing.getBudget(), t.getBudget());
+                        m.remove(t, "PreExisting TaskTable Duplicate");
+                    }
+                    return existing;
+                }
+            }
+        }
+
+        insert(t);
+        if (temporalSize > temporalCapacity)
+            removeFurthest(m, m.time());
+        return t;
+    }
+
+    @Override
+    public boolean contains(Task t) {
+        if (t.isEternal())
+            return eternal.contains(t);
+
+        if (TermMetadata.hasAny(t.getTerm()))
+            return false; //special equality condition
+
+        List<Task> at = temporal.get(t.getOccurrenceTime());
+        if (at == null) return false;
+
+        Truth truth = t.getTruth();
+        long[] evidence = t.getEvidence();
+        for (Task x : at) {
+            if (x.getTruth().equals(truth) && Arrays.equals(x.getEvidence(), evidence))
+                return true;
+        }
+        return false;
+    }
+
+    /** supplies up to NEIGHBORS temporal beliefs on each side of the target time, nearest first */
+    void nearest(long target, Consumer<Task> each) {
+        int n = 0;
+        for (List<Task> l : temporal.headMap(target, true).descendingMap().values()) {
+            for (int i = 0; i < l.size(); i++)
+                each.accept(l.get(i));
+            if ((n += l.size()) >= NEIGHBORS) break;
+        }
+        n = 0;
+        for (List<Task> l : temporal.tailMap(target, false).values()) {
+            for (int i = 0; i < l.size(); i++)
+                each.accept(l.get(i));
+            if ((n += l.size()) >= NEIGHBORS) break;
+        }
+    }
+
+    /** the best ranked of the eternal beliefs and the temporal beliefs nearest the target */
+    public Task top(Ranker r, long target) {
+        final Task[] best = { null };
+        final float[] s = { Float.NEGATIVE_INFINITY };
+
+        Consumer<Task> rank = t -> {
+            float x = r.rank(t, s[0]);
+            if (x > s[0]) { //NaN excluded
+                s[0] = x;
+                best[0] = t;
+            }
+        };
+
+        eternal.forEach(rank);
+        nearest(target, rank);
+        return best[0];
+    }
+
+    @Override
+    public Task top(final Task query, final long now) {
+        if (isEmpty()) return null;
+        if (size() == 1) return top();
+
+        return top(new SolutionQualityMatchingOrderRanker(query, now),
+                query.isEternal() ? now : query.getOccurrenceTime());
+    }
+
+    @Override
+    public Task top(boolean hasQueryVar, long now, long occTime, Truth truth) {
+        if (isEmpty()) return null;
+
+        return top((t, bestToBeat) -> Tense.solutionQuality(hasQueryVar, occTime, t, truth, now),
+                Tense.isEternal(occTime) ? now : occTime);
+    }
+
+    /** the temporal belief nearest the given time */
+    public Task nearest(long when) {
+        if (temporalSize == 0) return null;
+
+        Map.Entry<Long, List<Task>> before = temporal.floorEntry(when), after = temporal.ceilingEntry(when);
+        Map.Entry<Long, List<Task>> e;
+        if (before == null) e = after;
+        else if (after == null) e = before;
+        else e = (when - before.getKey() <= after.getKey() - when) ? before : after;
+
+        return strongest(e.getValue());
+    }
+
+    static Task strongest(List<Task> l) {
+        Task s = l.get(0);
+        for (int i = 1; i < l.size(); i++) {
+            Task x = l.get(i);
+            if (x.getTruth().getConfidence() > s.getTruth().getConfidence())
+                s = x;
+        }
+        return s;
+    }
+
+    @Override
+    public Task top(boolean eternal, boolean temporal) {
+        Task e = eternal ? this.eternal.top() : null;
+        if (!temporal) return e;
+
+        long now = memory.time();
+        Task t = nearest(now);
+        if (e == null) return t;
+        if (t == null) return e;
+
+        return (t.projectionTruthQuality(now, now, false) > e.projectionTruthQuality(now, now, false)) ? t : e;
+    }
+}
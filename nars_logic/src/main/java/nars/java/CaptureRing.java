@@ -0,0 +1,78 @@
+package nars.java;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue with many producers and a single consumer.
+ * <p>
+ * Each slot has a sequence number: a producer claims the tail position by
+ * CAS once the slot's sequence equals it, stores its item, then publishes it
+ * by advancing the sequence.  The consumer takes a slot once it is
+ * published and releases it for the next round by advancing it again.
+ * offer() never blocks; it fails when the ring is full.
+ */
+final class CaptureRing<X> {
+
+    private final Object[] items;
+    private final AtomicLongArray seq;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    /** only read and written by the consumer */
+    private long head;
+
+    /** @param capacity rounded up to a power of two */
+    CaptureRing(int capacity) {
+        int c = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        items = new Object[c];
+        seq = new AtomicLongArray(c);
+        for (int i = 0; i < c; i++)
+            seq.set(i, i);
+        mask = c - 1;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+
+    /** any thread; false if full */
+    public boolean offer(final X x) {
+        final AtomicLongArray seq = this.seq;
+        long pos = tail.get();
+        while (true) {
+            int i = (int) (pos & mask);
+            long d = seq.get(i) - pos;
+            if (d == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items[i] = x;
+                    seq.lazySet(i, pos + 1);
+                    return true;
+                }
+            } else if (d < 0) {
+                return false; //the consumer has not yet taken the item of the previous round
+            }
+            pos = tail.get();
+        }
+    }
+
+    /** consumer thread only; null if empty */
+    public X poll() {
+        final long pos = head;
+        final int i = (int) (pos & mask);
+        if (seq.get(i) != pos + 1)
+            return null;
+
+        X x = (X) items[i];
+        items[i] = null;
+        seq.lazySet(i, pos + items.length);
+        head = pos + 1;
+        return x;
+    }
+
+    /** approximate when called concurrently with offer() */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
@@ -12,6 +12,7 @@ import nars.term.Variable;
 
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -249,20 +250,30 @@ public class DefaultTermizer implements Termizer {
     }
 
     public static Term termClassInPackage(Class c) {
-        return Product.make(
-            termPackage(c.getPackage()),
-            termClass(c)
-        );
+        return classInPackage.get(c);
     }
 
     public static Term termPackage(Package p) {
-        //TODO cache?
-        String[] path = p.getName().split("\\.");
-        return $.pro(path);
+        return packageTerms.computeIfAbsent(p, P -> {
+            String[] path = P.getName().split("\\.");
+            return $.pro(path);
+        });
 
         //return Atom.the(p.getName());
     }
 
+    /** terms of the classes and packages met; these never change, so are shared by all termizers */
+    static final ClassValue<Term> classInPackage = new ClassValue<Term>() {
+        @Override
+        protected Term computeValue(Class<?> c) {
+            return Product.make(
+                termPackage(c.getPackage()),
+                termClass(c)
+            );
+        }
+    };
+    static final Map<Package, Term> packageTerms = new ConcurrentHashMap();
+
     public static Term termInstanceInClassInPackage(Object o) {
         //return o.getClass().getName() + '@' + Integer.toHexString(o.hashCode());
         //return o.getClass() + "_" + System.identityHashCode(o)
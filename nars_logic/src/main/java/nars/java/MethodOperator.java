@@ -10,6 +10,7 @@ import nars.task.Task;
 import nars.term.Atom;
 import nars.term.Term;
 
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
@@ -27,6 +28,10 @@ public class MethodOperator extends TermFunction {
 
     private final Method method;
     private final Parameter[] params;
+    private final boolean isStatic;
+
+    /** (Object instance, Object[] args) -> Object */
+    private final MethodHandle invoker;
 
     private final static Object[] empty = new Object[0];
     private final AtomicBoolean enable;
@@ -42,6 +47,8 @@ public class MethodOperator extends TermFunction {
         this.context = context;
         this.method = m;
         this.params = method.getParameters();
+        this.isStatic = Modifier.isStatic(m.getModifiers());
+        this.invoker = NALObjects.invoker(m);
         this.enable = enable;
     }
 
@@ -75,9 +82,9 @@ public class MethodOperator extends TermFunction {
         if (!enable.get())
             return null;
 
-        int pc = method.getParameterCount();
+        int pc = params.length;
         final int requires, paramOffset;
-        if (Modifier.isStatic(method.getModifiers())) {
+        if (isStatic) {
             requires = 1;
             paramOffset = 0;
         }
@@ -136,7 +143,7 @@ public class MethodOperator extends TermFunction {
                 result = ((NALObjects.InvocationResult) ll).value;
             }
             else {
-                result = context.invokeVolition(currentTask, method, instance, args);
+                result = context.invokeVolition(currentTask, invoker, instance, args);
             }
 
             if (feedback)
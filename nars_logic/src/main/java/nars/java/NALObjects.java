@@ -20,14 +20,19 @@ import nars.term.Compound;
 import nars.term.Term;
 import nars.truth.Stamp;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -36,6 +41,15 @@ import java.util.stream.Stream;
  * stored, input to one or more reasoners, etc..
  * <p>
  *
+ * An intercepted call is only recorded, lock-free, in a bounded ring;
+ * the reasoner thread drains the ring at the start of each frame, and only
+ * then terms the invocation and inputs it.  Calls are sampled and rate
+ * limited before they are recorded, and are dropped when the ring is full,
+ * so a wrapped object never waits on the reasoner.  The input goal occurs
+ * at the time of the call.  The argument array is copied when recorded, but
+ * arguments and results are termed when input, so the state of mutable ones
+ * is seen as it is then.
+ *
  * TODO option to include stack traces in conjunction with invocation
  *
  */
@@ -65,6 +79,25 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
 
     private final AtomicBoolean goalInvoke = new AtomicBoolean(true);
 
+    /** invocations captured but not yet input */
+    private final CaptureRing<Invocation> captured;
+
+    /** fraction of the invocations captured */
+    private volatile float captureRate = 1f;
+    /** max invocations captured per second */
+    private volatile int captureLimit = Integer.MAX_VALUE;
+    /** max invocations input per frame */
+    private volatile int inputPerFrame = Integer.MAX_VALUE;
+
+    private volatile long limitWindow = System.nanoTime();
+    private final AtomicInteger limitCount = new AtomicInteger();
+
+    private final LongAdder numCaptured = new LongAdder(), numDropped = new LongAdder();
+
+    /** forwarders of the proxy classes, adapted by invoker() */
+    static final Map<Method, MethodHandle> forwarders = new ConcurrentHashMap();
+    static final Map<Method, Operator> operators = new ConcurrentHashMap();
+
     /** for externally-puppeted method invocation goals */
     private float invocationGoalFreq = 1f;
     private float invocationGoalConf = 0.9f;
@@ -80,7 +113,14 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
 
 
     public NALObjects(NAR n) {
+        this(n, 1024);
+    }
+
+    /** @param capacity max invocations captured and not yet input */
+    public NALObjects(NAR n, int capacity) {
         this.nar = n;
+        this.captured = new CaptureRing<>(capacity);
+        n.onEachFrame(N -> input());
     }
 
     public static <N extends NAR> N wrap(N n) throws Exception {
@@ -122,12 +162,37 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
 
     }
 
-    final AtomicBoolean lock = new AtomicBoolean(false);
+    /** per-thread state of the calls through the proxies */
+    static final class Caller {
+        /** non-null if the method is being invoked by NARS,
+         * in which case it will reference the task that invoked
+         * feedback will be handled by the responsible MethodOperator's execution */
+        Task volition;
+
+        /** terming captured invocations, which may call wrapped methods */
+        boolean inputting;
+    }
 
-    /** non-null if the method is being invoked by NARS,
-     * in which case it will reference the task that invoked
-     * feedback will be handled by the responsible MethodOperator's execution */
-    final AtomicReference<Task> volition = new AtomicReference();
+    final ThreadLocal<Caller> caller = ThreadLocal.withInitial(Caller::new);
+
+    /** a call captured by a proxy */
+    static final class Invocation {
+        final Object object;
+        final Method method;
+        /** a copy; the arguments themselves are referenced, not copied */
+        final Object[] args;
+        final Object result;
+        /** reasoner time of the call, read on the calling thread */
+        final long time;
+
+        Invocation(Object object, Method method, Object[] args, Object result, long time) {
+            this.object = object;
+            this.method = method;
+            this.args = (args == null || args.length == 0) ? args : args.clone();
+            this.result = result;
+            this.time = time;
+        }
+    }
 
 
 //    /** when a proxy wrapped instance method is called, this can
@@ -153,26 +218,66 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
         }
     }
 
-    //TODO run in separate execution context to avoid synchronized
-    public synchronized Object invoked(Object object, Method method, Object[] args, Object result) {
+    /** called by the proxy after each call; records it for input by the reasoner */
+    public Object invoked(Object object, Method method, Object[] args, Object result) {
 
         if (methodExclusions.contains(method.getName()))
             return result;
 
-        if (!lock.compareAndSet(false,true)) {
+        Caller c = caller.get();
+        if (c.volition != null || c.inputting)
             return result;
-        }
 
-        final Operator op = getMethodOperator(method);
+        if (capture())
+            (captured.offer(new Invocation(object, method, args, result, nar.time())) ? numCaptured : numDropped).increment();
+
+        return result;
+    }
 
+    /** whether to capture the current invocation, by sampling and rate limit */
+    private boolean capture() {
+        float rate = captureRate;
+        if (rate < 1f && ThreadLocalRandom.current().nextFloat() >= rate)
+            return false;
 
-        Product invocationArgs = getMethodInvocationTerms(method, object, args);
+        int limit = captureLimit;
+        if (limit != Integer.MAX_VALUE) {
+            long now = System.nanoTime();
+            //the window may be restarted twice by racing threads, admitting a few more
+            if (now - limitWindow >= 1_000_000_000L) {
+                limitWindow = now;
+                limitCount.set(0);
+            }
+            if (limitCount.incrementAndGet() > limit) {
+                numDropped.increment();
+                return false;
+            }
+        }
+        return true;
+    }
 
+    /** inputs the captured invocations, on the reasoner thread */
+    protected void input() {
+        Caller c = caller.get();
+        c.inputting = true;
+        try {
+            Invocation i;
+            for (int n = inputPerFrame; n > 0 && (i = captured.poll()) != null; n--)
+                input(i);
+        } finally {
+            c.inputting = false;
+        }
+    }
 
+    protected void input(Invocation i) {
+
+        final Operator op = getMethodOperator(i.method);
+
+        Product invocationArgs = getMethodInvocationTerms(i.method, i.object, i.args);
 
         Term effect;
-        if (result!=null) {
-            effect = term(result);
+        if (i.result!=null) {
+            effect = term(i.result);
         }
         else {
             effect = VOID;
@@ -181,17 +286,13 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
         //TODO re-use static copy for 'VOID' instances
         InvocationResult ir = new InvocationResult(effect);
 
-        Task volitionTask = volition.get();
-
-        if (volitionTask == null) {
-
-            /** pretend as if it were a goal of its own volition, although it was invoked externally
-             *  Master of puppets, I'm pulling your strings */
-            nar.input( $.goal( $.oper(op, invocationArgs),
-                    invocationGoalFreq, invocationGoalConf).
-                    present(nar.memory).
-                    because(ir)
-            );
+        /** pretend as if it were a goal of its own volition, although it was invoked externally
+         *  Master of puppets, I'm pulling your strings */
+        nar.input( $.goal( $.oper(op, invocationArgs),
+                invocationGoalFreq, invocationGoalConf).
+                time(nar.time(), i.time).
+                because(ir)
+        );
 
 //            nar.input(
 //                new FluentTask(Operation.result(op, invocationArgs, effect)).
@@ -201,16 +302,36 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
 //                        budget(g.getBudget()).
 //                        because("External Invocation")
 //                    );
-        }
-        else {
-            //feedback will be returned via operation execution
-            //System.out.println("VOLITION " + volitionTask);
-        }
+    }
 
+    /** fraction of the invocations to capture, chosen at random */
+    public void setCaptureRate(float r) {
+        this.captureRate = r;
+    }
 
-        lock.set(false);
+    /** max invocations captured per second; the rest are dropped */
+    public void setCaptureLimit(int perSecond) {
+        this.captureLimit = perSecond;
+    }
 
-        return result;
+    /** max captured invocations input per frame; the rest wait for later frames */
+    public void setInputPerFrame(int n) {
+        this.inputPerFrame = n;
+    }
+
+    /** number of invocations captured for input */
+    public long captured() {
+        return numCaptured.sum();
+    }
+
+    /** number of invocations dropped by the rate limit or a full ring */
+    public long dropped() {
+        return numDropped.sum();
+    }
+
+    /** number of captured invocations not yet input */
+    public int pending() {
+        return captured.size();
     }
 
     private final Product getMethodInvocationTerms(Method method, Object instance, Object[] args) {
@@ -229,11 +350,16 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
     }
 
     private Term[] terms(Object[] args) {
-        //TODO use direct array creation, not Stream
-        return Stream.of(args).map(this::term).toArray(Term[]::new);
+        Term[] x = new Term[args.length];
+        for (int i = 0; i < args.length; i++)
+            x[i] = term(args[i]);
+        return x;
     }
 
     public static Operator getMethodOperator(Method overridden) {
+        Operator o = operators.get(overridden);
+        if (o != null) return o;
+
         //dereference class to origin, not using a wrapped class
         Class c = overridden.getDeclaringClass();
 
@@ -241,9 +367,27 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
         if (c.getName().contains("_$$_")) ////javassist wrapper class
             c = c.getSuperclass();
 
-        return Operator.the(
+        o = Operator.the(
             c.getSimpleName() + "_" + overridden.getName()
         );
+        operators.put(overridden, o);
+        return o;
+    }
+
+    /** adapts a method to a handle of type (Object instance, Object[] args) -> Object,
+     *  with the instance ignored for static methods and null returned for void */
+    public static MethodHandle invoker(Method m) {
+        try {
+            if (!m.isAccessible())
+                m.setAccessible(true); //ex: public methods of a class which is not
+            MethodHandle h = MethodHandles.lookup().unreflect(m);
+            if (Modifier.isStatic(m.getModifiers()))
+                h = MethodHandles.dropArguments(h, 0, Object.class);
+            return h.asSpreader(Object[].class, m.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
     }
 
 //    //TODO use a generic Consumer<Task> for recipient/recipients of these
@@ -280,19 +424,21 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
 
     }
 
-    public synchronized Object invokeVolition(Task currentTask, Method method, Object instance, Object[] args) {
+    public Object invokeVolition(Task currentTask, MethodHandle invoker, Object instance, Object[] args) {
 
-        Object result = null;
+        Object result;
 
-        volition.set(currentTask);
+        Caller c = caller.get();
+        Task prev = c.volition;
+        c.volition = currentTask;
 
         try {
-            result = method.invoke(instance, args);
-        } catch (Exception e) {
+            result = (Object) invoker.invokeExact(instance, args);
+        } catch (Throwable e) {
             result = e;
         }
 
-        volition.set(null);
+        c.volition = prev;
 
         return result;
     }
@@ -314,7 +460,10 @@ public class NALObjects extends DefaultTermizer implements Termizer, MethodHandl
 //    }
 
     @Override public final Object invoke(Object obj, Method wrapped, Method wrapper, Object[] args) throws Throwable {
-        Object result = wrapper.invoke(obj, args);
+        MethodHandle w = forwarders.get(wrapper);
+        if (w == null)
+            w = forwarders.computeIfAbsent(wrapper, NALObjects::invoker);
+        Object result = (Object) w.invokeExact(obj, args);
         return invoked( obj, wrapped, args, result);
     }
 
@@ -0,0 +1,230 @@
+package nars.nal;
+
+import nars.Global;
+import nars.nal.meta.PreCondition;
+import nars.nal.meta.RuleTrie;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Deriver which compiles the rule trie to bytecode: each trie branch becomes
+ * a method which tests its preconditions in sequence and then calls the
+ * methods of its children.
+ *
+ * Each precondition is invoked through its own call site typed by its concrete
+ * class, rather than the single megamorphic PreCondition.test site of
+ * TrieDeriver, so the JIT can inline the checks.  Nothing is saved for
+ * single-child branches; at a fan-out the generated code marks a choice
+ * point and backtracks to it after each child, as TrieDeriver does, so the
+ * match state is never copied.
+ */
+public class CompiledDeriver extends RuleTrie {
+
+    static final AtomicInteger serial = new AtomicInteger();
+
+    private final Program program;
+
+    public CompiledDeriver() {
+        this(Deriver.standard);
+    }
+
+    public CompiledDeriver(DerivationRules rules) {
+        super(rules);
+        this.program = compile(root);
+    }
+
+    @Override
+    public final void forEachRule(RuleMatch match) {
+        program.run(match);
+    }
+
+
+    /** superclass of the generated rule program */
+    public abstract static class Program {
+
+        /** the preconditions, indexed by their position in the generated code */
+        protected final PreCondition[] c;
+
+        protected Program(PreCondition[] c) {
+            this.c = c;
+        }
+
+        public abstract void run(RuleMatch m);
+    }
+
+
+    static final String PROGRAM = Type.getInternalName(Program.class);
+    static final String PRECONDITION = Type.getInternalName(PreCondition.class);
+    static final String RULEMATCH = Type.getDescriptor(RuleMatch.class);
+    static final String RULEMATCH_CLASS = Type.getInternalName(RuleMatch.class);
+    static final String BRANCH = '(' + RULEMATCH + ")V";
+
+    /** generates and instantiates the program for a trie */
+    static Program compile(RuleBranch[] root) {
+
+        String name = PROGRAM + serial.incrementAndGet();
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String a, String b) {
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, name, null, PROGRAM, null);
+
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "([L" + PRECONDITION + ";)V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitVarInsn(ALOAD, 1);
+        init.visitMethodInsn(INVOKESPECIAL, PROGRAM, "<init>", "([L" + PRECONDITION + ";)V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        List<PreCondition> conds = Global.newArrayList();
+        AtomicInteger branches = new AtomicInteger();
+
+        int[] roots = new int[root.length];
+        for (int i = 0; i < roots.length; i++)
+            roots[i] = branch(cw, name, root[i], conds, branches);
+
+        MethodVisitor run = cw.visitMethod(ACC_PUBLIC, "run", BRANCH, null, null);
+        run.visitCode();
+        invokeBranches(run, name, roots);
+        run.visitInsn(RETURN);
+        run.visitMaxs(0, 0);
+        run.visitEnd();
+
+        cw.visitEnd();
+
+        byte[] code = cw.toByteArray();
+
+        try {
+            Class<?> c = new ProgramLoader(CompiledDeriver.class.getClassLoader())
+                    .define(name.replace('/', '.'), code);
+            return (Program) c.getConstructor(PreCondition[].class)
+                    .newInstance((Object) conds.toArray(new PreCondition[conds.size()]));
+        } catch (Exception e) {
+            throw new RuntimeException("unable to compile rule trie", e);
+        }
+    }
+
+    /** generates the method for a branch (and recursively its children) and returns its id */
+    private static int branch(ClassWriter cw, String owner, RuleBranch r, List<PreCondition> conds, AtomicInteger branches) {
+
+        int[] children;
+        if (r.children == null) {
+            children = null;
+        } else {
+            children = new int[r.children.length];
+            for (int i = 0; i < children.length; i++)
+                children[i] = branch(cw, owner, r.children[i], conds, branches);
+        }
+
+        int id = branches.getAndIncrement();
+
+        MethodVisitor m = cw.visitMethod(ACC_PRIVATE, "b" + id, BRANCH, null, null);
+        m.visitCode();
+
+        Label fail = new Label();
+
+        for (PreCondition p : r.precondition) {
+            int index = conds.size();
+            conds.add(p);
+
+            m.visitVarInsn(ALOAD, 0);
+            m.visitFieldInsn(GETFIELD, PROGRAM, "c", "[L" + PRECONDITION + ';');
+            m.visitLdcInsn(index);
+            m.visitInsn(AALOAD);
+
+            Class<?> pc = p.getClass();
+            if (accessible(pc)) {
+                String pcn = Type.getInternalName(pc);
+                m.visitTypeInsn(CHECKCAST, pcn);
+                m.visitVarInsn(ALOAD, 1);
+                m.visitMethodInsn(INVOKEVIRTUAL, pcn, "test", '(' + RULEMATCH + ")Z", false);
+            } else {
+                m.visitVarInsn(ALOAD, 1);
+                m.visitMethodInsn(INVOKEINTERFACE, "java/util/function/Predicate", "test", "(Ljava/lang/Object;)Z", true);
+            }
+            m.visitJumpInsn(IFEQ, fail);
+        }
+
+        if (children != null)
+            invokeBranches(m, owner, children);
+
+        m.visitLabel(fail);
+        m.visitInsn(RETURN);
+        m.visitMaxs(0, 0);
+        m.visitEnd();
+
+        return id;
+    }
+
+    /** invokes sibling branches, each starting from the same match state */
+    private static void invokeBranches(MethodVisitor m, String owner, int[] branches) {
+        if (branches.length == 1) {
+            invokeBranch(m, owner, branches[0]);
+            return;
+        }
+
+        //int choice = m.choice()
+        m.visitVarInsn(ALOAD, 1);
+        m.visitMethodInsn(INVOKEVIRTUAL, RULEMATCH_CLASS, "choice", "()I", false);
+        m.visitVarInsn(ISTORE, 2);
+
+        for (int b : branches) {
+            invokeBranch(m, owner, b);
+
+            //m.backtrack(choice)
+            m.visitVarInsn(ALOAD, 1);
+            m.visitVarInsn(ILOAD, 2);
+            m.visitMethodInsn(INVOKEVIRTUAL, RULEMATCH_CLASS, "backtrack", "(I)V", false);
+        }
+
+        //m.release(choice)
+        m.visitVarInsn(ALOAD, 1);
+        m.visitVarInsn(ILOAD, 2);
+        m.visitMethodInsn(INVOKEVIRTUAL, RULEMATCH_CLASS, "release", "(I)V", false);
+    }
+
+    private static void invokeBranch(MethodVisitor m, String owner, int id) {
+        m.visitVarInsn(ALOAD, 0);
+        m.visitVarInsn(ALOAD, 1);
+        m.visitMethodInsn(INVOKESPECIAL, owner, "b" + id, BRANCH, false);
+    }
+
+    /** whether generated code can invoke test(RuleMatch) on the precondition's own class */
+    static boolean accessible(Class<?> c) {
+        for (Class<?> x = c; x != null; x = x.getEnclosingClass()) {
+            if (!Modifier.isPublic(x.getModifiers()))
+                return false;
+        }
+        try {
+            Method t = c.getMethod("test", RuleMatch.class);
+            return Modifier.isPublic(t.getDeclaringClass().getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static final class ProgramLoader extends ClassLoader {
+
+        ProgramLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] code) {
+            return defineClass(name, code, 0, code.length);
+        }
+    }
+}
@@ -12,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import com.google.common.io.Resources;
 import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
 
 import java.nio.file.Paths;
 import java.util.*;
@@ -37,7 +38,17 @@ public class DerivationRules extends FastList<TaskRule> {
 
     public DerivationRules() throws IOException, URISyntaxException {
        // this(Paths.get(Deriver.class.getResource("default.meta.nal").toURI()));
-        this(Resources.toString(Deriver.class.getResource("default.meta.nal"), Charsets.UTF_8).split("\n"));
+        this(standardSource().split("\n"));
+    }
+
+    /** text of the default rule file */
+    public static String standardSource() throws IOException {
+        return Resources.toString(Deriver.class.getResource("default.meta.nal"), Charsets.UTF_8);
+    }
+
+    /** identifies a version of rule source text, so that anything derived from it can be invalidated when it changes */
+    public static String checksum(String source) {
+        return Hashing.sha1().hashString(source, Charsets.UTF_8).toString();
     }
 
     public DerivationRules(Path path) throws IOException {
@@ -1,12 +1,21 @@
 package nars.nal;
 
+import nars.Global;
 import nars.Memory;
 import nars.Premise;
+import nars.nal.meta.PostCondition;
+import nars.nal.meta.RuleTrie;
 import nars.process.ConceptProcess;
 import nars.task.Task;
 import nars.util.db.TemporaryCache;
 import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.function.Consumer;
 
 /**
@@ -27,40 +36,98 @@ abstract public class Deriver  {
 
 
     static {
-        loadRules();
-        //standardDeriver = new SimpleDeriver(SimpleDeriver.standard);
-        standardDeriver = new TrieDeriver(Deriver.standard);
+        if (Global.DERIVATION_RULE_CACHE) {
+            CachedRules c = loadCachedRules();
+            Deriver.standard = c.rules;
+            standardDeriver = new TrieDeriver(c.rules, c.root);
+        } else {
+            loadRules();
+            //standardDeriver = new SimpleDeriver(SimpleDeriver.standard);
+            standardDeriver = new TrieDeriver(Deriver.standard);
+        }
     }
 
     public Deriver(DerivationRules rules) {
         this.rules = rules;
     }
 
-    //not ready yet
-    static void loadCachedRules() {
-        final String key = "derivation_rules:standard";
-        Deriver.standard = TemporaryCache.computeIfAbsent(
-                key, new GenericJBossMarshaller(),
+    /** format of the cached rules; increment when the classes in the cached
+     *  rules or their compilation change in a way that keeps them readable */
+    static final int RULE_CACHE_VERSION = 2;
+
+    /** the parsed and permuted rule set together with its compiled trie,
+     *  tagged with the checksum of the rule source and code it was built from */
+    static final class CachedRules implements Serializable {
+
+        final String checksum;
+        final DerivationRules rules;
+        final RuleTrie.RuleBranch[] root;
+
+        CachedRules(String checksum, DerivationRules rules, RuleTrie.RuleBranch[] root) {
+            this.checksum = checksum;
+            this.rules = rules;
+            this.root = root;
+        }
+    }
+
+    /** loads the standard rules from the cache, or builds and caches
+     *  them if absent, unreadable, or built from a different rule source or code */
+    static CachedRules loadCachedRules() {
+        final String source;
+        try {
+            source = DerivationRules.standardSource();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+            return null;
+        }
+
+        final String checksum = cacheChecksum(source);
+
+        return TemporaryCache.computeIfAbsent(
+                "derivation_rules_" + checksum, new GenericJBossMarshaller(),
                 () -> {
-                    try {
-//                        standard = new DerivationRules();
-
-                        return new DerivationRules();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        System.exit(1);
-                        return null;
-                    }
-                }
-//                //TODO compare hash/checksum of the input file
-//                //to what is stored in cached file
-//                (x) -> {
-//                    //this disables entirely and just creates a new one each time:
-//                    return  ...
-//                }
+                    DerivationRules r = new DerivationRules(source.split("\n"));
+                    return new CachedRules(checksum, r, new TrieDeriver(r).root);
+                },
+                (x) -> checksum.equals(x.checksum) && x.rules != null && x.root != null
         );
     }
 
+    /** identifies the rule source together with the cache format and the
+     *  code which compiles the rules */
+    static String cacheChecksum(String source) {
+        return DerivationRules.checksum(source + '\n' + RULE_CACHE_VERSION + '\n' + codeVersion());
+    }
+
+    /** classes which parse, permute and compile the rules into the cached trie */
+    static final Class[] RULE_COMPILER = {
+            DerivationRules.class, TaskRule.class, PostCondition.class,
+            RuleTrie.class, TrieDeriver.class
+    };
+
+    /** size and modification time of the jar holding this class, or, when
+     *  run from a class directory, the newest modification time of the
+     *  RULE_COMPILER class files; empty if unknown.  changes to the other
+     *  classes of cached rules are covered by RULE_CACHE_VERSION, or fail
+     *  to deserialize and rebuild the cache. */
+    static String codeVersion() {
+        try {
+            Path p = Paths.get(Deriver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            if (!Files.isDirectory(p))
+                return Files.size(p) + ":" + Files.getLastModifiedTime(p).toMillis();
+
+            long newest = 0;
+            for (Class c : RULE_COMPILER) {
+                URL u = c.getResource(c.getSimpleName() + ".class");
+                newest = Math.max(newest, Files.getLastModifiedTime(Paths.get(u.toURI())).toMillis());
+            }
+            return Long.toString(newest);
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
     static void loadRules() {
         try {
             Deriver.standard = new DerivationRules();
@@ -78,7 +145,7 @@ abstract public class Deriver  {
      *  the process once it begins.
      */
     public final void run(Premise premise, Consumer<Task> t) {
-        if(premise instanceof ConceptProcess) {
+        if(premise instanceof ConceptProcess && !((ConceptProcess) premise).isDeferred()) {
             premise.memory().eventConceptProcess.emit((ConceptProcess) premise);
         }
 
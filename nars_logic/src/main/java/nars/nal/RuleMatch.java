@@ -9,7 +9,9 @@ import nars.nal.meta.*;
 import nars.task.PreTask;
 import nars.task.Task;
 import nars.term.Term;
+import nars.term.transform.Bindings;
 import nars.term.transform.FindSubst;
+import nars.term.transform.Frame;
 import nars.term.transform.Subst;
 import nars.term.transform.Substitution;
 import nars.truth.Stamp;
@@ -17,7 +19,6 @@ import nars.truth.Truth;
 import nars.util.data.random.XorShift1024StarRandom;
 
 import java.util.Arrays;
-import java.util.Map;
 import java.util.Random;
 import java.util.function.Consumer;
 
@@ -32,10 +33,15 @@ public class RuleMatch {
      * this pool is local to this deriver
      */
     public static final ThreadLocal<RuleMatch> matchers = ThreadLocal.withInitial(() -> {
-        //TODO use the memory's RNG for complete deterministic reproducibility
         return new RuleMatch(new XorShift1024StarRandom(1));
     });
 
+    /**
+     * reseeded from each premise (see start), so a premise matches the same
+     * on whichever thread derives it
+     */
+    private final Random random;
+
 
     /**
      * Global Context
@@ -110,8 +116,8 @@ public class RuleMatch {
          * NOTE: if you use this in a Precondition, make sure to clear() it before it exits
          * ie. return it in the condition you took it, empty
          */
-        public final Map<Term, Term> left = Global.newHashMap(0);
-        public final Map<Term, Term> right = Global.newHashMap(0);
+        public final Bindings left = new Bindings();
+        public final Bindings right = new Bindings();
 
         /**
          * 'outp' used by substitute to hold the current proposed / candidate
@@ -121,18 +127,17 @@ public class RuleMatch {
          * <p>
          * temporary, re-cycled immediately
          */
-        public final Map<Term, Term> outp = Global.newHashMap();
+        public final Bindings outp = new Bindings();
 
         public void clear() {
-            left.clear(); right.clear();
-            outp.clear(); // necessary?
+            left.reset(); right.reset();
+            outp.reset(); // necessary?
         }
 
         public void copyTo(SecondarySubs m) {
-            m.clear();
-            m.left.putAll(left);
-            m.right.putAll(right);
-            m.outp.putAll(outp); // necessary?
+            m.left.copyFrom(left);
+            m.right.copyFrom(right);
+            m.outp.copyFrom(outp); // necessary?
         }
 
         @Override
@@ -163,10 +168,8 @@ public class RuleMatch {
 
     }
     public RuleMatch(Random r) {
-        this.subst = new FindSubst(Op.VAR_PATTERN,
-                Global.newHashMap(0),
-                Global.newHashMap(0),
-                r);
+        this.random = r;
+        this.subst = new FindSubst(Op.VAR_PATTERN, r);
         this.sub2 = new SecondarySubs();
         this.post = new PostMods();
     }
@@ -180,6 +183,9 @@ public class RuleMatch {
         this.premise = p;
         this.receiver = receiver;
 
+        if (random != null)
+            random.setSeed(seed(p));
+
         //scale unification power according to premise's mean priority linearly between min and max
         int unificationPower =
                 (int) ((p.getMeanPriority() * (Global.UNIFICATION_POWER - Global.UNIFICATION_POWERmin))
@@ -191,6 +197,13 @@ public class RuleMatch {
     }
 
 
+    /** the premise's task and termlink term, which determine its matching */
+    static long seed(Premise p) {
+        long h = p.getTask().hashCode();
+        h = h * 31 + p.getTermLink().getTerm().hashCode();
+        return h;
+    }
+
     public static final class Stage extends PreCondition {
         public final MatchStage s;
 
@@ -244,6 +257,53 @@ public class RuleMatch {
     }
 
 
+    /** a state of this match to which it can backtrack */
+    static final class ChoicePoint {
+        final Frame.ChoicePoint subst = new Frame.ChoicePoint();
+        int outp;
+        final PostMods post = new PostMods();
+        MatchStage stage;
+    }
+
+    private ChoicePoint[] choices = new ChoicePoint[8];
+    private int numChoices;
+
+    /**
+     * saves the current state, to which backtrack() returns
+     * without copying the substitutions
+     * @return the level of the choice point, to be released by release()
+     */
+    public final int choice() {
+        int level = numChoices;
+        if (level == choices.length)
+            choices = Arrays.copyOf(choices, level * 2);
+        ChoicePoint c = choices[level];
+        if (c == null)
+            c = choices[level] = new ChoicePoint();
+
+        subst.choice(c.subst);
+        c.outp = sub2.outp.mark();
+        post.copyTo(c.post);
+        c.stage = stage;
+
+        numChoices = level + 1;
+        return level;
+    }
+
+    /** returns to the state of a choice point; sub2's left and right are expected to be empty */
+    public final void backtrack(int level) {
+        ChoicePoint c = choices[level];
+        subst.backtrack(c.subst);
+        sub2.outp.undo(c.outp);
+        c.post.copyTo(post);
+        stage = c.stage;
+    }
+
+    /** discards a choice point and those after it */
+    public final void release(int level) {
+        numChoices = level;
+    }
+
     /**
      * call at beginning to reset
      */
@@ -252,6 +312,7 @@ public class RuleMatch {
         sub2.clear();
         post.clear();
         stage = MatchStage.Pre;
+        numChoices = 0;
     }
 
     /**
@@ -267,7 +328,7 @@ public class RuleMatch {
      * for debugging
      */
     public static void removeInsufficientBudget(Premise premise, PreTask task) {
-        premise.memory().remove(task, "Insufficient Derived Budget");
+        premise.removed(task, "Insufficient Derived Budget");
     }
 
 
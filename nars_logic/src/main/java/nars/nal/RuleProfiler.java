@@ -0,0 +1,317 @@
+package nars.nal;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.MapMaker;
+import nars.Global;
+import nars.Memory;
+import nars.concept.Concept;
+import nars.nal.meta.PreCondition;
+import nars.nal.meta.RuleTrie.RuleBranch;
+import nars.nal.meta.op.MakeTasks;
+import nars.task.Task;
+import nars.util.event.On;
+import nars.util.io.JSON;
+import nars.util.meter.metric.MetricRegistry;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per rule and per precondition statistics of a TrieDeriver: how often each
+ * is reached, how often it passes, the time spent in it, and, for rules, the
+ * tasks derived and how many of those entered a belief or goal table.
+ * <p>
+ * Preconditions shared by several rules are tested once, in the trie branch
+ * common to those rules, so equal preconditions accumulate into one entry.
+ * A rule is reached when the matching enters the last branch of its trie
+ * path, which contains only conditions specific to the rule (ending with
+ * MakeTasks); it passes if it derives at least one task.  Its time is the
+ * time spent in that branch, including the input of the tasks it derives.
+ * <p>
+ * While started, the deriver runs a separate, instrumented traversal of its
+ * trie; when stopped, the deriver is unaffected.  While started, the calls,
+ * derivations and surviving derivations of each rule are also exported in
+ * the memory's MetricRegistry, labeled by rule.
+ */
+public class RuleProfiler {
+
+    public static final class Stats {
+
+        public final String name;
+
+        final LongAdder calls = new LongAdder(), passes = new LongAdder(), nanos = new LongAdder();
+        final LongAdder produced = new LongAdder(), survived = new LongAdder();
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        public long calls() {
+            return calls.sum();
+        }
+
+        public long passes() {
+            return passes.sum();
+        }
+
+        public long nanos() {
+            return nanos.sum();
+        }
+
+        public long produced() {
+            return produced.sum();
+        }
+
+        public long survived() {
+            return survived.sum();
+        }
+
+        public float passRate() {
+            long c = calls();
+            return (c == 0) ? 0 : passes() / (float) c;
+        }
+
+        void clear() {
+            calls.reset();
+            passes.reset();
+            nanos.reset();
+            produced.reset();
+            survived.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10d %6.1f%% %10.3f %8d %8d  %s",
+                    calls(), 100f * passRate(), nanos() / 1.0e6, produced(), survived(), name);
+        }
+    }
+
+    /** report orderings, each descending */
+    public enum Order {
+        TIME(Comparator.comparingLong(Stats::nanos)),
+        CALLS(Comparator.comparingLong(Stats::calls)),
+        PASS_RATE(Comparator.comparingDouble(Stats::passRate)),
+        PRODUCED(Comparator.comparingLong(Stats::produced)),
+        SURVIVED(Comparator.comparingLong(Stats::survived));
+
+        final Comparator<Stats> descending;
+
+        Order(Comparator<Stats> c) {
+            this.descending = c.reversed();
+        }
+    }
+
+    /** a trie branch with the statistics its conditions update */
+    static final class Node {
+        final PreCondition[] precondition;
+        final Stats[] conditions;
+        /** non-null in the last branch of a rule */
+        final Stats rule;
+        final Node[] children;
+
+        Node(PreCondition[] precondition, Stats[] conditions, Stats rule, Node[] children) {
+            this.precondition = precondition;
+            this.conditions = conditions;
+            this.rule = rule;
+            this.children = children;
+        }
+    }
+
+    /** forwards a rule's derivations, counting and tracking them */
+    final class Producing implements Consumer<Task> {
+        final Stats rule;
+        final Consumer<Task> target;
+        int count;
+
+        Producing(Stats rule, Consumer<Task> target) {
+            this.rule = rule;
+            this.target = target;
+        }
+
+        @Override
+        public void accept(Task t) {
+            count++;
+            rule.produced.increment();
+            derived.put(t, rule);
+            target.accept(t);
+        }
+    }
+
+    private final TrieDeriver deriver;
+
+    final Node[] root;
+
+    private final Map<TaskRule, Stats> rules = Global.newHashMap();
+    private final Map<PreCondition, Stats> conditions = Global.newHashMap();
+
+    /** derived tasks not yet seen in a table, by identity; forgotten when collected */
+    private final ConcurrentMap<Task, Stats> derived = new MapMaker().weakKeys().makeMap();
+
+    private On onChange;
+    private MetricRegistry registry;
+
+    static final String CALLS = "rule_calls_total", PRODUCED = "rule_derived_total", SURVIVED = "rule_survived_total";
+
+    public RuleProfiler(TrieDeriver deriver) {
+        this.deriver = deriver;
+        this.root = compile(deriver.root);
+    }
+
+    private Node[] compile(RuleBranch[] branches) {
+        if (branches == null)
+            return null;
+
+        Node[] n = new Node[branches.length];
+        for (int i = 0; i < n.length; i++) {
+            RuleBranch b = branches[i];
+
+            Stats[] s = new Stats[b.precondition.length];
+            Stats rule = null;
+            for (int j = 0; j < s.length; j++) {
+                PreCondition p = b.precondition[j];
+                s[j] = conditions.computeIfAbsent(p, k -> new Stats(k.toString()));
+                if (p instanceof MakeTasks) {
+                    TaskRule r = ((MakeTasks) p).getRule();
+                    rule = rules.computeIfAbsent(r, k -> new Stats(k.toString()));
+                }
+            }
+
+            n[i] = new Node(b.precondition, s, rule, compile(b.children));
+        }
+        return n;
+    }
+
+    /** profiles the deriver's derivations in a memory, until stopped */
+    public synchronized RuleProfiler start(Memory m) {
+        stop();
+        onChange = m.eventConceptChange.on(this::changed);
+
+        registry = m.metrics().registry;
+        registry.labeled(CALLS, "Premises reaching a rule's own conditions", "counter", "rule",
+                () -> counts(Stats::calls));
+        registry.labeled(PRODUCED, "Tasks derived by a rule", "counter", "rule",
+                () -> counts(Stats::produced));
+        registry.labeled(SURVIVED, "Tasks derived by a rule which entered a belief or goal table", "counter", "rule",
+                () -> counts(Stats::survived));
+
+        deriver.setProfiler(this);
+        return this;
+    }
+
+    public synchronized void stop() {
+        if (onChange != null) {
+            deriver.setProfiler(null);
+            onChange.off();
+            onChange = null;
+
+            registry.remove(CALLS);
+            registry.remove(PRODUCED);
+            registry.remove(SURVIVED);
+            registry = null;
+        }
+    }
+
+    public boolean isStarted() {
+        return onChange != null;
+    }
+
+    private void changed(Concept c) {
+        if (derived.isEmpty())
+            return;
+        c.getBeliefs().forEach(this::survived);
+        c.getGoals().forEach(this::survived);
+    }
+
+    private void survived(Task t) {
+        Stats r = derived.remove(t);
+        if (r != null)
+            r.survived.increment();
+    }
+
+    /** a statistic of each rule, by name */
+    private Map<String, Long> counts(ToLongFunction<Stats> f) {
+        Map<String, Long> m = Global.newHashMap(rules.size());
+        for (Stats s : rules.values())
+            m.merge(s.name, f.applyAsLong(s), Long::sum);
+        return m;
+    }
+
+    public Stats rule(TaskRule r) {
+        return rules.get(r);
+    }
+
+    public Stats condition(PreCondition p) {
+        return conditions.get(p);
+    }
+
+    public List<Stats> rules(Order o) {
+        return sorted(rules.values(), o);
+    }
+
+    public List<Stats> conditions(Order o) {
+        return sorted(conditions.values(), o);
+    }
+
+    private static List<Stats> sorted(Iterable<Stats> s, Order o) {
+        List<Stats> l = Global.newArrayList();
+        s.forEach(l::add);
+        l.sort(o.descending);
+        return l;
+    }
+
+    public void clear() {
+        rules.values().forEach(Stats::clear);
+        conditions.values().forEach(Stats::clear);
+        derived.clear();
+    }
+
+    /** a table of the first 'limit' rules and preconditions in an order */
+    public String report(Order o, int limit) {
+        StringBuilder sb = new StringBuilder(128 * (2 * limit + 4));
+        table(sb, "rules", rules(o), limit);
+        sb.append('\n');
+        table(sb, "preconditions", conditions(o), limit);
+        return sb.toString();
+    }
+
+    private static void table(StringBuilder sb, String title, List<Stats> l, int limit) {
+        sb.append(title).append(" (").append(l.size()).append(")\n");
+        sb.append(String.format("%10s %7s %10s %8s %8s  %s%n",
+                "calls", "pass", "ms", "produced", "survived", "name"));
+        int n = Math.min(limit, l.size());
+        for (int i = 0; i < n; i++)
+            sb.append(l.get(i)).append('\n');
+    }
+
+    /** all statistics, as {"rules":[..], "preconditions":[..]} */
+    public ObjectNode toJSON() {
+        ObjectNode j = JSON.om.createObjectNode();
+        json(j.putArray("rules"), rules(Order.TIME));
+        json(j.putArray("preconditions"), conditions(Order.TIME));
+        return j;
+    }
+
+    private static void json(ArrayNode a, List<Stats> l) {
+        for (Stats s : l) {
+            a.addObject()
+                    .put("name", s.name)
+                    .put("calls", s.calls())
+                    .put("passes", s.passes())
+                    .put("passRate", s.passRate())
+                    .put("nanos", s.nanos())
+                    .put("produced", s.produced())
+                    .put("survived", s.survived());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return JSON.pretty(toJSON());
+    }
+}
@@ -2,9 +2,9 @@ package nars.nal;
 
 import nars.nal.meta.PreCondition;
 import nars.nal.meta.RuleTrie;
-import nars.util.data.DequePool;
+import nars.task.Task;
 
-import java.util.Random;
+import java.util.function.Consumer;
 
 /**
  * separates rules according to task/belief term type but otherwise involves significant redundancy we'll eliminate in other Deriver implementations
@@ -20,16 +20,34 @@ public class TrieDeriver extends RuleTrie {
         super(rules);
     }
 
+    public TrieDeriver(DerivationRules rules, RuleBranch[] root) {
+        super(rules, root);
+    }
+
+    /** non-null while a RuleProfiler is started */
+    private volatile RuleProfiler profiler;
+
+    void setProfiler(RuleProfiler p) {
+        this.profiler = p;
+    }
+
     @Override
     public final void forEachRule(RuleMatch match) {
 
-        globalRNG = match.subst.random;
+        RuleProfiler p = this.profiler;
+        if (p != null) {
+            for (RuleProfiler.Node r : p.root) {
+                forEachRule(p, r, match);
+            }
+            return;
+        }
 
         for (RuleBranch r : root) {
             forEachRule(r, match);
         }
     }
 
+    /** each child branch continues from the match's state after this branch's preconditions, restored by backtracking */
     private final void forEachRule(RuleBranch r, RuleMatch match) {
 
         for (PreCondition x : r.precondition) {
@@ -37,33 +55,63 @@ public class TrieDeriver extends RuleTrie {
                 return;
         }
 
-        RuleMatch subMatch = getSubMatch();
+        int choice = match.choice();
 
         for (RuleBranch s : r.children) {
-            match.copyTo(subMatch);
-            forEachRule(s, subMatch);
+            forEachRule(s, match);
+            match.backtrack(choice);
         }
 
-        returnSubMatch(subMatch);
+        match.release(choice);
 
     }
 
-    Random globalRNG; //HACK refsthe same RNG which should be used everywhere
+    /** forEachRule, updating the profiler's statistics */
+    private final void forEachRule(RuleProfiler p, RuleProfiler.Node r, RuleMatch match) {
 
-    final DequePool<RuleMatch> submatches = new DequePool<RuleMatch>(8) {
-        @Override
-        public RuleMatch create() {
-            return new RuleMatch(globalRNG);
+        final RuleProfiler.Stats rule = r.rule;
+        final Consumer<Task> receiver = match.receiver;
+        RuleProfiler.Producing producing = null;
+        long ruleStart = 0;
+        if (rule != null) {
+            match.receiver = producing = p.new Producing(rule, receiver);
+            ruleStart = System.nanoTime();
         }
-    };
 
-    private final RuleMatch getSubMatch() {
-        return submatches.get();
-    }
+        try {
+            final PreCondition[] pre = r.precondition;
+            for (int i = 0; i < pre.length; i++) {
+                RuleProfiler.Stats s = r.conditions[i];
+                long start = System.nanoTime();
+                boolean pass = pre[i].test(match);
+                s.nanos.add(System.nanoTime() - start);
+                s.calls.increment();
+                if (!pass)
+                    return;
+                s.passes.increment();
+            }
+        } finally {
+            if (rule != null) {
+                match.receiver = receiver;
+                rule.nanos.add(System.nanoTime() - ruleStart);
+                rule.calls.increment();
+                if (producing.count > 0)
+                    rule.passes.increment();
+            }
+        }
+
+        if (r.children == null)
+            return;
+
+        int choice = match.choice();
+
+        for (RuleProfiler.Node s : r.children) {
+            forEachRule(p, s, match);
+            match.backtrack(choice);
+        }
 
+        match.release(choice);
 
-    private final void returnSubMatch(RuleMatch subMatch) {
-        submatches.put(subMatch);
     }
 
 
@@ -10,6 +10,8 @@ import org.magnos.trie.Trie;
 import org.magnos.trie.TrieNode;
 import org.magnos.trie.TrieSequencer;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -26,10 +28,13 @@ public class RuleTrie extends Deriver {
     }
 
     public void printSummary() {
-        printSummary(trie.root);
+        if (trie != null)
+            printSummary(trie.root);
+        else
+            printSummary(root, 0);
     }
 
-    public static final class RuleBranch {
+    public static final class RuleBranch implements Serializable {
 
         public final PreCondition[] precondition; //precondition sequence
 
@@ -43,6 +48,13 @@ public class RuleTrie extends Deriver {
 
     public final RuleBranch[] root;
 
+    /** uses an already compiled trie, ex: loaded from a cache */
+    public RuleTrie(DerivationRules R, RuleBranch[] root) {
+        super(R);
+        this.trie = null;
+        this.root = root;
+    }
+
     public RuleTrie(DerivationRules R) {
         super(R);
 
@@ -146,6 +158,17 @@ public class RuleTrie extends Deriver {
     }
 
 
+    public static void printSummary(RuleBranch[] branches, int depth) {
+        for (RuleBranch b : branches) {
+            System.out.print((b.children != null ? b.children.length : 0) + "  ");
+            indent(depth * 2);
+            System.out.println(Arrays.toString(b.precondition));
+
+            if (b.children != null)
+                printSummary(b.children, depth + b.precondition.length);
+        }
+    }
+
     private static RuleBranch[] compile(TrieNode<List<PreCondition>, TaskRule> node) {
 
         List<RuleBranch> bb = Global.newArrayList(node.getChildCount());
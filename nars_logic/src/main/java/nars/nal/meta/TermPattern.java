@@ -9,13 +9,14 @@ import nars.term.Term;
 import nars.term.Variable;
 import nars.term.transform.FindSubst;
 
+import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
 import java.util.TreeSet;
 import java.util.function.ToIntFunction;
 
 /** represents the "program" that the matcher will execute */
-public class TermPattern {
+public class TermPattern implements Serializable {
 
     public final PreCondition[] code;
     public final Term term;
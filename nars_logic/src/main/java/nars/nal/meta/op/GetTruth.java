@@ -20,7 +20,7 @@ public class GetTruth extends PreCondition {
     public final DesireFunction desire;
     public final char puncOverride;
 
-    transient private final String id;
+    private final String id;
 
     public GetTruth(BeliefFunction belief, DesireFunction desire, char puncOverride) {
         this.belief = belief;
@@ -36,6 +36,10 @@ public final class MakeTasks extends PreCondition {
         this.rule = taskRule;
     }
 
+    public TaskRule getRule() {
+        return rule;
+    }
+
     @Override
     public String toString() {
         return "MakeTasks";
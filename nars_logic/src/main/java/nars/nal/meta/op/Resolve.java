@@ -17,7 +17,7 @@ public final class Resolve extends PreCondition {
     public final Term term;
     @Deprecated public final TaskRule rule;
 
-    private transient final String id;
+    private final String id;
 
     public Resolve(Term term, TaskRule rule) {
         this.term = term;
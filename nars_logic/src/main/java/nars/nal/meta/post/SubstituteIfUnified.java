@@ -5,11 +5,10 @@ import nars.Op;
 import nars.nal.RuleMatch;
 import nars.term.Atom;
 import nars.term.Term;
+import nars.term.transform.Bindings;
 import nars.term.transform.FindSubst;
 import nars.term.transform.Subst;
 
-import java.util.Map;
-
 /**
  * Created by me on 8/15/15.
  */
@@ -49,8 +48,8 @@ public class SubstituteIfUnified extends Substitute {
     @Override
     protected boolean substitute(RuleMatch m, Term a, Term b) {
 
-        Map<Term, Term> left = m.sub2.left;
-        Map<Term, Term> right = m.sub2.right;
+        Bindings left = m.sub2.left;
+        Bindings right = m.sub2.right;
 
         Subst sub = new FindSubst(type, left, right, m.premise.getRandom());
 
@@ -63,8 +62,8 @@ public class SubstituteIfUnified extends Substitute {
             result = false;
         }
 
-        left.clear();
-        right.clear();
+        left.reset();
+        right.reset();
 
         return result;
     }
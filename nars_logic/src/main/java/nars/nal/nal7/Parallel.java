@@ -8,6 +8,7 @@ import nars.term.Terms;
 import nars.util.utf8.ByteBuf;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
 
 import static nars.Symbols.ARGUMENT_SEPARATOR;
 
@@ -19,6 +20,11 @@ public class Parallel extends Conjunctive<Term> implements Interval, TermMetadat
     //total duration (cached), the maximum duration of all included temporal terms
     transient int totalDuration = -1;
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        totalDuration = -1;
+    }
+
     //supplied by the memory, used as the default subterm event duration if they do not implement their own Interval.duration()
     private int eventDuration;
 
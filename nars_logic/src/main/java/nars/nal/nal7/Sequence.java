@@ -11,6 +11,7 @@ import nars.term.Term;
 import nars.util.utf8.ByteBuf;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.Arrays;
 import java.util.List;
 
@@ -33,6 +34,11 @@ public class Sequence extends Conjunctive<Term> implements Intermval {
 
     transient private int duration = -1;
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        duration = -1;
+    }
+
     /**
      * for subterms: (A, B, C) and intervals (i0, i1, i2, i3)
      * the effective sequence is:
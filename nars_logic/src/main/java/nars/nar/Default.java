@@ -7,6 +7,7 @@ import nars.Premise;
 import nars.bag.Bag;
 import nars.bag.impl.CacheBag;
 import nars.bag.impl.CurveBag;
+import nars.bag.impl.MappedCacheBag;
 import nars.budget.Budget;
 import nars.concept.AtomConcept;
 import nars.concept.Concept;
@@ -35,21 +36,32 @@ import nars.op.software.scheme.scheme;
 import nars.process.BagForgettingEnhancer;
 import nars.process.ConceptProcess;
 import nars.task.Task;
+import nars.task.flow.DerivationFilter;
 import nars.task.flow.ImmediateTaskPerception;
 import nars.task.flow.TaskPerception;
 import nars.term.Atom;
 import nars.term.Term;
+import nars.term.index.DiscriminationTree;
 import nars.time.Clock;
 import nars.time.FrameClock;
 import nars.util.data.MutableInteger;
 import nars.util.data.list.FasterList;
 import nars.util.data.random.XorShift1024StarRandom;
 import nars.util.event.Active;
+import nars.util.meter.metric.LogHistogram;
+import nars.util.meter.metric.MetricRegistry;
 import org.apache.commons.lang3.mutable.MutableFloat;
 
 import java.io.Serializable;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
@@ -104,6 +116,43 @@ public class Default extends NAR {
         return this;
     }
 
+    /** also stops the worker pools of parallel firing */
+    @Override
+    public void stop() {
+        super.stop();
+        core.shutdown();
+    }
+
+    /** retrieves candidates from the index of active concepts, created on first use */
+    @Override
+    public NAR forEachConceptUnifiable(Term pattern, Consumer<Concept> recip) {
+        final DiscriminationTree<Concept> index = conceptIndex();
+
+        final List<Concept> candidates = Global.newArrayList();
+        index.forEachUnifiable(pattern, candidates::add);
+
+        final Bag<Term, Concept> active = core.active;
+        for (Concept c : candidates) {
+            if (active.get(c.getTerm()) == c)
+                recip.accept(c);
+            else
+                index.remove(c); //left the bag without overflow
+        }
+        return this;
+    }
+
+    /** the index of the active concepts' terms, which the concept activator maintains once created */
+    public DiscriminationTree<Concept> conceptIndex() {
+        final ConceptActivator a = core.conceptActivator;
+        DiscriminationTree<Concept> i = a.getIndex();
+        if (i == null) {
+            i = new DiscriminationTree<>();
+            core.active.forEach(i::put);
+            a.setIndex(i);
+        }
+        return i;
+    }
+
     /** ConceptBuilder: */
     public Concept apply(final Term t) {
 
@@ -281,6 +330,7 @@ public class Default extends NAR {
         m.duration.set(5);
 
         m.conceptBeliefsMax.set(12);
+        m.conceptTemporalBeliefsMax.set(0);
         m.conceptGoalsMax.set(7);
         m.conceptQuestionsMax.set(5);
 
@@ -290,6 +340,7 @@ public class Default extends NAR {
 
 
         m.derivationThreshold.set(0);
+        m.derivationDuplicateWindow.set(0);
 
 
         m.taskProcessThreshold.set(0); //warning: if this is not zero, it could remove un-TaskProcess-able tasks even if they are stored by a Concept
@@ -321,9 +372,14 @@ public class Default extends NAR {
         ));
 
         if (core!=null) {
+            if (memory.concepts instanceof MappedCacheBag)
+                ((MappedCacheBag) memory.concepts).setActive(core.active);
+
             beforeNextFrame(() -> {
                 initTime();
             });
+
+            initMetrics();
         }
 
         //new QueryVariableExhaustiveResults(this.memory());
@@ -334,6 +390,49 @@ public class Default extends NAR {
 
     }
 
+    /**
+     * registers gauges of the active concepts and input buffer.  the
+     * distribution of concept priority is sampled at the end of the cycle
+     * after a scrape is requested, on the reasoner thread, so it costs
+     * nothing while unobserved; a scrape reports the previous sample, as
+     * gauges of its mean, median and 90th percentile.
+     */
+    protected void initMetrics() {
+        final MetricRegistry r = memory.metrics().registry;
+        final Bag<Term, Concept> active = core.active;
+
+        r.gauge("concepts_active", "Concepts in the active bag", active::size);
+        r.gauge("concepts_active_capacity", "Capacity of the active bag", () -> core.capacity.intValue());
+        r.gauge("concepts_total", "Concepts in the index", memory::size);
+        r.gauge("input_queue_depth", "Tasks buffered for input", () -> getInput().buffer.size());
+        r.gauge("derivation_duplicate_ratio", "Fraction of derivations discarded as duplicates",
+                core.derivationFilter::hitRate);
+
+        //mean, p50, p90 of the last sample, published together
+        final AtomicReference<float[]> priority = new AtomicReference<>(new float[3]);
+        r.gauge("concept_priority_mean", "Mean priority of the active concepts, sampled after the last scrape",
+                () -> priority.get()[0]);
+        r.gauge("concept_priority_p50", "Median priority of the active concepts, sampled after the last scrape",
+                () -> priority.get()[1]);
+        r.gauge("concept_priority_p90", "90th percentile priority of the active concepts, sampled after the last scrape",
+                () -> priority.get()[2]);
+
+        final LogHistogram sampled = new LogHistogram("concept_priority_permille", "");
+        final AtomicBoolean sample = new AtomicBoolean();
+        r.onScrape(() -> sample.set(true));
+        memory.eventCycleEnd.on(m -> {
+            if (sample.compareAndSet(true, false)) {
+                sampled.clear();
+                active.forEach(c -> sampled.record(Math.round(c.getPriority() * 1000)));
+                priority.set(new float[] {
+                        (float) sampled.mean() / 1000f,
+                        sampled.quantile(0.5) / 1000f,
+                        sampled.quantile(0.9) / 1000f
+                });
+            }
+        });
+    }
+
     protected DefaultCycle initCore(int activeConcepts, int conceptsFirePerCycle, int termLinksPerCycle, int taskLinksPerCycle) {
 
         DefaultCycle c = initCore(
@@ -390,6 +489,40 @@ public class Default extends NAR {
 
         public final MutableFloat activationFactor = new MutableFloat(1f);
 
+        /**
+         * number of worker threads which derive from the concepts fired in a cycle.
+         * 1 (default) fires sequentially on the cycle thread.  greater than 1
+         * samples the concepts and their links on the cycle thread (the bags
+         * share the NAR's random generator), derives the premises on a worker
+         * pool, and inputs the derived tasks at the end of the cycle in
+         * sampling order.  as derived tasks are only perceived in a later
+         * cycle, and the matching of each premise is seeded from the premise
+         * (see RuleMatch.start) rather than by the thread deriving it, the
+         * results are the same as when sequential.
+         */
+        public final MutableInteger threads = new MutableInteger(1);
+
+        /**
+         * worker pool for parallel firing, (re-)created when 'threads' changes
+         * or after shutdown
+         */
+        private transient ForkJoinPool workers = null;
+
+        /**
+         * number of worker threads which derive the premises of each fired
+         * concept (its tasklink x termlink square) in parallel.  applies when
+         * concepts are fired sequentially (threads = 1); each premise's
+         * derivations are normalized as a group, as when sequential, and input
+         * in premise order after all of the concept's premises are derived,
+         * with their events, on the cycle thread.
+         */
+        public final MutableInteger premiseThreads = new MutableInteger(1);
+
+        private transient ForkJoinPool premiseWorkers = null;
+
+        /** discards repeated derivations when memory.derivationDuplicateWindow > 0 */
+        public final DerivationFilter derivationFilter = new DerivationFilter(0, 1024);
+
         /**
          * concepts active in this cycle
          */
@@ -466,8 +599,18 @@ public class Default extends NAR {
         public final List<Task> derivedTasksBuffer;
 
         public void reset() {
+            derivationFilter.clear();
+            shutdown();
+        }
 
-
+        /**
+         * stops the worker pools once their jobs finish; they are created
+         * again if parallel firing continues
+         */
+        public void shutdown() {
+            ForkJoinPool w = workers, p = premiseWorkers;
+            if (w != null) w.shutdown();
+            if (p != null) p.shutdown();
         }
 
         protected void fireConcepts(int conceptsToFire) {
@@ -487,6 +630,12 @@ public class Default extends NAR {
 //            int n = active.forgetNext(conceptForgetDurations, buffer, time());
 //            if (n == 0) return;
 
+            final int numThreads = threads.intValue();
+            if (numThreads > 1) {
+                fireConceptsParallel(conceptsToFire, numThreads, conceptForgetDurations);
+                return;
+            }
+
             for (int i = 0; i < conceptsToFire; i++) {
                 Concept c = active.forgetNext(conceptForgetDurations, nar.memory);
                 if (c == null) break;
@@ -494,36 +643,79 @@ public class Default extends NAR {
             }
         }
 
-        protected void fireConcept(Concept c) {
-
-            
-            //used to estimate the fraction this batch should be scaled but this is not accurate
-
-            fireConcept(c, p -> {
-
-
-                deriver.run(p, derivedTasksBuffer::add);
+        /**
+         * samples the concepts and selects their premises on the calling
+         * thread (bags are not thread-safe), derives the premises on workers,
+         * and after all workers finish (barrier) inputs their derivations in
+         * the order sampled.  during the parallel phase, concepts and belief
+         * tables are only read, and the events of each derivation (the
+         * process, derived and removed tasks) are deferred to the barrier, so
+         * that their listeners run on the cycle thread in sampling order.
+         */
+        protected void fireConceptsParallel(int conceptsToFire, int numThreads, float conceptForgetDurations) {
 
-                if (!derivedTasksBuffer.isEmpty()) {
+            final List<Premise> premises = Global.newArrayList();
+            for (int i = 0; i < conceptsToFire; i++) {
+                Concept c = active.forgetNext(conceptForgetDurations, nar.memory);
+                if (c == null) break;
+                linkArrays();
+                fireConcept(c, firingTaskLinks, firingTermLinks, premises::add);
+            }
 
+            derive(premises, this.workers = pool(this.workers, numThreads));
+        }
 
-                    Task.normalize(
-                            derivedTasksBuffer,
-                            p.getMeanPriority());
+        /**
+         * derives the premises on a pool and, after all have finished
+         * (barrier), inputs their derivations in premise order.  if the pool
+         * was shut down meanwhile, derives them here.
+         */
+        private void derive(List<Premise> premises, ForkJoinPool pool) {
+            if (premises.size() < 2) {
+                for (Premise p : premises)
+                    fire(p);
+                return;
+            }
 
-                    derivedTasksBuffer.forEach(
-                        t -> nar.input(t)
-                    );
+            List<Callable<List<Task>>> jobs = Global.newArrayList(premises.size());
+            for (final Premise p : premises) {
+                jobs.add(() -> {
+                    List<Task> derived = Global.newArrayList();
+                    derive(p, derived);
+                    return derived;
+                });
+            }
 
-                    derivedTasksBuffer.clear();
+            try {
+                List<Future<List<Task>>> results;
+                try {
+                    results = pool.invokeAll(jobs);
+                } catch (RejectedExecutionException e) {
+                    for (Premise p : premises)
+                        fire(p);
+                    return;
                 }
-
-            });
-
+                for (int i = 0; i < results.size(); i++)
+                    input(premises.get(i), results.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                nar.memory.eventError.emit(e.getCause());
+            }
         }
 
-        protected final void fireConcept(Concept concept, Consumer<Premise> withResult) {
+        /** returns the pool if it is running with the requested parallelism, or replaces it */
+        private static ForkJoinPool pool(ForkJoinPool w, int numThreads) {
+            if (w == null || w.isShutdown() || w.getParallelism() != numThreads) {
+                if (w != null)
+                    w.shutdown();
+                w = new ForkJoinPool(numThreads);
+            }
+            return w;
+        }
 
+        /** sizes the re-usable link arrays to the number of links selected per concept */
+        private void linkArrays() {
             {
                 int num = termlinksSelectedPerFiredConcept.intValue();
                 if (firingTermLinks == null ||
@@ -536,13 +728,95 @@ public class Default extends NAR {
                         firingTaskLinks.length != num)
                     firingTaskLinks = new TaskLink[num];
             }
+        }
+
+        protected void fireConcept(Concept c) {
+
+            linkArrays();
+
+            final int numPremiseThreads = premiseThreads.intValue();
+            if (numPremiseThreads > 1) {
+                firePremisesParallel(c, numPremiseThreads);
+                return;
+            }
+
+            fireConcept(c, firingTaskLinks, firingTermLinks, this::fire);
+
+        }
+
+        /**
+         * collects the premise square of a concept on the calling thread
+         * (link selection modifies the concept's link bags) and then derives
+         * the premises on workers, each with its own thread-local match state
+         */
+        protected void firePremisesParallel(Concept c, int numThreads) {
+
+            final List<Premise> premises = Global.newArrayList();
+            fireConcept(c, firingTaskLinks, firingTermLinks, premises::add);
+
+            derive(premises, this.premiseWorkers = pool(this.premiseWorkers, numThreads));
+        }
+
+        /** derives from one premise and inputs its derivations, on the cycle thread */
+        protected final void fire(Premise p) {
+            final List<Task> buffer = this.derivedTasksBuffer;
+            derive(p, buffer);
+            input(p, buffer);
+            buffer.clear();
+        }
+
+        /**
+         * derives from one premise, on any thread, normalizing its derivations
+         * as a group into 'derived'.  the events of the derivation are
+         * deferred (see ConceptProcess.defer) until it is input.
+         */
+        protected final void derive(Premise p, List<Task> derived) {
+            if (p instanceof ConceptProcess)
+                ((ConceptProcess) p).defer();
+
+            deriver.run(p, derived::add);
+
+            if (!derived.isEmpty())
+                Task.normalize(derived, p.getMeanPriority());
+        }
+
+        /**
+         * on the cycle thread: emits the deferred events of a premise's
+         * derivation, and inputs those of its derivations which do not repeat
+         * a recent one.  a repeated derivation is removed before it is
+         * emitted as derived, so it does not reach perception.
+         */
+        protected final void input(Premise p, List<Task> derived) {
+            final boolean deferred = (p instanceof ConceptProcess);
+            if (deferred)
+                ((ConceptProcess) p).emitDeferred();
+
+            final Memory m = nar.memory;
+            final int window = m.derivationDuplicateWindow.get();
+            final DerivationFilter f = this.derivationFilter;
+            if (window > 0)
+                f.setWindow(window);
+
+            for (int i = 0, n = derived.size(); i < n; i++) {
+                Task t = derived.get(i);
+                if (window > 0 && !f.test(t, m.time())) {
+                    m.remove(t, "Duplicate Derivation");
+                    continue;
+                }
+                if (deferred)
+                    m.eventDerived.emit(t);
+                nar.input(t);
+            }
+        }
+
+        protected final void fireConcept(Concept concept, TaskLink[] taskLinks, TermLink[] termLinks, Consumer<Premise> withResult) {
 
             ConceptProcess.firePremiseSquare(
                     nar,
                     withResult,
                     concept,
-                    firingTaskLinks,
-                    firingTermLinks,
+                    taskLinks,
+                    termLinks,
                     nar.memory.taskLinkForgetDurations.intValue()
             );
         }
@@ -40,14 +40,17 @@ import nars.term.Term;
 import nars.truth.DefaultTruth;
 import nars.truth.Truth;
 import nars.truth.TruthFunctions;
+import nars.util.event.TimingWheel;
 
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 /**
  something expected did not happen
  anticipation will generate a negative event as consequence
+
+ pending anticipations are indexed by term, for confirmation, and scheduled
+ in a timing wheel by the time they become too late, so each cycle only
+ visits the anticipations which may be due
  */
 public class Anticipate {
 
@@ -56,8 +59,14 @@ public class Anticipate {
     final static Truth expiredTruth = new DefaultTruth(0.0f, Global.DEFAULT_JUDGMENT_CONFIDENCE);
     final static Budget expiredBudget = new Budget(0.75f, 0.5f, BudgetFunctions.truthToQuality(TruthFunctions.negation(expiredTruth)));
 
+    /** number of cycles spanned by one rotation of the wheel */
+    public static final int WHEEL_TICKS = 256;
+
     final Multimap<Compound,TaskTime> anticipations = LinkedHashMultimap.create();
 
+    /** anticipations by the cycle they expire; confirmed ones are removed from 'anticipations' only, and skipped when they expire */
+    final TimingWheel<TaskTime> expirations;
+
     private final NAR nar;
     private Memory memory;
     private final boolean debug = false;
@@ -65,8 +74,13 @@ public class Anticipate {
     public Anticipate(NAR nar) {
         this.nar = nar;
         this.memory = nar.memory;
+        this.expirations = new TimingWheel<>(WHEEL_TICKS, memory.time());
 
         nar.memory.eventCycleEnd.on(c -> updateAnticipations());
+        nar.memory.eventReset.on(m -> {
+            anticipations.clear();
+            expirations.clear(m.time());
+        });
         nar.memory.eventInput.on(this::onInput);
     }
 
@@ -100,24 +114,21 @@ public class Anticipate {
         //dont allow anticipation of same thing happen twice
         //TODO probably max size buffer, altough it shouldnt be an issue since
         //its about the future
-        for(Term tu : anticipations.keys()) {
-            if(tu.equals(tt.getTerm())) {
-                return;
-            }
+        if (anticipations.containsKey(tt)) {
+            return;
         }
 
         if (debug)
             System.err.println("Anticipating " + tt + " in " + (t.getOccurrenceTime() - now));
 
-        String s = "anticipating: "+taskTime.task.getTerm().toString();
-        System.out.println(s);
         memory.eventAnticipate.emit(t);
 
         if(Global.TESTING) {
-            Global.TESTSTRING += s + "\n";
+            Global.TESTSTRING += "anticipating: " + tt + "\n";
         }
 
         anticipations.put(tt, taskTime);
+        expirations.add(taskTime, taskTime.expiry());
     }
 
     public static boolean isObservable(NAR nar, Term t) {
@@ -131,11 +142,9 @@ public class Anticipate {
     protected void deriveDidntHappen(Compound prediction, TaskTime tt) {
 
         memory.eventDisappointed.emit(tt.task);
-        String s = "did not happen: " + prediction.toString();
-        System.out.println(s);
 
         if(Global.TESTING) {
-            Global.TESTSTRING += s + "\n";
+            Global.TESTSTRING += "did not happen: " + prediction + "\n";
         }
 
         long expectedOccurrenceTime = tt.occurrTime;
@@ -180,11 +189,9 @@ public class Anticipate {
                 happeneds++;
 
                 memory.eventConfirmed.emit(c);
-                String s = "happened as expected: "+tt.task.getTerm().toString();
-                System.out.println(s);
 
                 if(Global.TESTING) {
-                    Global.TESTSTRING += s + "\n";
+                    Global.TESTSTRING += "happened as expected: " + tt.task.getTerm() + "\n";
                 }
             }
         }
@@ -200,27 +207,25 @@ public class Anticipate {
 
         long now = nar.memory.time();
 
-        if (anticipations.isEmpty()) return;
-
-        Iterator<Map.Entry<Compound, TaskTime>> it = anticipations.entries().iterator();
-
-        while (it.hasNext()) {
-
-            Map.Entry<Compound, TaskTime> t = it.next();
-            Compound term = t.getKey();
-            TaskTime tt = t.getValue();
-
-            if (tt.tooLate(now)) {
-                deriveDidntHappen(term, tt);
-                it.remove();
-                didnts++;
-            }
+        if (expirations.isEmpty()) {
+            expirations.clear(now);
+            return;
         }
 
+        expirations.advance(now, this::expire);
+
         if (debug)
             System.err.println(now + ": Anticipations: pending=" + anticipations.size() + " happened=" + happeneds + " , didnts=" + didnts);
     }
 
+    private void expire(TaskTime tt) {
+        Compound term = tt.task.getTerm();
+        if (anticipations.remove(term, tt)) {
+            deriveDidntHappen(term, tt);
+            didnts++;
+        }
+    }
+
     /** Prediction point vector / centroid of a group of Tasks
      *      time a prediction is made (creationTime), and
      *      tme it is expected (ocurrenceTime) */
@@ -252,6 +257,11 @@ public class Anticipate {
             return occur >= occurrTime + tolerance;
         }
 
+        /** the first time at which tooLate is true */
+        public long expiry() {
+            return (long) Math.ceil(occurrTime + tolerance);
+        }
+
         public boolean inTime(long occur) {
             return occur > occurrTime - tolerance && occur < occurrTime + tolerance;
         }
@@ -4,6 +4,7 @@
  */
 package nars.process;
 
+import nars.Global;
 import nars.Memory;
 import nars.NAR;
 import nars.Premise;
@@ -15,6 +16,7 @@ import nars.task.Task;
 import nars.term.Terms;
 import nars.truth.Stamp;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 /** Firing a concept (reasoning event). Derives new Tasks via reasoning rules
@@ -34,6 +36,15 @@ abstract public class ConceptProcess extends AbstractPremise  {
     private Task currentBelief = null;
     private transient boolean cyclic;
 
+    /**
+     * while deferred, the events of the derivation are not emitted by the
+     * deriving thread: the process and the removals are recorded, to be
+     * emitted by emitDeferred, and the derived tasks are left to the caller
+     */
+    private transient boolean deferred;
+    private transient List<Task> removed;
+    private transient List<String> removedReasons;
+
     @Override final public Task getTask() {
         return getTaskLink().getTask();
     }
@@ -57,6 +68,53 @@ abstract public class ConceptProcess extends AbstractPremise  {
 
     public abstract void derive(Deriver p, Consumer<Task> t);
 
+    /** defers the events of the derivation, so it may run on another thread */
+    public final void defer() {
+        deferred = true;
+    }
+
+    public final boolean isDeferred() {
+        return deferred;
+    }
+
+    @Override
+    public final void derived(Task task) {
+        if (!deferred)
+            memory().eventDerived.emit(task);
+    }
+
+    @Override
+    public final void removed(Task task, String reason) {
+        if (!deferred) {
+            memory().remove(task, reason);
+            return;
+        }
+        if (removed == null) {
+            removed = Global.newArrayList(2);
+            removedReasons = Global.newArrayList(2);
+        }
+        removed.add(task);
+        removedReasons.add(reason);
+    }
+
+    /**
+     * emits, on the calling thread, the process and the removals deferred
+     * during the derivation, in the order they occurred
+     */
+    public final void emitDeferred() {
+        final Memory m = memory();
+        m.eventConceptProcess.emit(this);
+
+        final List<Task> r = removed;
+        if (r != null) {
+            for (int i = 0; i < r.size(); i++)
+                m.remove(r.get(i), removedReasons.get(i));
+            removed = null;
+            removedReasons = null;
+        }
+        deferred = false;
+    }
+
     @Override
     public String toString() {
         return new StringBuilder().append(getClass().getSimpleName())
@@ -140,6 +198,7 @@ abstract public class ConceptProcess extends AbstractPremise  {
                     continue;
 
                 Premise p = new ConceptTaskTermLinkProcess(nar, concept, taskLink, termLink);
+                nar.memory.metrics().premises.inc();
                 proc.accept(p);
             }
         }
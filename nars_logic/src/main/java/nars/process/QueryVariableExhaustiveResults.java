@@ -78,7 +78,7 @@ public class QueryVariableExhaustiveResults implements Consumer<Task> {
 
     public static void forEachMatch(NAR n, Compound queryTerm, Consumer<Task> withBelief) {
         Subst f = new FindSubst(Op.VAR_QUERY, n.memory.random);
-        n.forEachConcept(c -> {
+        n.forEachConceptUnifiable(queryTerm, c -> {
             if (!c.hasBeliefs())
                 return;
 
@@ -23,6 +23,7 @@ import nars.truth.Stamp;
 import nars.truth.Truth;
 import nars.util.data.Util;
 import nars.util.data.array.LongArrays;
+import nars.util.io.ProvenanceJournal;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -53,6 +54,7 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
     public boolean executed = false;
 
     private long[] evidentialSet = LongArrays.EMPTY_ARRAY;
+    private long evidenceSignature = 0;
 
     long creationTime = Stamp.TIMELESS;
     long occurrenceTime = Stamp.ETERNAL;
@@ -79,6 +81,10 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
 
     private List log = null;
 
+    /** journal holding this task's parents and log, if recorded in one; replaces parentTask, parentBelief and log */
+    transient private ProvenanceJournal journal = null;
+    private long journalId = ProvenanceJournal.NONE, journalLog = ProvenanceJournal.NONE;
+
 
 
     public DefaultTask(T term, final char punctuation, final Truth truth, final Budget bv, final Task parentTask, final Task parentBelief, final Task solution) {
@@ -176,6 +182,9 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
 
             setTerm((T) memory.terms.get( term ).getTerm());
 
+            if (memory.journal != null && journal == null)
+                record(memory.journal);
+
             return true;
         }
 
@@ -245,16 +254,84 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
     @Override
     public Task<T> setEvidence(final long... evidentialSet) {
         this.evidentialSet = evidentialSet;
+        this.evidenceSignature = Stamp.signature(evidentialSet);
         invalidate();
         return this;
     }
 
+    /**
+     * records this task in a journal, after which its parents and log are
+     * read from the journal and no longer referenced by the task
+     */
+    final void record(final ProvenanceJournal j) {
+        final long pt = journalId(j, getParentTask());
+        final long pb = journalId(j, getParentBelief());
+
+        this.journalId = j.task(this, pt, pb, log);
+        this.journal = j;
+        this.parentTask = this.parentBelief = null;
+        this.log = null;
+    }
+
+    /** records a clone of a journaled task, with the same parents and log */
+    final void record(final DefaultTask source) {
+        final ProvenanceJournal j = source.journal;
+        this.journalId = j.task(this,
+                j.parentTask(source.journalId), j.parentBelief(source.journalId),
+                Global.DEBUG_TASK_LOG ? source.getLog() : null);
+        this.journal = j;
+        this.parentTask = this.parentBelief = null;
+    }
+
+    /**
+     * binds a task decoded from a journal to its record, so its own parents
+     * and log are read from the journal in turn
+     */
+    public final void journaled(final ProvenanceJournal j, final long id) {
+        this.journal = j;
+        this.journalId = id;
+        this.parentTask = this.parentBelief = null;
+    }
+
+    final boolean isJournaled() {
+        return journal != null;
+    }
+
+    /** the id of a parent in the journal, recording it (without its own parents) if absent */
+    private static long journalId(final ProvenanceJournal j, final Task t) {
+        if (t == null)
+            return ProvenanceJournal.NONE;
+        if (t instanceof DefaultTask && ((DefaultTask) t).journal == j)
+            return ((DefaultTask) t).journalId;
+        return j.task(t, ProvenanceJournal.NONE, ProvenanceJournal.NONE, null);
+    }
+
+    @Override
+    public final boolean isInput() {
+        if (journal != null)
+            return journal.parentTask(journalId) == ProvenanceJournal.NONE;
+        return getParentTask() == null;
+    }
+
+    @Override
+    public final Task getParentTask() {
+        if (journal != null)
+            return journal.get(journal.parentTask(journalId));
+        return dereference(parentTask);
+    }
+
     @Override
     final public boolean isDouble() {
+        if (journal != null)
+            return journal.parentTask(journalId) != ProvenanceJournal.NONE &&
+                    journal.parentBelief(journalId) != ProvenanceJournal.NONE;
         return getParentBelief() != null && getParentTask() != null;
     }
     @Override
     final public boolean isSingle() {
+        if (journal != null)
+            return journal.parentTask(journalId) != ProvenanceJournal.NONE &&
+                    journal.parentBelief(journalId) == ProvenanceJournal.NONE;
         return getParentBelief()==null && getParentTask()!=null ;
     }
 
@@ -284,6 +361,12 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
         if (!Global.DEBUG_TASK_LOG)
             return;
 
+        if (historyToCopy != null && journal != null) {
+            for (Object entry : historyToCopy)
+                log(entry);
+            return;
+        }
+
         if (historyToCopy != null) {
             if (this.log == null) this.log = Global.newArrayList(historyToCopy.size());
             log.addAll(historyToCopy);
@@ -300,6 +383,11 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
         return evidentialSet;
     }
 
+    @Override
+    public final long getEvidenceSignature() {
+        return evidenceSignature;
+    }
+
     @Override
     public final long getCreationTime() {
         return creationTime;
@@ -457,13 +545,12 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
                 throw new RuntimeException("parentBelief " + getParentBelief() + " has no evidentialSet");
 
 
-            long[] zipped;
+            final long[] uniques;
             if(getParentTask().getCreationTime()>getParentBelief().getCreationTime()) {
-                zipped = Stamp.zip(bs, as);
+                uniques = Stamp.zipSet(bs, as);
             } else {
-                zipped = Stamp.zip(as, bs);
+                uniques = Stamp.zipSet(as, bs);
             }
-            final long[] uniques = Stamp.toSetArray(zipped);
 
             setEvidence(uniques);
 
@@ -681,6 +768,11 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
             return;
 
         //TODO parameter for max history length, although task history should not grow after they are crystallized with a concept
+        if (journal != null) {
+            journalLog = journal.log(journalId, journalLog, entry);
+            return;
+        }
+
         if (this.log == null)
             this.log = Global.newArrayList(1);
 
@@ -689,6 +781,8 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
 
     @Override
     public final List getLog() {
+        if (journal != null)
+            return journal.log(journalId, journalLog);
         return log;
     }
 
@@ -722,6 +816,8 @@ public class DefaultTask<T extends Compound> extends Item<Sentence<T>> implement
      */
     @Override
     final public Task getParentBelief() {
+        if (journal != null)
+            return journal.get(journal.parentBelief(journalId));
         return dereference(parentBelief);
     }
 
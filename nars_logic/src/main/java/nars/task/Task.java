@@ -258,7 +258,10 @@ public interface Task<T extends Compound> extends Sentence<T>,
 
         tt.setCreationTime(getCreationTime());
         tt.setOccurrenceTime(occ);
-        tt.log(getLog());
+        if (this instanceof DefaultTask && ((DefaultTask) this).isJournaled())
+            ((DefaultTask) tt).record((DefaultTask) this);
+        else
+            tt.log(getLog());
         return tt;
     }
 
@@ -0,0 +1,205 @@
+package nars.task.flow;
+
+import nars.task.Task;
+import nars.truth.Truth;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Rejects derived tasks identical (in term, punctuation, truth, occurrence
+ * time and evidence) to a recent derivation, before they are emitted as
+ * derived or input, so a duplicate never reaches perception.
+ * <p>
+ * A fingerprint of each task is added to a two-generation Bloom filter whose
+ * generations rotate every half window, so old derivations are forgotten
+ * without removal.  A repeat is therefore rejected if it follows the
+ * original by less than window/2 time units, and may be up to 'window'
+ * after it, depending on when the generations rotated.  A task absent from the filter is new; otherwise it is
+ * confirmed against a bounded LRU of recent derivations, so a false
+ * positive of the filter never rejects a task.
+ * <p>
+ * Not thread safe; applied on the cycle thread.
+ */
+public class DerivationFilter implements Predicate<Task> {
+
+    private final long[] current, previous;
+    private final int bitMask;
+
+    private final LinkedHashMap<Long, Entry> recent;
+
+    private long window;
+    private long generationStart = Long.MIN_VALUE;
+
+    /** derivations tested, rejected as duplicates, and passed by the Bloom filter alone */
+    private long tested, duplicates, bloomNegatives;
+
+    static final class Entry {
+        final Task task;
+        final long time;
+
+        Entry(Task task, long time) {
+            this.task = task;
+            this.time = time;
+        }
+    }
+
+    /**
+     * @param window time within which a repeated derivation is a duplicate
+     * @param capacity number of recent derivations remembered; the filter has 16 bits per
+     */
+    public DerivationFilter(long window, final int capacity) {
+        this.window = window;
+
+        int bits = 64;
+        while (bits < capacity * 16) bits <<= 1;
+        this.current = new long[bits / 64];
+        this.previous = new long[bits / 64];
+        this.bitMask = bits - 1;
+
+        this.recent = new LinkedHashMap<Long, Entry>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public void setWindow(long window) {
+        this.window = window;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    @Override
+    public boolean test(Task t) {
+        return test(t, t.getCreationTime());
+    }
+
+    /** @return true if the task is not a recent duplicate */
+    public boolean test(Task t, long now) {
+        tested++;
+
+        rotate(now);
+
+        final long f = fingerprint(t);
+        final int h1 = (int) f & bitMask, h2 = (int) (f >>> 32) & bitMask;
+
+        if (!contains(current, h1, h2) && !contains(previous, h1, h2)) {
+            bloomNegatives++;
+            add(f, h1, h2, t, now);
+            return true;
+        }
+
+        Entry e = recent.get(f);
+        if (e != null && now - e.time <= window && equal(e.task, t)) {
+            duplicates++;
+            return false;
+        }
+
+        add(f, h1, h2, t, now);
+        return true;
+    }
+
+    private void add(long f, int h1, int h2, Task t, long now) {
+        set(current, h1);
+        set(current, h2);
+        recent.put(f, new Entry(t, now));
+    }
+
+    private void rotate(long now) {
+        final long half = Math.max(1, window / 2);
+        if (generationStart == Long.MIN_VALUE || now < generationStart) {
+            generationStart = now;
+        } else if (now - generationStart >= half) {
+            boolean expiredBoth = now - generationStart >= 2 * half;
+            System.arraycopy(current, 0, previous, 0, current.length);
+            Arrays.fill(current, 0);
+            if (expiredBoth)
+                Arrays.fill(previous, 0);
+            generationStart = now;
+        }
+    }
+
+    private static boolean contains(long[] bits, int h1, int h2) {
+        return get(bits, h1) && get(bits, h2);
+    }
+
+    private static boolean get(long[] bits, int i) {
+        return (bits[i >>> 6] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int i) {
+        bits[i >>> 6] |= 1L << i;
+    }
+
+    static long fingerprint(Task t) {
+        long h = t.getTerm().hashCode();
+        h = h * 31 + t.getPunctuation();
+
+        Truth truth = t.getTruth();
+        if (truth != null) {
+            h = h * 31 + Float.floatToIntBits(truth.getFrequency());
+            h = h * 31 + Float.floatToIntBits(truth.getConfidence());
+        }
+
+        h = h * 31 + t.getOccurrenceTime();
+        h = h * 31 + t.getEvidence().length;
+        h ^= t.getEvidenceSignature();
+
+        //finalizer of MurmurHash3, so both halves are usable as hashes
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static boolean equal(Task a, Task b) {
+        if (a == b) return true;
+        if (a.getPunctuation() != b.getPunctuation()) return false;
+        if (a.getOccurrenceTime() != b.getOccurrenceTime()) return false;
+
+        Truth at = a.getTruth(), bt = b.getTruth();
+        if (at == null ? bt != null : !at.equals(bt)) return false;
+
+        return Arrays.equals(a.getEvidence(), b.getEvidence()) && a.getTerm().equals(b.getTerm());
+    }
+
+    public long tested() {
+        return tested;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    /** fraction of derivations rejected as duplicates */
+    public float hitRate() {
+        return (tested == 0) ? 0 : duplicates / (float) tested;
+    }
+
+    /** fraction of derivations passed by the Bloom filter without an LRU lookup */
+    public float bloomNegativeRate() {
+        return (tested == 0) ? 0 : bloomNegatives / (float) tested;
+    }
+
+    public void clear() {
+        Arrays.fill(current, 0);
+        Arrays.fill(previous, 0);
+        recent.clear();
+        generationStart = Long.MIN_VALUE;
+        tested = duplicates = bloomNegatives = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DerivationFilter{tested=" + tested + ", duplicates=" + duplicates +
+                ", hitRate=" + hitRate() + ", bloomNegativeRate=" + bloomNegativeRate() + '}';
+    }
+}
@@ -0,0 +1,214 @@
+package nars.task.in;
+
+import nars.Global;
+import nars.Memory;
+import nars.NAR;
+import nars.Narsese;
+import nars.bag.impl.CacheBag;
+import nars.concept.Concept;
+import nars.concept.util.ConceptBuilder;
+import nars.task.Task;
+import nars.term.Term;
+import nars.util.event.On;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Bulk ingestion of tasks, for loading large amounts of knowledge at once
+ * rather than through a per-task Input:
+ * <p>
+ * 1. lines of Narsese are parsed in parallel (each thread has its own parser)
+ * 2. duplicate tasks are removed
+ * 3. any concepts the task terms lack are created in the concept index (but
+ *    not activated) in one pass, with their terms interned in the TermIndex
+ * 4. the tasks are input to the NAR all at once, to be perceived at the start
+ *    of the next frame
+ * <p>
+ * Steps 2 onward happen on the calling thread, which should be the thread
+ * running the NAR.
+ */
+public class BatchInput {
+
+    /** throughput measurements of one batch */
+    public static final class Stats {
+
+        /** lines read, excluding blank and comment lines */
+        public long lines;
+        public long parseErrors;
+        public long duplicates;
+        public long newConcepts;
+        /** tasks input to the NAR */
+        public long tasks;
+        /** false while a chunked input continues in later frames */
+        public boolean finished = true;
+
+        public long parseNS, indexNS, inputNS;
+
+        public long totalNS() {
+            return parseNS + indexNS + inputNS;
+        }
+
+        public double tasksPerSecond() {
+            long t = totalNS();
+            return t == 0 ? 0 : tasks / (t / 1.0e9);
+        }
+
+        @Override
+        public String toString() {
+            return "BatchInput{" +
+                    "lines=" + lines +
+                    ", parseErrors=" + parseErrors +
+                    ", duplicates=" + duplicates +
+                    ", newConcepts=" + newConcepts +
+                    ", tasks=" + tasks +
+                    ", parse=" + parseNS / 1000000 + "ms" +
+                    ", index=" + indexNS / 1000000 + "ms" +
+                    ", input=" + inputNS / 1000000 + "ms" +
+                    ", tasks/s=" + Math.round(tasksPerSecond()) +
+                    '}';
+        }
+    }
+
+    /** parses and inputs one task per line */
+    public static Stats lines(NAR nar, Stream<String> lines) {
+        Stats s = new Stats();
+        final Memory m = nar.memory;
+
+        LongAdder read = new LongAdder(), errors = new LongAdder();
+
+        long start = System.nanoTime();
+        List<Task> parsed = lines.parallel()
+                .map(String::trim)
+                .filter(l -> !l.isEmpty() && !isComment(l))
+                .map(l -> {
+                    read.increment();
+                    try {
+                        Task t = Narsese.the().task(l, m);
+                        if (t == null) errors.increment();
+                        return t;
+                    } catch (Narsese.NarseseException e) {
+                        errors.increment();
+                        return null;
+                    }
+                })
+                .filter(t -> t != null)
+                .collect(Collectors.toList());
+        s.parseNS = System.nanoTime() - start;
+
+        s.lines = read.sum();
+        s.parseErrors = errors.sum();
+
+        return input(nar, parsed, s);
+    }
+
+    /** inputs already constructed tasks */
+    public static Stats tasks(NAR nar, Stream<Task> tasks) {
+        Stats s = new Stats();
+
+        long start = System.nanoTime();
+        List<Task> l = tasks.filter(t -> t != null).collect(Collectors.toList());
+        s.parseNS = System.nanoTime() - start;
+        s.lines = l.size();
+
+        return input(nar, l, s);
+    }
+
+    public static Stats tasks(NAR nar, Iterable<Task> tasks) {
+        return tasks(nar, StreamSupport.stream(tasks.spliterator(), false));
+    }
+
+    /**
+     * inputs already constructed tasks in batches of at most chunk tasks:
+     * the first now, then one at the start of each frame, so a long stream
+     * is neither collected at once nor queued for perception (with its
+     * concepts created) ahead of the reasoner, as StreamingFileInput paces a
+     * file.  duplicates are removed within each batch.  the stream is read,
+     * and closed when exhausted, on the NAR's thread.
+     *
+     * @return the stats, which accumulate until finished
+     */
+    public static Stats tasks(NAR nar, Stream<Task> tasks, int chunk) {
+        Stats s = new Stats();
+        Iterator<Task> i = tasks.filter(t -> t != null).iterator();
+
+        if (next(nar, i, chunk, s)) {
+            tasks.close();
+            return s;
+        }
+
+        On[] frames = { null };
+        frames[0] = nar.memory.eventFrameStart.on(n -> {
+            if (next(nar, i, chunk, s)) {
+                frames[0].off();
+                tasks.close();
+            }
+        });
+        return s;
+    }
+
+    /** inputs the next batch; true if the tasks are exhausted */
+    private static boolean next(NAR nar, Iterator<Task> i, int chunk, Stats s) {
+        List<Task> l = Global.newArrayList(chunk);
+
+        long start = System.nanoTime();
+        while (l.size() < chunk && i.hasNext())
+            l.add(i.next());
+        s.parseNS += System.nanoTime() - start;
+        s.lines += l.size();
+
+        if (!l.isEmpty())
+            input(nar, l, s);
+
+        s.finished = !i.hasNext();
+        return s.finished;
+    }
+
+    static boolean isComment(String line) {
+        return line.startsWith("//") || line.charAt(0) == '\'';
+    }
+
+    static Stats input(NAR nar, List<Task> tasks, Stats s) {
+        final Memory m = nar.memory;
+
+        long start = System.nanoTime();
+
+        //equality ignores creation time, and input tasks do not yet have evidence
+        Set<Task> unique = new LinkedHashSet<>(tasks);
+        s.duplicates += tasks.size() - unique.size();
+
+        final CacheBag<Term, Concept> index = m.getConcepts();
+        final ConceptBuilder builder = m.the(ConceptBuilder.class);
+
+        Set<Term> terms = Global.newHashSet(unique.size());
+        for (Task t : unique) {
+            Term term = t.getTerm().normalized();
+            if (term == null)
+                continue; //left for init() to reject
+
+            if (terms.add(term) && index.get(term) == null) {
+                //the interned instance, which init() also gives the task
+                Concept c = builder.apply(m.terms.get(term).getTerm());
+                c.setMemory(m);
+                index.put(c);
+                s.newConcepts++;
+            }
+        }
+        s.indexNS += System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Task t : unique) {
+            if (nar.input(t))
+                s.tasks++;
+        }
+        s.inputNS += System.nanoTime() - start;
+
+        return s;
+    }
+}
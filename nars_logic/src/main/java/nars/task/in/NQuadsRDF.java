@@ -74,9 +74,13 @@ abstract public class NQuadsRDF {
         input(nar, StreamSupport.stream(nxp.spliterator(), false));
     }
 
-    public static void input(NAR nar, Stream<Node[]> nxp) throws Exception {
+    /** statements input to the NAR per frame */
+    public static final int CHUNK = 4096;
 
-        nar.input(
+    /** inputs the statements CHUNK at a time, the first now and the rest one chunk per frame */
+    public static BatchInput.Stats input(NAR nar, Stream<Node[]> nxp) throws Exception {
+
+        return BatchInput.tasks(nar,
             nxp.map( (Node[] nx) -> {
                 if (nx.length >= 3) {
                     return input(
@@ -87,7 +91,8 @@ abstract public class NQuadsRDF {
                     );
                 }
                 return null;
-            } ).filter(x -> x!=null)
+            } ).filter(x -> x!=null),
+            CHUNK
         );
 
 
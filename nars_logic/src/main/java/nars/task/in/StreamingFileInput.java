@@ -0,0 +1,342 @@
+package nars.task.in;
+
+import nars.Global;
+import nars.NAR;
+import nars.Narsese;
+import nars.task.Task;
+import nars.task.flow.Input;
+import nars.util.event.On;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Inputs the tasks of a Narsese file while it is read, without loading the
+ * whole file.
+ * <p>
+ * A reader thread maps the file in windows and cuts it at line boundaries
+ * into chunks, which a pool of workers decode and parse concurrently.  The
+ * parsed chunks are queued in file order; the queue is bounded, so reading
+ * pauses while the reasoner has not consumed them.  When input to a NAR,
+ * the tasks of parsed chunks are input at a rate of numPerFrame per frame,
+ * without waiting for chunks still being parsed.
+ * <p>
+ * A chunk which fails to parse is parsed line by line, and the lines which
+ * still fail are reported on the memory's error topic.
+ */
+public class StreamingFileInput implements Input {
+
+    public static final int WINDOW = 64 * 1024 * 1024;
+
+    /** a parsed chunk */
+    static final class Chunk {
+        final List<Task> tasks;
+        final List<String> errors;
+        final int bytes;
+
+        Chunk(List<Task> tasks, List<String> errors, int bytes) {
+            this.tasks = tasks;
+            this.errors = errors;
+            this.bytes = bytes;
+        }
+    }
+
+    /** marks the end of the file, or of reading after a failure */
+    static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+    private final NAR nar;
+    public final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final int chunkSize;
+
+    private final ExecutorService parsers;
+    private final BlockingQueue<Future<Chunk>> pending;
+    private final Thread reader;
+
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    private Iterator<Task> current = Collections.emptyIterator();
+    private boolean finished;
+    private On frames;
+
+    private final AtomicLong bytesRead = new AtomicLong();
+    private long bytesParsed, tasksParsed, tasksInput, errors;
+    private final long start = System.nanoTime();
+
+    public StreamingFileInput(NAR nar, Path path) throws IOException {
+        this(nar, path, 256 * 1024, Runtime.getRuntime().availableProcessors(), 16);
+    }
+
+    /**
+     * @param chunkSize approximate bytes per chunk; chunks end at a line end
+     * @param workers number of parsing threads
+     * @param maxPending chunks read but not yet input, beyond which reading pauses
+     */
+    public StreamingFileInput(NAR nar, Path path, int chunkSize, int workers, int maxPending) throws IOException {
+        this.nar = nar;
+        this.path = path;
+        this.channel = FileChannel.open(path, READ);
+        this.size = channel.size();
+        this.chunkSize = chunkSize;
+
+        this.parsers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "narsese-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        this.pending = new ArrayBlockingQueue<>(maxPending);
+
+        this.reader = new Thread(this::read, "narsese-reader " + path.getFileName());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void read() {
+        try {
+            long pos = 0;
+            while (running && pos < size) {
+                int windowLen = (int) Math.min(WINDOW, size - pos);
+                MappedByteBuffer w = channel.map(FileChannel.MapMode.READ_ONLY, pos, windowLen);
+                boolean last = (pos + windowLen == size);
+
+                int from = 0;
+                while (running && from < windowLen) {
+                    int to = Math.min(from + chunkSize, windowLen);
+                    while (to < windowLen && w.get(to - 1) != '\n') to++;
+
+                    if (!last && w.get(to - 1) != '\n') {
+                        //the chunk's last line continues in the next window
+                        if (from == 0)
+                            throw new IOException("line longer than " + WINDOW + " bytes at " + pos);
+                        break;
+                    }
+
+                    ByteBuffer c = w.duplicate();
+                    c.limit(to).position(from);
+                    pending.put(parsers.submit(() -> parse(c.slice())));
+
+                    bytesRead.addAndGet(to - from);
+                    from = to;
+                }
+                pos += from;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            //stopped
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+            if (running) {
+                try {
+                    pending.put(END);
+                } catch (InterruptedException e) {
+                    //stopped
+                }
+            }
+        }
+    }
+
+    Chunk parse(ByteBuffer b) {
+        int bytes = b.remaining();
+        String text = StandardCharsets.UTF_8.decode(b).toString();
+
+        List<Task> tasks = Global.newArrayList();
+        List<String> errors = Collections.emptyList();
+        try {
+            Narsese.tasksStrict(text, tasks::add, nar.memory);
+        } catch (Throwable e) {
+            //find the invalid lines
+            tasks.clear();
+            errors = Global.newArrayList(1);
+            for (String line : text.split("\n")) {
+                if (line.trim().isEmpty()) continue;
+                try {
+                    Narsese.tasksStrict(line, tasks::add, nar.memory);
+                } catch (Throwable f) {
+                    errors.add("Narsese: " + f.getMessage());
+                }
+            }
+        }
+        tasks.removeIf(t -> t == null);
+        return new Chunk(tasks, errors, bytes);
+    }
+
+    /** the next task, waiting for its chunk to be parsed; null at the end of the file */
+    @Override
+    public Task get() {
+        while (!current.hasNext()) {
+            if (finished)
+                return null;
+            try {
+                next(pending.take());
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return current.next();
+    }
+
+    /** the next task if its chunk is parsed; otherwise null, also at the end of the file */
+    public Task poll() {
+        while (!current.hasNext()) {
+            if (finished)
+                return null;
+            Future<Chunk> f = pending.peek();
+            if (f == null || !f.isDone())
+                return null;
+            next(pending.poll());
+        }
+        return current.next();
+    }
+
+    private void next(Future<Chunk> f) {
+        if (f == END) {
+            finished = true;
+            shutdown();
+            if (failure != null)
+                nar.memory.eventError.emit(failure);
+            return;
+        }
+
+        Chunk c;
+        try {
+            c = f.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        bytesParsed += c.bytes;
+        tasksParsed += c.tasks.size();
+        errors += c.errors.size();
+        for (String e : c.errors)
+            nar.memory.eventError.emit(e);
+
+        current = c.tasks.iterator();
+    }
+
+    /** inputs up to numPerFrame parsed tasks each frame, until the end of the file */
+    @Override
+    public void input(NAR n, int numPerFrame) {
+        if (numPerFrame == 0)
+            throw new RuntimeException("0 rate");
+
+        frames = n.memory.eventFrameStart.on(nn -> inputNext(nn, numPerFrame));
+        inputNext(n, numPerFrame);
+    }
+
+    private void inputNext(NAR n, int max) {
+        final long now = n.time();
+        Task t;
+        for (int i = 0; i < max && (t = poll()) != null; i++) {
+            retime(t, now);
+            n.input(t);
+            tasksInput++;
+        }
+        if (finished && frames != null) {
+            frames.off();
+            frames = null;
+        }
+    }
+
+    /** moves a task parsed earlier to the present, keeping its tense */
+    static void retime(Task t, long now) {
+        long dt = now - t.getCreationTime();
+        if (dt == 0) return;
+        if (!t.isEternal())
+            t.setOccurrenceTime(t.getOccurrenceTime() + dt);
+        t.setCreationTime(now);
+    }
+
+    /** stops reading; tasks already parsed are discarded */
+    @Override
+    public void stop() {
+        running = false;
+        finished = true;
+        reader.interrupt();
+        shutdown();
+        pending.clear();
+        current = Collections.emptyIterator();
+        if (frames != null) {
+            frames.off();
+            frames = null;
+        }
+    }
+
+    private void shutdown() {
+        parsers.shutdownNow();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /** the file's size in bytes */
+    public long size() {
+        return size;
+    }
+
+    public long bytesRead() {
+        return bytesRead.get();
+    }
+
+    /** bytes of the chunks taken for input */
+    public long bytesParsed() {
+        return bytesParsed;
+    }
+
+    /** fraction of the file taken for input */
+    public float progress() {
+        return (size == 0) ? 1f : bytesParsed / (float) size;
+    }
+
+    public long tasksParsed() {
+        return tasksParsed;
+    }
+
+    public long tasksInput() {
+        return tasksInput;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    /** tasks taken for input per second */
+    public double throughput() {
+        double s = (System.nanoTime() - start) / 1.0e9;
+        return (s <= 0) ? 0 : tasksParsed / s;
+    }
+
+    public IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return "StreamingFileInput{" + path +
+                ", progress=" + String.format("%.1f%%", 100 * progress()) +
+                ", read=" + bytesRead() + '/' + size +
+                ", tasks=" + tasksParsed +
+                ", input=" + tasksInput +
+                ", errors=" + errors +
+                ", throughput=" + String.format("%.0f/s", throughput()) +
+                '}';
+    }
+}
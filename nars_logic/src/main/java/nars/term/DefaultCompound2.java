@@ -8,6 +8,8 @@ import nars.term.transform.VariableNormalization;
 import nars.util.data.Util;
 import nars.util.utf8.ByteBuf;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
@@ -25,7 +27,7 @@ public abstract class DefaultCompound2<T extends Term> implements Compound<T> {
      * true iff definitely normalized, false to cause it to update on next normalization.
      * used to prevent repeated normalizations
      */
-    protected transient boolean normalized = false;
+    protected boolean normalized = false;
     protected transient int hash;
 
     /**
@@ -155,6 +157,14 @@ public abstract class DefaultCompound2<T extends Term> implements Compound<T> {
         init(this.terms.term);
     }
 
+    /** the hash and the subterms' metrics are not serialized */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        boolean n = this.normalized;
+        rehash();
+        this.normalized = n;
+    }
+
     @Override
     public final int hashCode() {
         return hash;
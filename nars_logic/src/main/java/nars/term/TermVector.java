@@ -3,6 +3,8 @@ package nars.term;
 import com.google.common.collect.Iterators;
 import nars.util.data.Util;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
@@ -294,6 +296,12 @@ public class TermVector<T extends Term> implements Iterable<T>, Subterms<T>, Ser
     }
 
 
+    /** the metrics are not serialized; the subterms have been read, and rehashed, first */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init(term);
+    }
+
     /** returns hashcode */
     public int init(T[] term) {
 
@@ -0,0 +1,170 @@
+package nars.term.compile;
+
+import nars.term.Compound;
+import nars.term.Term;
+import nars.term.TermMetadata;
+import nars.term.Termed;
+import nars.term.transform.CompoundTransform;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent hash-consing TermIndex: structurally equal terms
+ * resolve to the same instance, so equals() can short-circuit on
+ * identity and duplicate term graphs are not retained.
+ *
+ * Entries are weakly referenced; a term no longer reachable from
+ * a task, concept, or link is collected and its entry expunged.
+ *
+ * Terms which carry instance-specific metadata (intervals of
+ * sequences and parallels) are not shared, but their non-metadata
+ * subterms are.
+ */
+public class WeakTermIndex implements TermIndex {
+
+    private final ConcurrentHashMap<TermRef, TermRef> terms;
+    private final ReferenceQueue<Term> collected = new ReferenceQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public WeakTermIndex() {
+        this(4096);
+    }
+
+    public WeakTermIndex(int initialCapacity) {
+        terms = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    /** weak reference to an interned term, which caches its hash so it can be removed after collection */
+    static final class TermRef extends WeakReference<Term> {
+
+        final int hash;
+
+        TermRef(Term t, ReferenceQueue<Term> q) {
+            super(t, q);
+            this.hash = t.hashCode();
+        }
+
+        @Override
+        public final int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public final boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof TermRef)) return false;
+
+            TermRef r = (TermRef) obj;
+            if (hash != r.hash) return false;
+
+            Term x = get();
+            return (x != null) && x.equals(r.get());
+        }
+    }
+
+    @Override
+    public final Termed get(Term t) {
+
+        expunge();
+
+        if (t instanceof TermMetadata ||
+                ((t instanceof Compound) && TermMetadata.hasAny((Compound) t))) {
+            //shares only its subterms
+            return t.normalized(this);
+        }
+
+        //interns the subterms, in place
+        return intern(t.normalized(this));
+    }
+
+    private Term intern(Term t) {
+
+        final TermRef r = new TermRef(t, collected);
+
+        while (true) {
+            TermRef existing = terms.putIfAbsent(r, r);
+            if (existing == null) {
+                misses.increment();
+                return t;
+            }
+
+            Term e = existing.get();
+            if (e != null) {
+                hits.increment();
+                return e;
+            }
+
+            //collected after it was matched; remove and try again
+            terms.remove(existing, existing);
+        }
+    }
+
+    /** removes the entries whose terms have been collected */
+    private void expunge() {
+        Reference<? extends Term> r;
+        while ((r = collected.poll()) != null) {
+            terms.remove(r, r);
+        }
+    }
+
+    final CompoundTransform<Compound, Term> ct = new CompoundTransform<Compound, Term>() {
+
+        @Override
+        public final boolean test(Term term) {
+            return true;
+        }
+
+        @Override
+        public final Term apply(Compound c, Term subterm, int depth) {
+            return get(subterm).getTerm();
+        }
+    };
+
+    @Override
+    public final CompoundTransform getCompoundTransformer() {
+        return ct;
+    }
+
+    @Override
+    public void forEachTerm(Consumer<Termed> c) {
+        terms.keySet().forEach(r -> {
+            Term t = r.get();
+            if (t != null)
+                c.accept(t);
+        });
+    }
+
+    /** number of interned terms which have not been collected */
+    public final int size() {
+        expunge();
+        return terms.size();
+    }
+
+    /** number of lookups which resolved to an existing instance */
+    public final long hits() {
+        return hits.sum();
+    }
+
+    /** number of lookups which interned a new instance */
+    public final long misses() {
+        return misses.sum();
+    }
+
+    /** fraction of lookups which resolved to an existing instance */
+    public final float hitRate() {
+        long h = hits(), total = h + misses();
+        return total == 0 ? 0 : ((float) h) / total;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + ", hitRate=" + hitRate() + ']';
+    }
+}
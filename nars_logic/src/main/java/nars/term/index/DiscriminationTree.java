@@ -0,0 +1,210 @@
+package nars.term.index;
+
+import nars.Global;
+import nars.term.Compound;
+import nars.term.Term;
+import nars.term.Termed;
+import nars.term.Variable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Index of terms by structure, which retrieves the terms that may unify with
+ * a pattern without testing every term.
+ * <p>
+ * A term's key is its preorder sequence of symbols: a compound contributes
+ * its operator and size, an atomic term itself, and every variable a
+ * wildcard.  The subterms of a commutative compound are not part of its key,
+ * since they may match in any order.  Retrieval walks the tree along the
+ * pattern's key, where a wildcard of the pattern skips a whole subterm of
+ * the indexed terms and a wildcard of an indexed term skips a whole subterm
+ * of the pattern.
+ * <p>
+ * The result is a superset of the unifiable terms (relation indices of
+ * images, intervals of sequences, and the subterms of commutative compounds
+ * are not compared, and variables of every type are wildcards); the caller
+ * confirms a match by unification.
+ * <p>
+ * Not thread safe.
+ */
+public class DiscriminationTree<V extends Termed> {
+
+    /** key symbol of any variable */
+    static final Object VAR = new Object() {
+        @Override
+        public String toString() {
+            return "*";
+        }
+    };
+
+    static final class Node<V> {
+        Map<Object, Node<V>> children;
+        /** values whose key ends at this node */
+        List<V> values;
+
+        Node<V> child(Object k) {
+            return (children == null) ? null : children.get(k);
+        }
+
+        boolean isEmpty() {
+            return (children == null || children.isEmpty()) && (values == null || values.isEmpty());
+        }
+    }
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    /** a term's key, with the index after each symbol's subterm */
+    static final class Key {
+        final List<Object> symbols = Global.newArrayList();
+        int[] end = new int[8];
+
+        Key(Term t) {
+            add(t);
+        }
+
+        private void add(Term t) {
+            int i = symbols.size();
+            symbols.add(symbol(t));
+            if (t instanceof Compound && !t.isCommutative()) {
+                Compound c = (Compound) t;
+                for (int j = 0; j < c.size(); j++)
+                    add(c.term(j));
+            }
+            if (i >= end.length)
+                end = Arrays.copyOf(end, Math.max(end.length * 2, i + 1));
+            end[i] = symbols.size();
+        }
+
+        int length() {
+            return symbols.size();
+        }
+    }
+
+    static Object symbol(Term t) {
+        if (t instanceof Variable)
+            return VAR;
+        if (t instanceof Compound) {
+            Compound c = (Compound) t;
+            return ((long) c.op().ordinal() << 33) | ((long) c.size() << 1) | (c.isCommutative() ? 1 : 0);
+        }
+        return t;
+    }
+
+    /** the number of subterms following a symbol in a key */
+    static int arity(Object symbol) {
+        if (symbol instanceof Long) {
+            long h = (Long) symbol;
+            return ((h & 1) != 0) ? 0 : (int) ((h >>> 1) & 0xffffffffL);
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root.children = null;
+        root.values = null;
+        size = 0;
+    }
+
+    /** @return true if added, false if already present */
+    public boolean put(V v) {
+        Node<V> n = root;
+        for (Object s : new Key(v.getTerm()).symbols) {
+            if (n.children == null)
+                n.children = Global.newHashMap(4);
+            n = n.children.computeIfAbsent(s, k -> new Node<>());
+        }
+
+        if (n.values == null)
+            n.values = Global.newArrayList(1);
+        else if (indexOf(n.values, v) != -1)
+            return false;
+
+        n.values.add(v);
+        size++;
+        return true;
+    }
+
+    /** @return true if it was present */
+    public boolean remove(V v) {
+        List<Object> symbols = new Key(v.getTerm()).symbols;
+
+        @SuppressWarnings("unchecked")
+        Node<V>[] path = new Node[symbols.size() + 1];
+        Node<V> n = path[0] = root;
+        for (int i = 0; i < symbols.size(); i++) {
+            n = n.child(symbols.get(i));
+            if (n == null)
+                return false;
+            path[i + 1] = n;
+        }
+
+        int i = (n.values == null) ? -1 : indexOf(n.values, v);
+        if (i == -1)
+            return false;
+        n.values.remove(i);
+        size--;
+
+        //prune the emptied branch
+        for (int j = symbols.size(); j > 0 && path[j].isEmpty(); j--)
+            path[j - 1].children.remove(symbols.get(j - 1));
+
+        return true;
+    }
+
+    private static int indexOf(List<?> l, Object v) {
+        for (int i = 0; i < l.size(); i++)
+            if (l.get(i) == v) return i;
+        return -1;
+    }
+
+    /** supplies each indexed value whose term may unify with the pattern */
+    public void forEachUnifiable(Term pattern, Consumer<? super V> each) {
+        Key k = new Key(pattern);
+        retrieve(root, k, 0, each);
+    }
+
+    private void retrieve(Node<V> n, Key k, int i, Consumer<? super V> each) {
+        if (i == k.length()) {
+            if (n.values != null)
+                n.values.forEach(each);
+            return;
+        }
+        if (n.children == null)
+            return;
+
+        Object s = k.symbols.get(i);
+        if (s == VAR) {
+            //the pattern's variable matches any one indexed subterm
+            skip(n, 1, k, i + 1, each);
+            return;
+        }
+
+        Node<V> c = n.children.get(s);
+        if (c != null)
+            retrieve(c, k, i + 1, each);
+
+        //an indexed variable matches the pattern's subterm
+        Node<V> v = n.children.get(VAR);
+        if (v != null)
+            retrieve(v, k, k.end[i], each);
+    }
+
+    /** skips 'pending' indexed subterms, then continues retrieval at the pattern's symbol i */
+    private void skip(Node<V> n, int pending, Key k, int i, Consumer<? super V> each) {
+        if (pending == 0) {
+            retrieve(n, k, i, each);
+            return;
+        }
+        if (n.children == null)
+            return;
+        n.children.forEach((s, c) -> skip(c, pending - 1 + arity(s), k, i, each));
+    }
+}
@@ -0,0 +1,206 @@
+package nars.term.transform;
+
+import nars.term.Term;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Variable bindings of a unification, held in arrays in the order they were
+ * bound, with a trail of every change so that a branch of the search is
+ * undone by truncating the trail instead of copying the map.
+ * <p>
+ * mark() returns the current end of the trail; undo(mark) reverts, last
+ * first, each change made since, including clear().  Lookups compare keys
+ * linearly, which is faster than hashing for the few bindings of a match.
+ * Entries can not be removed individually.
+ */
+public final class Bindings extends AbstractMap<Term, Term> {
+
+    /** kinds of trail entries */
+    static final int APPEND = 0, SET = 1, CLEAR = 2;
+
+    private Term[] keys, values;
+    private int size;
+
+    /** (index << 2) | kind of each change, with the key and value it replaced */
+    private int[] trail;
+    private Term[] trailKey, trailValue;
+    private int trailSize;
+
+    public Bindings() {
+        this(4);
+    }
+
+    public Bindings(int capacity) {
+        capacity = Math.max(capacity, 1);
+        keys = new Term[capacity];
+        values = new Term[capacity];
+        trail = new int[capacity];
+        trailKey = new Term[capacity];
+        trailValue = new Term[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int indexOf(final Object k) {
+        final Term[] keys = this.keys;
+        final int h = k.hashCode();
+        for (int i = 0; i < size; i++) {
+            final Term x = keys[i];
+            if (x == k || (x.hashCode() == h && x.equals(k)))
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public Term get(final Object k) {
+        int i = indexOf(k);
+        return (i == -1) ? null : values[i];
+    }
+
+    @Override
+    public boolean containsKey(final Object k) {
+        return indexOf(k) != -1;
+    }
+
+    @Override
+    public Term put(final Term k, final Term v) {
+        int i = indexOf(k);
+        if (i != -1) {
+            Term prev = values[i];
+            if (prev != v) {
+                log(i, SET);
+                values[i] = v;
+            }
+            return prev;
+        }
+
+        i = size;
+        if (i == keys.length) {
+            keys = Arrays.copyOf(keys, i * 2);
+            values = Arrays.copyOf(values, i * 2);
+        }
+        log(i, APPEND);
+        keys[i] = k;
+        values[i] = v;
+        size++;
+        return null;
+    }
+
+    /** empties the map; undone by undo() like any other change */
+    @Override
+    public void clear() {
+        if (size == 0) return;
+        log(size, CLEAR);
+        size = 0;
+    }
+
+    /** empties the map and its trail */
+    public void reset() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        Arrays.fill(trailKey, 0, trailSize, null);
+        Arrays.fill(trailValue, 0, trailSize, null);
+        size = trailSize = 0;
+    }
+
+    private void log(int index, int kind) {
+        int t = trailSize;
+        if (t == trail.length) {
+            trail = Arrays.copyOf(trail, t * 2);
+            trailKey = Arrays.copyOf(trailKey, t * 2);
+            trailValue = Arrays.copyOf(trailValue, t * 2);
+        }
+        trail[t] = (index << 2) | kind;
+        if (kind != CLEAR) {
+            trailKey[t] = keys[index];
+            trailValue[t] = values[index];
+        }
+        trailSize = t + 1;
+    }
+
+    /** the current end of the trail */
+    public int mark() {
+        return trailSize;
+    }
+
+    /** reverts the changes made since mark() returned 'mark' */
+    public void undo(final int mark) {
+        final int[] trail = this.trail;
+        for (int t = trailSize - 1; t >= mark; t--) {
+            int i = trail[t] >>> 2;
+            switch (trail[t] & 3) {
+                case APPEND:
+                    size = i;
+                    //fall-through: restore what the append overwrote, in case a clear() preceded it
+                case SET:
+                    keys[i] = trailKey[t];
+                    values[i] = trailValue[t];
+                    break;
+                case CLEAR:
+                    size = i;
+                    break;
+            }
+            trailKey[t] = trailValue[t] = null;
+        }
+        trailSize = Math.min(trailSize, mark);
+    }
+
+    /** replaces the contents with another's, with an empty trail */
+    public void copyFrom(final Bindings b) {
+        reset();
+        final int n = b.size;
+        if (keys.length < n) {
+            keys = new Term[b.keys.length];
+            values = new Term[b.keys.length];
+        }
+        System.arraycopy(b.keys, 0, keys, 0, n);
+        System.arraycopy(b.values, 0, values, 0, n);
+        size = n;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super Term, ? super Term> each) {
+        for (int i = 0; i < size; i++)
+            each.accept(keys[i], values[i]);
+    }
+
+    @Override
+    public Set<Entry<Term, Term>> entrySet() {
+        return new AbstractSet<Entry<Term, Term>>() {
+            @Override
+            public Iterator<Entry<Term, Term>> iterator() {
+                return new Iterator<Entry<Term, Term>>() {
+                    int i;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < size;
+                    }
+
+                    @Override
+                    public Entry<Term, Term> next() {
+                        if (i >= size) throw new NoSuchElementException();
+                        int j = i++;
+                        return new SimpleImmutableEntry<>(keys[j], values[j]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+}
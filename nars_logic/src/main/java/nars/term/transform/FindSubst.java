@@ -34,29 +34,18 @@ public class FindSubst extends Subst {
     }
 
     public FindSubst(Op type, Random random) {
-        this(type, newDefaultMap(), newDefaultMap(), random);
+        this(type, new Bindings(), new Bindings(), random);
     }
 
-    private static final Map<Term,Term> newDefaultMap() {
-        return Global.newHashMap(0);
-    }
-
-    public FindSubst(Op type, Map<Term, Term> xy, Map<Term, Term> yx, Random random) {
+    public FindSubst(Op type, Bindings xy, Bindings yx, Random random) {
         super(random, type, xy, yx);
     }
 
 
     @Override
     public final Subst clone() {
-        FindSubst x = new FindSubst(type,
-                Global.newHashMap(xy),
-                Global.newHashMap(yx),
-                random);
-        x.parent = parent;
-        x.xyChanged = xyChanged; //necessary?
-        x.yxChanged = yxChanged; //necessary?
-        x.y = y;
-        x.power = power;
+        FindSubst x = new FindSubst(type, new Bindings(), new Bindings(), random);
+        copyTo(x);
         return x;
     }
 
@@ -605,14 +594,12 @@ public class FindSubst extends Subst {
 
         final ShuffleTermVector perm = new ShuffleTermVector(random, x);
 
-        final Map<Term, Term> xy = this.xy; //local copy on stack
-        final Map<Term, Term> yx = this.yx; //local copy on stack
+        final Bindings xy = this.xy; //local copy on stack
+        final Bindings yx = this.yx; //local copy on stack
 
-
-        //push/save:
-        final Map<Term, Term> savedXY = Global.newHashMap(xy);
-        final Map<Term, Term> savedYX = Global.newHashMap(yx);
-        xyChanged = yxChanged = false;
+        //choice point
+        final int xyMark = xy.mark();
+        final int yxMark = yx.mark();
 
         boolean matched = false;
 
@@ -632,16 +619,9 @@ public class FindSubst extends Subst {
 
             //try again; invert negated power back to a positive value for next attempt
 
-            //pop/restore
-            if (yxChanged) {
-                yxChanged = false;
-                restore(savedYX, yx);
-            }
-
-            if (xyChanged) {
-                xyChanged = false;
-                restore(savedXY, xy);
-            }
+            //backtrack
+            yx.undo(yxMark);
+            xy.undo(xyMark);
 
             //ready to continue on next permutation
 
@@ -663,14 +643,12 @@ public class FindSubst extends Subst {
 
         final ShuffleTermVector perm = new ShuffleTermVector(random, x);
 
-        final Map<Term, Term> xy = this.xy; //local copy on stack
-        final Map<Term, Term> yx = this.yx; //local copy on stack
-
+        final Bindings xy = this.xy; //local copy on stack
+        final Bindings yx = this.yx; //local copy on stack
 
-        //push/save:
-        final Map<Term, Term> savedXY = Global.newHashMap(xy);
-        final Map<Term, Term> savedYX = Global.newHashMap(yx);
-        xyChanged = yxChanged = false;
+        //choice point
+        final int xyMark = xy.mark();
+        final int yxMark = yx.mark();
 
         boolean matched = false;
 
@@ -690,16 +668,9 @@ public class FindSubst extends Subst {
 
             //try again; invert negated power back to a positive value for next attempt
 
-            //pop/restore
-            if (yxChanged) {
-                yxChanged = false;
-                restore(savedYX, yx);
-            }
-
-            if (xyChanged) {
-                xyChanged = false;
-                restore(savedXY, xy);
-            }
+            //backtrack
+            yx.undo(yxMark);
+            xy.undo(xyMark);
 
             //ready to continue on next permutation
 
@@ -731,17 +702,11 @@ public class FindSubst extends Subst {
     }
 
     private final void yxPut(Variable y, Term x) {
-        yxChanged|= (yx.put(y, x)!=x);
+        yx.put(y, x);
     }
 
     private final void xyPut(Variable x, Term y) {
-        xyChanged|= (xy.put(x, y)!=y);
-    }
-
-
-    private static void restore(Map<Term, Term> savedCopy, Map<Term, Term> originToRevert) {
-        originToRevert.clear();
-        originToRevert.putAll(savedCopy);
+        xy.put(x, y);
     }
 
     private boolean matchFork(final PatternOp[] code, int ip, Object calleeFrame, final Term Y) {
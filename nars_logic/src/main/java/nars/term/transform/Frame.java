@@ -5,7 +5,6 @@ import nars.term.Compound;
 import nars.term.Term;
 import nars.term.Variable;
 
-import java.util.Map;
 import java.util.Random;
 
 /**
@@ -25,18 +24,24 @@ abstract public class Frame {
     /**
      * X var -> Y term mapping
      */
-    protected final Map<Term, Term> xy;
-    protected boolean xyChanged = false;
+    protected final Bindings xy;
 
     /**
      * Y var -> X term mapping
      */
-    protected final Map<Term, Term> yx;
-    protected boolean yxChanged = false;
+    protected final Bindings yx;
 
     public int power;
 
-    public Frame(final Random random, final Op type, Map<Term, Term> xy, Map<Term, Term> yx) {
+    /** a state of a frame to which it can backtrack */
+    public static final class ChoicePoint {
+        int xy, yx;
+        Term y;
+        Compound parent;
+        int power;
+    }
+
+    public Frame(final Random random, final Op type, Bindings xy, Bindings yx) {
         this.random = random;
         this.type = type;
         this.yx = yx;
@@ -53,23 +58,38 @@ abstract public class Frame {
 
 
     public void clear() {
-        xy.clear();
-        yx.clear();
+        xy.reset();
+        yx.reset();
         y = null;
         parent = null;
-        xyChanged = yxChanged = false;
     }
 
     public void copyTo(Frame m) {
-        m.xy.clear(); m.xy.putAll(xy);
-        m.yx.clear(); m.yx.putAll(yx);
+        m.xy.copyFrom(xy);
+        m.yx.copyFrom(yx);
         m.y = y;
         m.parent = parent;
-        m.xyChanged = false; //xyChanged;
-        m.yxChanged = false; //yxChanged;
         m.power = power;
     }
 
+    /** saves the current state in c */
+    public final void choice(ChoicePoint c) {
+        c.xy = xy.mark();
+        c.yx = yx.mark();
+        c.y = y;
+        c.parent = parent;
+        c.power = power;
+    }
+
+    /** returns to the state saved in c, undoing the bindings made since */
+    public final void backtrack(ChoicePoint c) {
+        xy.undo(c.xy);
+        yx.undo(c.yx);
+        y = c.y;
+        parent = c.parent;
+        power = c.power;
+    }
+
 
     @Override
     public String toString() {
@@ -79,9 +99,7 @@ abstract public class Frame {
                 ", y=" + y +
                 ", parent=" + parent +
                 ", xy=" + xy +
-                ", xyChanged=" + xyChanged +
                 ", yx=" + yx +
-                ", yxChanged=" + yxChanged +
                 ", power=" + power +
                 '}';
     }
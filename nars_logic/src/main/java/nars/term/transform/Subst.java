@@ -10,7 +10,7 @@ import java.util.Random;
 
 public abstract class Subst extends Frame {
 
-    public Subst(Random random, Op type, Map<Term, Term> xy, Map<Term, Term> yx) {
+    public Subst(Random random, Op type, Bindings xy, Bindings yx) {
         super(random, type, xy, yx);
     }
 
@@ -18,6 +18,11 @@ public class FrameClock implements Clock {
         return t;
     }
 
+    /** sets the time, ex: when restoring a checkpoint */
+    public void set(long t) {
+        this.t = t;
+    }
+
 
     @Override
     public final void preFrame(Memory m) {
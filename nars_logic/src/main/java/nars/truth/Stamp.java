@@ -75,6 +75,35 @@ public interface Stamp extends Interval, Cloneable, Serializable {
         return c;
     }
 
+    /** scratch space of zipSet */
+    ThreadLocal<long[]> zipBuffer = ThreadLocal.withInitial(() -> new long[Global.MAXIMUM_EVIDENTAL_BASE_LENGTH]);
+
+    /**
+     * equivalent to toSetArray(zip(a, b)), allocating only the result
+     */
+    static long[] zipSet(final long[] a, final long[] b) {
+        final int baseLength = Math.min(a.length + b.length, Global.MAXIMUM_EVIDENTAL_BASE_LENGTH);
+
+        long[] c = zipBuffer.get();
+        if (c.length < baseLength)
+            zipBuffer.set(c = new long[baseLength]);
+
+        int n = Math.min(b.length, baseLength);
+        System.arraycopy(b, 0, c, 0, n);
+        int m = Math.min(a.length, baseLength - n);
+        System.arraycopy(a, 0, c, n, m);
+        n += m;
+
+        Arrays.sort(c, 0, n);
+
+        int uniques = (n > 0) ? 1 : 0;
+        for (int i = 1; i < n; i++) {
+            if (c[i] != c[uniques - 1])
+                c[uniques++] = c[i];
+        }
+        return Arrays.copyOf(c, uniques);
+    }
+
     static long[] toSetArray(final long[] x) {
         final int l = x.length;
 
@@ -120,29 +149,51 @@ public interface Stamp extends Interval, Cloneable, Serializable {
      * true if there are any common elements; assumes the arrays are sorted and contain no duplicates
      */
     static boolean overlapping(final long[] a, final long[] b) {
-
-        /** TODO there may be additional ways to exit early from this loop */
-
-        for (long x : a) {
-            for (long y : b) {
-                if (x == y) {
-                    return true;
-                } else if (y > x) {
-                    //any values after y in b will not be equal to x
-                    break;
-                }
-            }
+        final int al = a.length, bl = b.length;
+        if (al == 0 || bl == 0)
+            return false;
+
+        //disjoint ranges
+        if (a[al - 1] < b[0] || b[bl - 1] < a[0])
+            return false;
+
+        int i = 0, j = 0;
+        while (i < al && j < bl) {
+            final long x = a[i], y = b[j];
+            if (x == y) return true;
+            if (x < y) i++;
+            else j++;
         }
         return false;
     }
 
+    static boolean overlapping(final long[] a, final long aSignature, final long[] b, final long bSignature) {
+        //no common bit: no common element
+        if ((aSignature & bSignature) == 0)
+            return false;
+        return overlapping(a, b);
+    }
+
     static boolean overlapping(final Sentence a, final Sentence b) {
 
 
         if (a == b) return true;
         if (b == null) return false;
 
-        return overlapping(a.getEvidence(), b.getEvidence());
+        return overlapping(a.getEvidence(), a.getEvidenceSignature(),
+                b.getEvidence(), b.getEvidenceSignature());
+    }
+
+    /**
+     * Bloom signature of an evidential base: one bit, chosen by a hash of the
+     * serial, per element.  Bases whose signatures share no bit have no
+     * common element; sharing a bit is inconclusive.
+     */
+    static long signature(final long[] evidence) {
+        long s = 0;
+        for (long x : evidence)
+            s |= 1L << ((x * 0x9E3779B97F4A7C15L) >>> 58);
+        return s;
     }
 
 
@@ -343,6 +394,11 @@ public interface Stamp extends Interval, Cloneable, Serializable {
      */
     long[] getEvidence();
 
+    /** signature(getEvidence()), which implementations may cache */
+    default long getEvidenceSignature() {
+        return signature(getEvidence());
+    }
+
     Stamp setEvidence(long... evidentialSet);
 
 
@@ -0,0 +1,413 @@
+package nars.util.io;
+
+import com.gs.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import nars.Global;
+import nars.Narsese;
+import nars.Op;
+import nars.budget.Budget;
+import nars.nal.meta.Ellipsis;
+import nars.nal.nal4.Image;
+import nars.nal.nal4.ImageExt;
+import nars.nal.nal4.ImageInt;
+import nars.nal.nal7.CyclesInterval;
+import nars.nal.nal7.Sequence;
+import nars.nal.nal8.Operator;
+import nars.task.DefaultTask;
+import nars.task.Task;
+import nars.term.Atom;
+import nars.term.Compound;
+import nars.term.Term;
+import nars.term.Terms;
+import nars.term.Variable;
+import nars.truth.DefaultTruth;
+import nars.truth.Stamp;
+import nars.truth.Truth;
+import nars.util.utf8.Utf8;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Versioned binary format for terms, truth, budgets, evidence and tasks.
+ * <p>
+ * Terms are written as their Op ordinal followed by, for compounds, a varint
+ * subterm count and the subterms (and the relation index of an image, or the
+ * intervals of a sequence).  Atomic terms are written in full the first time
+ * they occur in a stream and afterward as a varint index into the stream's
+ * atom dictionary.  Integers are LEB128 varints, zigzag encoded where they
+ * may be negative; evidence is delta encoded.
+ * <p>
+ * A Decoder reads directly from a ByteBuffer, which may be a direct or
+ * memory-mapped buffer, so a stream need not be copied to the heap before
+ * decoding.
+ * <p>
+ * The task parent and solution references and the task log are not encoded.
+ */
+public final class BinaryCodec {
+
+    /** "NARB" */
+    public static final int MAGIC = 0x4E415242;
+    public static final int VERSION = 1;
+
+    /** tag of a reference to a previously written atomic term */
+    static final int REF = 0xff;
+    /** tag of an atomic term without a dedicated encoding, written as Narsese */
+    static final int TEXT = 0xfe;
+
+    static final int TASK_TRUTH = 1, TASK_ETERNAL = 2;
+
+    private BinaryCodec() {
+    }
+
+    public static byte[] encode(Term t) {
+        return new Encoder(32).term(t).toArray();
+    }
+
+    public static Term decodeTerm(byte[] b) {
+        return new Decoder(ByteBuffer.wrap(b)).term();
+    }
+
+    public static byte[] encode(Task t) {
+        return new Encoder(64).task(t).toArray();
+    }
+
+    public static Task decodeTask(byte[] b) {
+        return new Decoder(ByteBuffer.wrap(b)).task();
+    }
+
+
+    public static final class Encoder {
+
+        private byte[] buf;
+        private int len;
+
+        private final ObjectIntHashMap<Term> atoms = new ObjectIntHashMap<>();
+
+        public Encoder() {
+            this(256);
+        }
+
+        /** begins a stream with the header */
+        public Encoder(int initialCapacity) {
+            this.buf = new byte[Math.max(16, initialCapacity)];
+            int32(MAGIC);
+            varint(VERSION);
+        }
+
+        private void ensure(int n) {
+            if (len + n > buf.length)
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, len + n));
+        }
+
+        public Encoder u8(int b) {
+            ensure(1);
+            buf[len++] = (byte) b;
+            return this;
+        }
+
+        public Encoder int32(int x) {
+            ensure(4);
+            buf[len++] = (byte) (x >>> 24);
+            buf[len++] = (byte) (x >>> 16);
+            buf[len++] = (byte) (x >>> 8);
+            buf[len++] = (byte) x;
+            return this;
+        }
+
+        public Encoder float32(float f) {
+            return int32(Float.floatToIntBits(f));
+        }
+
+        public Encoder varint(long x) {
+            ensure(10);
+            while ((x & ~0x7fL) != 0) {
+                buf[len++] = (byte) ((x & 0x7f) | 0x80);
+                x >>>= 7;
+            }
+            buf[len++] = (byte) x;
+            return this;
+        }
+
+        public Encoder zigzag(long x) {
+            return varint((x << 1) ^ (x >> 63));
+        }
+
+        public Encoder bytes(byte[] b) {
+            varint(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, len, b.length);
+            len += b.length;
+            return this;
+        }
+
+        public Encoder term(Term t) {
+            if (t instanceof Compound) {
+                compound((Compound) t);
+                return this;
+            }
+
+            Op o = t.op();
+            if (o == Op.INTERVAL && t instanceof CyclesInterval) {
+                u8(o.ordinal());
+                varint(((CyclesInterval) t).duration());
+                return this;
+            }
+
+            int ref = atoms.getIfAbsent(t, -1);
+            if (ref != -1) {
+                u8(REF);
+                varint(ref);
+                return this;
+            }
+
+            if (t.getClass() == Atom.class || (t instanceof Variable && !(t instanceof Ellipsis))) {
+                u8(o.ordinal());
+                bytes(t.bytes());
+            } else if (t.getClass() == Operator.class) {
+                u8(o.ordinal());
+                term(((Operator) t).identifier());
+            } else {
+                u8(TEXT);
+                bytes(Utf8.toUtf8(t.toString()));
+            }
+
+            atoms.put(t, atoms.size());
+            return this;
+        }
+
+        private void compound(Compound c) {
+            Op o = c.op();
+            u8(o.ordinal());
+
+            int n = c.size();
+            varint(n);
+            for (int i = 0; i < n; i++)
+                term(c.term(i));
+
+            if (c instanceof Image) {
+                varint(((Image) c).relationIndex);
+            } else if (c instanceof Sequence) {
+                for (int x : ((Sequence) c).intervals())
+                    varint(x);
+            }
+        }
+
+        public Encoder truth(Truth t) {
+            float32(t.getFrequency());
+            float32(t.getConfidence());
+            return this;
+        }
+
+        public Encoder budget(Budget b) {
+            float32(b.getPriority());
+            float32(b.getDurability());
+            float32(b.getQuality());
+            zigzag(b.getLastForgetTime());
+            return this;
+        }
+
+        public Encoder evidence(long[] e) {
+            varint(e.length);
+            long prev = 0;
+            for (long x : e) {
+                zigzag(x - prev);
+                prev = x;
+            }
+            return this;
+        }
+
+        public Encoder task(Task t) {
+            Truth truth = t.getTruth();
+            long occ = t.getOccurrenceTime();
+            long creation = t.getCreationTime();
+
+            u8(((truth != null) ? TASK_TRUTH : 0) | ((occ == Stamp.ETERNAL) ? TASK_ETERNAL : 0));
+            u8(t.getPunctuation());
+            term(t.getTerm());
+            if (truth != null)
+                truth(truth);
+            budget(t.getBudget());
+            zigzag(creation);
+            if (occ != Stamp.ETERNAL)
+                zigzag(occ - creation);
+            varint(Math.max(0, t.duration()));
+            evidence(t.getEvidence());
+            return this;
+        }
+
+        public int length() {
+            return len;
+        }
+
+        public byte[] toArray() {
+            return Arrays.copyOf(buf, len);
+        }
+
+        /** a buffer over the encoded bytes, without copying */
+        public ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, len);
+        }
+
+        public void writeTo(DataOutput out) throws IOException {
+            out.write(buf, 0, len);
+        }
+    }
+
+
+    public static final class Decoder {
+
+        private final ByteBuffer in;
+        private final List<Term> atoms = Global.newArrayList();
+
+        /** reads the stream header at the buffer's position */
+        public Decoder(ByteBuffer in) {
+            this.in = in;
+
+            int magic = in.getInt();
+            if (magic != MAGIC)
+                throw new RuntimeException("not a binary NARS stream: " + Integer.toHexString(magic));
+            int version = (int) varint();
+            if (version != VERSION)
+                throw new RuntimeException("unsupported binary NARS stream version: " + version);
+        }
+
+        public boolean hasRemaining() {
+            return in.hasRemaining();
+        }
+
+        public int u8() {
+            return in.get() & 0xff;
+        }
+
+        public long varint() {
+            long x = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                x |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return x;
+        }
+
+        public long zigzag() {
+            long x = varint();
+            return (x >>> 1) ^ -(x & 1);
+        }
+
+        public byte[] bytes() {
+            byte[] b = new byte[(int) varint()];
+            in.get(b);
+            return b;
+        }
+
+        public Term term() {
+            int tag = u8();
+
+            if (tag == REF)
+                return atoms.get((int) varint());
+
+            if (tag == TEXT) {
+                Term t = Narsese.the().term(Utf8.fromUtf8toString(bytes()));
+                atoms.add(t);
+                return t;
+            }
+
+            Op o = Op.values()[tag];
+            switch (o) {
+                case INTERVAL:
+                    return CyclesInterval.make((int) varint());
+                case ATOM: {
+                    Term t = Atom.the(bytes());
+                    atoms.add(t);
+                    return t;
+                }
+                case VAR_DEPENDENT:
+                case VAR_INDEPENDENT:
+                case VAR_QUERY:
+                case VAR_PATTERN: {
+                    Term t = Variable.the(o, bytes());
+                    atoms.add(t);
+                    return t;
+                }
+                case OPERATOR: {
+                    Term t = Operator.the(term());
+                    atoms.add(t);
+                    return t;
+                }
+                default:
+                    return compound(o);
+            }
+        }
+
+        private Term compound(Op o) {
+            Term[] t = new Term[(int) varint()];
+            for (int i = 0; i < t.length; i++)
+                t[i] = term();
+
+            switch (o) {
+                case IMAGE_EXT:
+                    return new ImageExt(t, (int) varint());
+                case IMAGE_INT:
+                    return new ImageInt(t, (int) varint());
+                case SEQUENCE: {
+                    int[] intervals = new int[t.length + 1];
+                    for (int i = 0; i < intervals.length; i++)
+                        intervals[i] = (int) varint();
+                    return Sequence.makeSequence(t, intervals);
+                }
+                default:
+                    return Terms.term(o, t);
+            }
+        }
+
+        public Truth truth() {
+            float f = in.getFloat();
+            float c = in.getFloat();
+            return new DefaultTruth(f, c);
+        }
+
+        /** reads a budget into b */
+        public Budget budget(Budget b) {
+            b.setPriority(in.getFloat());
+            b.setDurability(in.getFloat());
+            b.setQuality(in.getFloat());
+            b.setLastForgetTime(zigzag());
+            return b;
+        }
+
+        public long[] evidence() {
+            long[] e = new long[(int) varint()];
+            long prev = 0;
+            for (int i = 0; i < e.length; i++)
+                e[i] = prev += zigzag();
+            return e;
+        }
+
+        public Task task() {
+            int flags = u8();
+            char punc = (char) u8();
+            Compound term = (Compound) term();
+            Truth truth = ((flags & TASK_TRUTH) != 0) ? truth() : null;
+
+            DefaultTask t = new DefaultTask(term, punc, truth, 0, 0, 0);
+            budget(t.getBudget());
+
+            long creation = zigzag();
+            long occ = ((flags & TASK_ETERNAL) != 0) ? Stamp.ETERNAL : creation + zigzag();
+            t.setCreationTime(creation);
+            t.setOccurrenceTime(occ);
+
+            int duration = (int) varint();
+            if (duration > 0)
+                t.setDuration(duration);
+
+            t.setEvidence(evidence());
+            return t;
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package nars.util.io;
+
+import nars.Global;
+import nars.Memory;
+import nars.NAR;
+import nars.budget.Budget;
+import nars.concept.Concept;
+import nars.concept.util.ConceptBuilder;
+import nars.concept.util.TaskTable;
+import nars.link.TaskLink;
+import nars.link.TermLink;
+import nars.task.Task;
+import nars.term.Term;
+import nars.time.Clock;
+import nars.time.FrameClock;
+import nars.time.SimulatedClock;
+import nars.util.event.On;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Saves and restores the concepts of a NAR: their beliefs, goals, questions
+ * and quests, term and task links, budgets (which determine their priority
+ * in the concept bag), whether they are active, and the clock.
+ * <p>
+ * A full checkpoint replaces the file with every concept of the memory's
+ * index and of the active bag.  An incremental checkpoint appends only the
+ * concepts whose tasks changed (eventConceptChange) or which were activated
+ * since the previous checkpoint; when restored, the latest record of a
+ * concept supersedes the earlier ones.  Term and task links which are added,
+ * and budgets which change (by forgetting, or by a link's activation) without
+ * one of those events, are brought up to date by the next full checkpoint.
+ * Likewise a concept deactivated after its last record is restored as
+ * active until then.  The first checkpoint of an instance is always full,
+ * since changes before it were not tracked.
+ * <p>
+ * Concepts are encoded on the reasoner's thread, at a frame boundary when
+ * scheduled with saveNextFrame, so the reasoner is not stopped; the file is
+ * written on a background thread.
+ * <p>
+ * File layout: header (int magic, int version), then records of
+ * (int length, byte type, payload).  Each concept record is a separate
+ * BinaryCodec stream, so records are decoded in parallel from the mapped
+ * file on restore; the file is mapped in windows, so it may exceed 2GB.
+ * <p>
+ * A concept is removed from the changed set when it is encoded, and put
+ * back if the write fails, so the next checkpoint includes it.
+ */
+public class Checkpoint {
+
+    /** "NARC" */
+    public static final int MAGIC = 0x4E415243;
+    public static final int VERSION = 2;
+
+    static final byte CLOCK = 1, CONCEPT = 2;
+
+    /** bytes of the file mapped at a time on restore */
+    public static final long WINDOW = 64 * 1024 * 1024;
+
+    public static final class Stats {
+        public int concepts;
+        public long bytes;
+        public long encodeNS, writeNS;
+        public boolean incremental;
+
+        @Override
+        public String toString() {
+            return "Checkpoint{" +
+                    (incremental ? "incremental" : "full") +
+                    ", concepts=" + concepts +
+                    ", bytes=" + bytes +
+                    ", encode=" + encodeNS / 1000000 + "ms" +
+                    ", write=" + writeNS / 1000000 + "ms" +
+                    '}';
+        }
+    }
+
+    private final NAR nar;
+    public final Path path;
+
+    /** concepts changed or activated since the last checkpoint */
+    private final Set<Concept> changed = ConcurrentHashMap.newKeySet();
+
+    /** whether a checkpoint was written since changes were tracked */
+    private volatile boolean saved = false;
+
+    private final On onChange, onActivate;
+
+    /** writes one checkpoint at a time, in order */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public Checkpoint(NAR nar, Path path) {
+        this.nar = nar;
+        this.path = path;
+
+        Memory m = nar.memory;
+        onChange = m.eventConceptChange.on(changed::add);
+        onActivate = m.eventConceptActivated.on(changed::add);
+    }
+
+    /** stops tracking changes, after pending writes complete */
+    public void close() {
+        onChange.off();
+        onActivate.off();
+        writer.shutdown();
+    }
+
+    /**
+     * encodes the concepts at the start of the next frame (from any thread,
+     * while the NAR runs) and then writes them in the background
+     */
+    public CompletableFuture<Stats> saveNextFrame(boolean incremental) {
+        CompletableFuture<Stats> f = new CompletableFuture<>();
+        nar.beforeNextFrame(() -> save(incremental).whenComplete((s, e) -> {
+            if (e != null) f.completeExceptionally(e);
+            else f.complete(s);
+        }));
+        return f;
+    }
+
+    /**
+     * encodes the concepts on the calling thread, which should be the NAR's
+     * (or the NAR should not be running), and writes them in the background
+     */
+    public CompletableFuture<Stats> save(boolean incremental) {
+        Stats s = new Stats();
+        s.incremental = incremental && saved && Files.exists(path);
+
+        long start = System.nanoTime();
+        List<byte[]> records = Global.newArrayList();
+        records.add(clock(nar.time()));
+
+        //taken out of the changed set now, so a concept changing again
+        //during the write stays in it; put back if the write fails
+        List<Concept> taken = Global.newArrayList(changed.size());
+        for (Iterator<Concept> i = changed.iterator(); i.hasNext(); ) {
+            taken.add(i.next());
+            i.remove();
+        }
+
+        final Set<Term> active = Global.newHashSet(nar.memory.size());
+        nar.forEachConcept(c -> active.add(c.getTerm()));
+
+        if (s.incremental) {
+            for (Concept c : taken)
+                records.add(encode(c, active.contains(c.getTerm())));
+        } else {
+            //active concepts first, since the index may have evicted some
+            nar.forEachConcept(c -> records.add(encode(c, true)));
+            nar.memory.concepts.forEach(c -> {
+                if (!active.contains(c.getTerm()))
+                    records.add(encode(c, false));
+            });
+        }
+
+        s.concepts = records.size() - 1;
+        s.encodeNS = System.nanoTime() - start;
+
+        return CompletableFuture.supplyAsync(() -> {
+            long wstart = System.nanoTime();
+            try {
+                s.bytes = s.incremental ? append(records) : replace(records);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            s.writeNS = System.nanoTime() - wstart;
+            return s;
+        }, writer).whenComplete((x, e) -> {
+            if (e != null)
+                changed.addAll(taken);
+            else
+                saved = true;
+        });
+    }
+
+    /** a failed append is truncated away, so the records appended after it are still read */
+    private long append(List<byte[]> records) throws IOException {
+        try (FileChannel c = FileChannel.open(path, WRITE, APPEND)) {
+            long end = c.size();
+            try {
+                long n = write(c, records);
+                c.force(false);
+                return n;
+            } catch (IOException e) {
+                try {
+                    c.truncate(end);
+                } catch (IOException t) {
+                    e.addSuppressed(t);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /** writes a new file, then moves it over the previous, so a failed write leaves the previous checkpoint */
+    private long replace(List<byte[]> records) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        long n;
+        try (FileChannel c = FileChannel.open(tmp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            ByteBuffer h = ByteBuffer.allocate(8);
+            h.putInt(MAGIC).putInt(VERSION).flip();
+            while (h.hasRemaining()) c.write(h);
+
+            n = 8 + write(c, records);
+            c.force(false);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return n;
+    }
+
+    private static long write(FileChannel c, List<byte[]> records) throws IOException {
+        long n = 0;
+        ByteBuffer header = ByteBuffer.allocate(4);
+        for (byte[] r : records) {
+            header.clear();
+            header.putInt(r.length).flip();
+            while (header.hasRemaining()) c.write(header);
+
+            ByteBuffer b = ByteBuffer.wrap(r);
+            while (b.hasRemaining()) c.write(b);
+            n += 4 + r.length;
+        }
+        return n;
+    }
+
+    static byte[] clock(long time) {
+        return ByteBuffer.allocate(9).put(CLOCK).putLong(time).array();
+    }
+
+    /** type byte followed by a BinaryCodec stream */
+    static byte[] encode(Concept c, boolean active) {
+        BinaryCodec.Encoder e = new BinaryCodec.Encoder(512);
+
+        e.term(c.getTerm());
+        e.u8(active ? 1 : 0);
+        e.zigzag(c.getCreationTime());
+        e.budget(c.getBudget());
+
+        table(e, c.getBeliefs());
+        table(e, c.getGoals());
+        table(e, c.getQuestions());
+        table(e, c.getQuests());
+
+        e.varint(c.getTermLinks().size());
+        c.getTermLinks().forEach(l -> {
+            e.term(l.getTerm());
+            e.budget(l.getBudget());
+        });
+
+        e.varint(c.getTaskLinks().size());
+        c.getTaskLinks().forEach(l -> {
+            e.task(l.getTask());
+            e.budget(l.getBudget());
+        });
+
+        byte[] b = new byte[1 + e.length()];
+        b[0] = CONCEPT;
+        e.toByteBuffer().get(b, 1, e.length());
+        return b;
+    }
+
+    private static void table(BinaryCodec.Encoder e, TaskTable t) {
+        int s = t.size();
+        e.varint(s).varint(t.getCapacity());
+        int[] n = { 0 };
+        t.forEach(x -> {
+            if (n[0]++ < s) e.task(x);
+        });
+    }
+
+    /** a concept's contents decoded from a record, before it is built */
+    static final class Decoded {
+        Term term;
+        boolean active;
+        long creation;
+        final Budget budget = new Budget();
+        final Task[][] tables = new Task[4][];
+        final int[] capacities = new int[4];
+        Term[] termLinks;
+        Budget[] termLinkBudgets;
+        Task[] taskLinks;
+        Budget[] taskLinkBudgets;
+    }
+
+    static Decoded decode(ByteBuffer record) {
+        BinaryCodec.Decoder d = new BinaryCodec.Decoder(record);
+        Decoded x = new Decoded();
+
+        x.term = d.term();
+        x.active = d.u8() != 0;
+        x.creation = d.zigzag();
+        d.budget(x.budget);
+
+        for (int i = 0; i < 4; i++) {
+            Task[] t = x.tables[i] = new Task[(int) d.varint()];
+            x.capacities[i] = (int) d.varint();
+            for (int j = 0; j < t.length; j++)
+                t[j] = d.task();
+        }
+
+        int n = (int) d.varint();
+        x.termLinks = new Term[n];
+        x.termLinkBudgets = new Budget[n];
+        for (int i = 0; i < n; i++) {
+            x.termLinks[i] = d.term();
+            x.termLinkBudgets[i] = d.budget(new Budget());
+        }
+
+        n = (int) d.varint();
+        x.taskLinks = new Task[n];
+        x.taskLinkBudgets = new Budget[n];
+        for (int i = 0; i < n; i++) {
+            x.taskLinks[i] = d.task();
+            x.taskLinkBudgets[i] = d.budget(new Budget());
+        }
+        return x;
+    }
+
+    /**
+     * restores a checkpoint into a NAR, which should not be running.
+     * records are decoded in parallel; the concepts are then built, indexed,
+     * and those which were active activated, on the calling thread.
+     *
+     * @return the number of concepts restored
+     */
+    public static int restore(NAR nar, Path path) throws IOException {
+        return restore(nar, path, WINDOW);
+    }
+
+    static int restore(NAR nar, Path path, long window) throws IOException {
+        final Memory m = nar.memory;
+
+        final List<ByteBuffer> records = Global.newArrayList();
+        long time = -1;
+
+        try (FileChannel c = FileChannel.open(path, READ)) {
+            long size = c.size();
+
+            ByteBuffer h = ByteBuffer.allocate(8);
+            c.read(h, 0);
+            h.flip();
+            if (h.remaining() < 8 || h.getInt() != MAGIC)
+                throw new IOException("not a checkpoint: " + path);
+            int version = h.getInt();
+            if (version != VERSION)
+                throw new IOException("unsupported checkpoint version: " + version);
+
+            //mapped in windows, each starting at a record; a record crossing
+            //the end of a window starts the next
+            MappedByteBuffer w = null;
+            long wstart = 0, pos = 8;
+            while (size - pos >= 4) {
+                if (w == null || pos + 4 > wstart + w.limit()) {
+                    wstart = pos;
+                    w = c.map(FileChannel.MapMode.READ_ONLY, wstart, Math.min(window, size - wstart));
+                }
+
+                int len = w.getInt((int) (pos - wstart));
+                if (len < 1 || len > size - pos - 4)
+                    break; //truncated by an interrupted append
+
+                if (pos + 4 + len > wstart + w.limit()) {
+                    wstart = pos;
+                    w = c.map(FileChannel.MapMode.READ_ONLY, wstart, Math.min(Math.max(window, 4L + len), size - wstart));
+                }
+
+                ByteBuffer r = w.duplicate();
+                int from = (int) (pos - wstart) + 4;
+                r.limit(from + len).position(from);
+                r = r.slice();
+                pos += 4 + len;
+
+                byte type = r.get();
+                if (type == CLOCK) {
+                    time = r.getLong();
+                } else if (type == CONCEPT) {
+                    records.add(r.slice());
+                }
+            }
+        }
+
+        Decoded[] decoded = new Decoded[records.size()];
+        IntStream.range(0, decoded.length).parallel().forEach(i ->
+                decoded[i] = decode(records.get(i)));
+
+        if (time >= 0) {
+            Clock k = m.clock;
+            if (k instanceof FrameClock) ((FrameClock) k).set(time);
+            else if (k instanceof SimulatedClock) ((SimulatedClock) k).set(time);
+        }
+
+        //the latest record of each concept supersedes the earlier
+        Map<Term, Decoded> latest = Global.newHashMap(decoded.length);
+        for (Decoded d : decoded)
+            latest.put(d.term, d);
+
+        final ConceptBuilder builder = m.the(ConceptBuilder.class);
+        for (Decoded d : latest.values()) {
+            Term term = m.terms.get(d.term).getTerm();
+
+            Concept c = builder.apply(term);
+            c.setMemory(m);
+            build(c, d);
+
+            m.getConcepts().put(c);
+            if (d.active)
+                nar.conceptualize(term, d.budget);
+        }
+
+        return latest.size();
+    }
+
+    static void build(Concept c, Decoded d) {
+        c.setCreationTime(d.creation);
+        c.getBudget().budget(d.budget);
+
+        TaskTable[] tables = { c.getBeliefs(), c.getGoals(), c.getQuestions(), c.getQuests() };
+        for (int i = 0; i < 4; i++) {
+            TaskTable t = tables[i];
+            t.clear();
+            t.setCapacity(d.capacities[i]);
+            for (Task x : d.tables[i])
+                t.add(x);
+        }
+
+        for (int i = 0; i < d.termLinks.length; i++) {
+            TermLink l = new TermLink(d.termLinks[i], d.termLinkBudgets[i]);
+            l.budget(d.termLinkBudgets[i]);
+            c.getTermLinks().put(l);
+        }
+
+        for (int i = 0; i < d.taskLinks.length; i++) {
+            TaskLink l = new TaskLink(d.taskLinks[i]);
+            l.budget(d.taskLinkBudgets[i]);
+            c.getTaskLinks().put(l);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package nars.util.io;
+
+import nars.Global;
+import nars.task.DefaultTask;
+import nars.task.Task;
+import nars.util.utf8.Utf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only, memory-mapped journal of task provenance: each task's
+ * parents and log entries.  When a Memory has a journal, its tasks hold the
+ * offset of their journal record instead of references to their parents and
+ * a log list, so derivation history does not occupy the heap; it is read
+ * back, lazily, when a task's parents or log are requested.
+ * <p>
+ * A task is recorded in full (BinaryCodec) so that a parent is available
+ * after the original instance is forgotten; parents read from the journal
+ * are new instances, bound to their own records so that a chain of parents
+ * can be walked to its root.  A parent's log is the entries recorded with
+ * it; those added after it was journaled are only reachable from the
+ * original instance.  Log entries are recorded as text.
+ * <p>
+ * Records are immutable once written, so reads take no lock; only appends
+ * and mapping a new segment are synchronized.
+ * <p>
+ * The file is mapped in fixed size segments; a record never spans two.
+ * Records: int length, byte type, then
+ * <pre>
+ *   TASK: long parentTask, long parentBelief, BinaryCodec(task, varint count, log entries)
+ *   LOG:  long task, long previousLog, utf8 entry
+ * </pre>
+ * Ids are record offsets; NONE (-1) for an absent parent.
+ */
+public class ProvenanceJournal implements AutoCloseable {
+
+    public static final long NONE = -1;
+
+    static final byte TASK = 1, LOG = 2;
+
+    static final int HEADER = 4 + 1;
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    /** replaced, not modified, when a segment is mapped */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /** offset of the next record; written after the record's bytes */
+    private volatile long end = 0;
+
+    public ProvenanceJournal(Path file) throws IOException {
+        this(file, 64 * 1024 * 1024);
+    }
+
+    public ProvenanceJournal(Path file, int segmentSize) throws IOException {
+        this.channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING);
+        this.segmentSize = segmentSize;
+    }
+
+    /** a journal in a temporary file, deleted on exit */
+    public static ProvenanceJournal tmp() throws IOException {
+        Path p = Files.createTempFile("provenance", ".journal");
+        p.toFile().deleteOnExit();
+        return new ProvenanceJournal(p);
+    }
+
+    /** bytes written */
+    public long size() {
+        return end;
+    }
+
+    /** @return the task's id */
+    public long task(Task t, long parentTask, long parentBelief, List log) {
+        BinaryCodec.Encoder e = new BinaryCodec.Encoder(64);
+        e.task(t);
+        int n = (log == null) ? 0 : log.size();
+        e.varint(n);
+        for (int i = 0; i < n; i++)
+            e.bytes(Utf8.toUtf8(String.valueOf(log.get(i))));
+
+        int len = 1 + 16 + e.length();
+        synchronized (this) {
+            ByteBuffer b = reserve(len);
+            b.put(TASK).putLong(parentTask).putLong(parentBelief).put(e.toByteBuffer());
+            return commit(len);
+        }
+    }
+
+    /** @return the id of the entry, which is the task's next previousLog */
+    public long log(long task, long previousLog, Object entry) {
+        byte[] s = Utf8.toUtf8(String.valueOf(entry));
+        int len = 1 + 16 + s.length;
+        synchronized (this) {
+            ByteBuffer b = reserve(len);
+            b.put(LOG).putLong(task).putLong(previousLog).put(s);
+            return commit(len);
+        }
+    }
+
+    /** positions a buffer at the next record, after its length, skipping to a new segment if necessary */
+    private ByteBuffer reserve(int len) {
+        int total = 4 + len;
+        if (total > segmentSize)
+            throw new IllegalArgumentException("journal record larger than a segment: " + total);
+
+        long inSegment = end % segmentSize;
+        if (inSegment + total > segmentSize)
+            end += segmentSize - inSegment;
+
+        ByteBuffer b = segment(end).duplicate();
+        b.position((int) (end % segmentSize));
+        b.putInt(len);
+        return b;
+    }
+
+    private long commit(int len) {
+        long id = end;
+        end += 4 + len;
+        return id;
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        int s = (int) (offset / segmentSize);
+        MappedByteBuffer[] m = segments;
+        if (s < m.length)
+            return m[s];
+
+        synchronized (this) {
+            m = segments;
+            if (s >= m.length) {
+                MappedByteBuffer[] n = Arrays.copyOf(m, s + 1);
+                for (int i = m.length; i <= s; i++) {
+                    try {
+                        n[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                (long) i * segmentSize, segmentSize);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                segments = m = n;
+            }
+            return m[s];
+        }
+    }
+
+    /** position of a committed record's type byte in its segment */
+    private int position(long id, byte expectedType, ByteBuffer segment) {
+        if (id < 0 || id >= end)
+            throw new IllegalArgumentException("no journal record " + id);
+
+        int p = (int) (id % segmentSize) + 4;
+        if (segment.get(p) != expectedType)
+            throw new IllegalArgumentException("journal record " + id + " is not of type " + expectedType);
+        return p;
+    }
+
+    private ByteBuffer record(long id, byte expectedType) {
+        ByteBuffer b = segment(id).duplicate();
+        int p = position(id, expectedType, b);
+        b.limit(p + b.getInt(p - 4)).position(p + 1);
+        return b;
+    }
+
+    public long parentTask(long task) {
+        ByteBuffer s = segment(task);
+        return s.getLong(position(task, TASK, s) + 1);
+    }
+
+    public long parentBelief(long task) {
+        ByteBuffer s = segment(task);
+        return s.getLong(position(task, TASK, s) + 1 + 8);
+    }
+
+    /** decodes a recorded task, bound to its record, or null if NONE */
+    public Task get(long task) {
+        if (task == NONE) return null;
+        ByteBuffer b = record(task, TASK);
+        b.position(b.position() + 16);
+        Task t = new BinaryCodec.Decoder(b).task();
+        ((DefaultTask) t).journaled(this, task);
+        return t;
+    }
+
+    /** the task's log: the entries recorded with it, then those added after, ending at lastLog */
+    public List<String> log(long task, long lastLog) {
+        ByteBuffer b = record(task, TASK);
+        b.position(b.position() + 16);
+        BinaryCodec.Decoder d = new BinaryCodec.Decoder(b);
+        d.task();
+
+        int n = (int) d.varint();
+        List<String> l = Global.newArrayList(n);
+        for (int i = 0; i < n; i++)
+            l.add(Utf8.fromUtf8toString(d.bytes()));
+
+        List<String> later = Global.newArrayList();
+        for (long x = lastLog; x != NONE; ) {
+            ByteBuffer e = record(x, LOG);
+            e.getLong(); //task
+            x = e.getLong();
+            byte[] s = new byte[e.remaining()];
+            e.get(s);
+            later.add(Utf8.fromUtf8toString(s));
+        }
+        Collections.reverse(later);
+        l.addAll(later);
+        return l;
+    }
+
+    public void force() {
+        synchronized (this) {
+            for (MappedByteBuffer s : segments)
+                s.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        segments = new MappedByteBuffer[0];
+        channel.close();
+    }
+}
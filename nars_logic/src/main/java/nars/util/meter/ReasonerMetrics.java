@@ -0,0 +1,39 @@
+package nars.util.meter;
+
+import nars.util.meter.metric.Counter;
+import nars.util.meter.metric.LogHistogram;
+import nars.util.meter.metric.MetricRegistry;
+
+/**
+ * Counters updated by the reasoner as it runs, and the registry in which
+ * they, and the gauges of a particular NAR (see Default.initMetrics), are
+ * exported.  Unlike LogicMeter, nothing is computed per frame: counters
+ * are striped adds, and gauges are evaluated only when scraped.
+ */
+public class ReasonerMetrics {
+
+    public final MetricRegistry registry;
+
+    public final LogHistogram cycleTime;
+    public final Counter cycles;
+    public final Counter premises;
+    public final Counter derivations;
+    public final Counter inputs;
+    public final Counter conceptsCreated;
+    public final Counter conceptsEvicted;
+
+    public ReasonerMetrics() {
+        this(new MetricRegistry("nars"));
+    }
+
+    public ReasonerMetrics(MetricRegistry r) {
+        this.registry = r;
+        cycleTime = r.histogram("cycle_nanoseconds", "Duration of reasoning cycles");
+        cycles = r.counter("cycles_total", "Reasoning cycles run");
+        premises = r.counter("premises_total", "Premises formed from a tasklink and termlink");
+        derivations = r.counter("derivations_total", "Tasks derived");
+        inputs = r.counter("inputs_total", "Tasks input, including derived tasks");
+        conceptsCreated = r.counter("concepts_created_total", "Concepts created");
+        conceptsEvicted = r.counter("concepts_evicted_total", "Concepts displaced from the active bag");
+    }
+}
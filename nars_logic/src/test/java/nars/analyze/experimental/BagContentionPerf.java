@@ -0,0 +1,89 @@
+package nars.analyze.experimental;
+
+import nars.bag.Bag;
+import nars.bag.impl.ConcurrentCurveBag;
+import nars.bag.impl.CurveBag;
+import nars.bag.tx.BagForgetting;
+import nars.util.data.random.XorShift1024StarRandom;
+import nars.util.meter.bag.NullItem;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Throughput of a mixed put / remove / sample / forget workload on a
+ * ConcurrentCurveBag compared to a CurveBag guarded by a single lock,
+ * at 1, 4 and 16 threads
+ */
+public class BagContentionPerf {
+
+    static final int capacity = 1024;
+    static final int keys = 4096;
+    static final int opsPerThread = 500000;
+    static final int repeats = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        for (int threads : new int[] { 1, 4, 16 }) {
+            perf("CurveBag (locked)", threads, () -> new LockedCurveBag(capacity));
+            perf("ConcurrentCurveBag", threads, () -> new ConcurrentCurveBag<>(capacity, new XorShift1024StarRandom(1)));
+        }
+    }
+
+    static void perf(String name, int threads, Supplier<Bag<CharSequence, NullItem>> bag) throws InterruptedException {
+        long best = Long.MAX_VALUE;
+
+        for (int r = 0; r < repeats + 1; r++) {
+            Bag<CharSequence, NullItem> b = bag.get();
+
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (int t = 0; t < threads; t++) {
+                new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    run(b, opsPerThread);
+                    done.countDown();
+                }).start();
+            }
+
+            long s = System.nanoTime();
+            start.countDown();
+            done.await();
+            long t = System.nanoTime() - s;
+
+            if (r > 0) //first is warmup
+                best = Math.min(best, t);
+        }
+
+        double opsPerSec = ((double) threads) * opsPerThread / (best / 1.0e9);
+        System.out.println(name + "\tthreads=" + threads + "\t" + Math.round(opsPerSec / 1000) + " Kops/s");
+    }
+
+    static void run(Bag<CharSequence, NullItem> b, int ops) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        for (int i = 0; i < ops; i++) {
+            int o = r.nextInt(8);
+            if (o < 3) {
+                b.put(new NullItem(r.nextFloat(), Integer.toString(r.nextInt(keys))));
+            } else if (o == 3) {
+                b.remove(Integer.toString(r.nextInt(keys)));
+            } else if (o < 6) {
+                b.peekNext();
+            } else {
+                b.peekNext(new BagForgetting<CharSequence, NullItem>().set(10f, i));
+            }
+        }
+    }
+
+    /** the baseline: a single CurveBag serialized by one lock */
+    static final class LockedCurveBag extends ConcurrentCurveBag<CharSequence, NullItem> {
+        LockedCurveBag(int capacity) {
+            super(CurveBag.power6BagCurve, capacity, 1, new XorShift1024StarRandom(1));
+        }
+    }
+}
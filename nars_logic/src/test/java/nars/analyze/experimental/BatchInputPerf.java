@@ -0,0 +1,56 @@
+package nars.analyze.experimental;
+
+import nars.Global;
+import nars.NAR;
+import nars.nar.Default;
+import nars.task.Task;
+import nars.task.in.BatchInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ingestion throughput of BatchInput compared to parsing the same text as
+ * one TextInput and inputting its tasks one at a time
+ */
+public class BatchInputPerf {
+
+    static final int lines = 200000;
+
+    public static void main(String[] args) {
+        Global.DEBUG = false;
+
+        List<String> l = new ArrayList<>(lines);
+        Random r = new Random(1);
+        for (int i = 0; i < lines; i++)
+            l.add("<(*, e" + r.nextInt(lines / 4) + ", e" + r.nextInt(lines / 4) + ") --> r" + r.nextInt(16) + ">.");
+
+        for (int i = 0; i < 3; i++) {
+            text(l);
+            batch(l);
+        }
+    }
+
+    static void text(List<String> l) {
+        NAR n = new Default(1024, 1, 2, 3);
+
+        long start = System.nanoTime();
+        List<Task> tasks = n.tasks(String.join("\n", l));
+        int in = 0;
+        for (Task t : tasks) {
+            if (n.input(t)) in++;
+        }
+        double s = (System.nanoTime() - start) / 1.0e9;
+
+        System.out.println("TextInput\t" + in + " tasks, " + Math.round(in / s) + " tasks/s");
+    }
+
+    static void batch(List<String> l) {
+        NAR n = new Default(1024, 1, 2, 3);
+
+        BatchInput.Stats s = n.inputBatch(l.stream());
+
+        System.out.println("BatchInput\t" + s);
+    }
+}
@@ -0,0 +1,93 @@
+package nars.analyze.experimental;
+
+import nars.Global;
+import nars.Memory;
+import nars.NAR;
+import nars.bag.impl.CacheBag;
+import nars.nar.Default;
+import nars.task.in.FileInput;
+import nars.task.in.LibraryInput;
+import nars.term.compile.TermIndex;
+import nars.term.compile.WeakTermIndex;
+import nars.time.FrameClock;
+import nars.util.data.random.XorShift1024StarRandom;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares heap usage and cycle time of the default (normalizing only)
+ * term index against the hash-consing WeakTermIndex over the NAL test corpus
+ */
+public class TermIndexPerf {
+
+    static final int concepts = 1024;
+    static final int cycles = 1000;
+    static final int repeats = 3;
+    static final int warmups = 1;
+
+    public static void main(String[] args) throws IOException {
+
+        Global.DEBUG = false;
+
+        Collection<String> paths = LibraryInput.getUnitTests(
+                "test1", "test2", "test3", "test4", "test5", "test6", "test7", "test8").values();
+
+        List<String> scripts = new ArrayList<>(paths.size());
+        for (String p : paths)
+            scripts.add(FileInput.load(p));
+
+        System.out.println(scripts.size() + " scripts, " + cycles + " cycles each");
+
+        perf("default", scripts, () -> null);
+
+        WeakTermIndex w = new WeakTermIndex();
+        perf("weak", scripts, () -> w);
+        System.out.println(w);
+    }
+
+    static void perf(String name, List<String> scripts, Supplier<TermIndex> index) {
+
+        Performance p = new Performance(name, repeats, warmups, true) {
+
+            long totalCycles;
+
+            @Override
+            public void init() {
+                totalCycles = 0;
+            }
+
+            @Override
+            public void run(boolean warmup) {
+                for (String s : scripts) {
+                    NAR n = newNAR(index.get());
+                    n.input(s);
+                    n.frame(cycles);
+                    totalCycles += n.time();
+                }
+            }
+
+            @Override
+            public Performance print() {
+                System.out.print(name);
+                super.print();
+                System.out.print(", " + df.format(getCycleTimeMS() / totalCycles * 1000.0) + " uS/cycle");
+                return this;
+            }
+        };
+
+        p.print();
+        System.out.println();
+    }
+
+    static NAR newNAR(TermIndex index) {
+        Memory m = (index == null) ?
+                new Memory(new FrameClock(), CacheBag.memory(concepts)) :
+                new Memory(new FrameClock(), new XorShift1024StarRandom(1), CacheBag.memory(concepts), index);
+
+        return new Default(m, concepts, 1, 2, 3);
+    }
+}
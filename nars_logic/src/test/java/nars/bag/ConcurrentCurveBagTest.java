@@ -0,0 +1,81 @@
+package nars.bag;
+
+import nars.bag.impl.ConcurrentCurveBag;
+import nars.bag.impl.CurveBag;
+import nars.bag.tx.BagForgetting;
+import nars.util.data.random.XorShift1024StarRandom;
+import nars.util.meter.bag.NullItem;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by me on 12/5/15.
+ */
+public class ConcurrentCurveBagTest {
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        int capacity = 64;
+        ConcurrentCurveBag<CharSequence, NullItem> b = new ConcurrentCurveBag<>(capacity, new XorShift1024StarRandom(1));
+
+        int threads = 8;
+        ExecutorService exe = Executors.newFixedThreadPool(threads);
+        List<Future<?>> ff = new java.util.ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            ff.add(exe.submit(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                for (int i = 0; i < 20000; i++) {
+                    String k = Integer.toString(r.nextInt(256));
+                    switch (r.nextInt(4)) {
+                        case 0: b.put(new NullItem(r.nextFloat(), k)); break;
+                        case 1: b.remove(k); break;
+                        case 2: b.peekNext(); break;
+                        case 3: b.peekNext(new BagForgetting<CharSequence, NullItem>().set(10f, i)); break;
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : ff) f.get();
+        exe.shutdown();
+
+        assertTrue(b.size() <= capacity);
+        assertEquals(b.size(), b.keySet().size());
+        for (NullItem x : b)
+            assertSame(x, b.get(x.name()));
+    }
+
+    @Test
+    public void testSamplingMatchesCurveBag() {
+        int capacity = 1000;
+        ConcurrentCurveBag<CharSequence, NullItem> c = new ConcurrentCurveBag<>(capacity, new XorShift1024StarRandom(1));
+        CurveBag<CharSequence, NullItem> s = new CurveBag<>(capacity, new XorShift1024StarRandom(1));
+        s.mergeAverage();
+
+        for (int i = 0; i < capacity; i++) {
+            NullItem x = new NullItem(i / (float) capacity, Integer.toString(i));
+            c.put(x);
+            s.put(x);
+        }
+        assertEquals(capacity, c.size());
+
+        //fraction of samples from the top tenth of the priority range
+        double fc = topFraction(c, 0.9f), fs = topFraction(s, 0.9f);
+        assertEquals(fs, fc, 0.05);
+    }
+
+    static double topFraction(Bag<CharSequence, NullItem> b, float threshold) {
+        int samples = 20000, top = 0;
+        for (int i = 0; i < samples; i++) {
+            if (b.peekNext().getPriority() >= threshold)
+                top++;
+        }
+        return top / (double) samples;
+    }
+}
@@ -0,0 +1,154 @@
+package nars.bag;
+
+import nars.Memory;
+import nars.Narsese;
+import nars.bag.impl.CurveBag;
+import nars.bag.impl.MappedCacheBag;
+import nars.concept.Concept;
+import nars.link.TLink;
+import nars.nar.Default;
+import nars.task.Task;
+import nars.term.Term;
+import nars.time.FrameClock;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by me on 12/4/15.
+ */
+public class MappedCacheBagTest {
+
+    @Test
+    public void testSpillAndReload() throws IOException, Narsese.NarseseException {
+
+        //hot capacity above the active bag's, so that active concepts are not spilled
+        MappedCacheBag m = MappedCacheBag.temporary(8);
+
+        Default n = new Default(new Memory(new FrameClock(), m), 4, 1, 2, 3);
+        n.input("<a-->b>.", "<b-->c>.", "<c-->d>.", "<d-->e>.",
+                "<e-->f>.", "<f-->g>.", "<g-->h>.", "<h-->i>.").frame(8);
+
+        assertTrue(m.sizeHot() <= 8);
+        assertTrue(m.size() > m.sizeHot());
+        assertTrue(m.sizeBytes() > 0);
+
+        int size = m.size();
+        Concept c = n.concept("<a-->b>");
+        assertNotNull(c);
+        assertEquals("<a-->b>", c.getTerm().toString());
+
+        //re-loading a concept spills another one
+        assertEquals(size, m.size());
+
+        //the active concepts are the instances held here
+        n.core.active.forEach(a -> assertSame(a, n.concept(a.getTerm())));
+
+        m.delete();
+    }
+
+    @Test
+    public void testActiveNotSpilled() throws IOException {
+        Default n = new Default();
+        n.input("<a-->b>.", "<b-->c>.").frame(4);
+        Concept ab = n.concept("<a-->b>"), bc = n.concept("<b-->c>");
+
+        Bag<Term, Concept> active = new CurveBag(4, n.rng);
+        active.put(ab);
+
+        MappedCacheBag m = MappedCacheBag.temporary(1);
+        m.start(n.memory);
+        m.setActive(active);
+
+        m.put(ab);
+        m.put(bc); //ab is least recently used, but active
+        assertEquals(1, m.sizeHot());
+        assertEquals(2, m.size());
+        assertSame(ab, m.get(ab.getTerm()));
+
+        m.delete();
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        Default n = new Default();
+        n.input("<a-->b>.", "<b-->c>.", "<c-->d>.").frame(4);
+        Concept[] c = { n.concept("<a-->b>"), n.concept("<b-->c>"), n.concept("<c-->d>") };
+
+        MappedCacheBag m = MappedCacheBag.temporary(1);
+        m.start(n.memory);
+        for (Concept x : c)
+            m.put(x);
+
+        //each get re-loads one concept and spills another, leaving a dead record
+        for (int i = 0; i < 30; i++)
+            assertNotNull(m.get(c[i % c.length].getTerm()));
+
+        long before = m.sizeBytes();
+        m.compact();
+        assertTrue(m.sizeBytes() < before / 4);
+        assertEquals(3, m.size());
+
+        for (Concept x : c)
+            assertEquals(tasks(x.getBeliefs()), tasks(m.get(x.getTerm()).getBeliefs()));
+
+        m.delete();
+    }
+
+    /** a concept re-loaded from the file has the beliefs, links and budget it was spilled with */
+    @Test
+    public void testReloadedConceptSame() throws IOException {
+        Default n = new Default();
+        n.input("<a-->b>.", "<b-->c>.", "<a-->c>?", "<a-->b>. :|:").frame(8);
+
+        Concept c = n.concept("<a-->b>");
+        assertNotNull(c);
+        assertFalse(c.getBeliefs().isEmpty());
+        assertFalse(c.getTermLinks().isEmpty());
+        assertFalse(c.getTaskLinks().isEmpty());
+
+        MappedCacheBag m = MappedCacheBag.temporary(1);
+        m.start(n.memory);
+        m.put(c);
+        m.put(n.concept("<b-->c>")); //spills c
+        assertEquals(1, m.sizeHot());
+        assertEquals(2, m.size());
+
+        Concept r = m.get(c.getTerm());
+        assertNotNull(r);
+        assertNotSame(c, r);
+        assertEquals(c.getTerm(), r.getTerm());
+        assertEquals(c.getTerm().hashCode(), r.getTerm().hashCode());
+
+        assertEquals(tasks(c.getBeliefs()), tasks(r.getBeliefs()));
+        assertEquals(tasks(c.getQuestions()), tasks(r.getQuestions()));
+        assertEquals(links(c.getTermLinks()), links(r.getTermLinks()));
+        assertEquals(links(c.getTaskLinks()), links(r.getTaskLinks()));
+
+        assertEquals(c.getBudget().getPriority(), r.getBudget().getPriority(), 0.0001f);
+        assertEquals(c.getBudget().getDurability(), r.getBudget().getDurability(), 0.0001f);
+        assertEquals(c.getBudget().getQuality(), r.getBudget().getQuality(), 0.0001f);
+        assertEquals(c.getCreationTime(), r.getCreationTime());
+
+        m.delete();
+    }
+
+    static List<String> tasks(Iterable<Task> t) {
+        List<String> l = new ArrayList();
+        for (Task x : t)
+            l.add(x.getTerm() + " " + x.getPunctuation() + ' ' + x.getTruth() + ' ' + x.getOccurrenceTime());
+        return l;
+    }
+
+    static List<String> links(Iterable<? extends TLink> b) {
+        List<String> l = new ArrayList();
+        for (TLink x : b)
+            l.add(x.getTerm() + " " + x.getPriority());
+        l.sort(null);
+        return l;
+    }
+}
@@ -0,0 +1,89 @@
+package nars.bag;
+
+import nars.bag.impl.SlotBag;
+import nars.bag.tx.BagForgetting;
+import nars.budget.Budget;
+import nars.util.data.random.XorShift1024StarRandom;
+import nars.util.meter.bag.NullItem;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by me on 12/7/15.
+ */
+public class SlotBagTest {
+
+    @Test
+    public void testOrderAndCapacity() {
+        SlotBag<CharSequence, NullItem> b = new SlotBag<>(4, new XorShift1024StarRandom(1));
+
+        for (int i = 0; i < 8; i++)
+            b.put(new NullItem(i / 10f, Integer.toString(i)));
+
+        assertEquals(4, b.size());
+        assertNull(b.get("0"));
+
+        float prev = 1f;
+        for (NullItem x : b) {
+            assertTrue(x.getPriority() <= prev);
+            prev = x.getPriority();
+        }
+        assertEquals(0.7f, b.getPriorityMax(), 0.001f);
+        assertEquals(0.4f, b.getPriorityMin(), 0.001f);
+
+        //insufficient priority
+        NullItem low = new NullItem(0.1f, "low");
+        assertSame(low, b.put(low));
+
+        b.setCapacity(2);
+        assertEquals(2, b.size());
+        assertNotNull(b.get("7"));
+
+        b.setCapacity(8);
+        b.put(new NullItem(0.9f, "x"));
+        assertEquals(3, b.size());
+        assertEquals("x", b.iterator().next().name());
+    }
+
+    @Test
+    public void testForgettingMatchesBudget() {
+        SlotBag<CharSequence, NullItem> b = new SlotBag<>(4, new XorShift1024StarRandom(1));
+        NullItem x = new NullItem(0.8f, "x");
+        x.setDurability(0.5f);
+        x.setQuality(0.1f);
+        b.put(x);
+
+        Budget expected = new Budget(x.getBudget(), true);
+        expected.forget(10, 5f, 0);
+
+        BagForgetting<CharSequence, NullItem> f = new BagForgetting<>();
+        assertSame(x, b.peekNext(f.set(5f, 10)));
+
+        assertEquals(expected.getPriority(), x.getPriority(), 0.0001f);
+        assertEquals(10, x.getLastForgetTime());
+        assertEquals(x.getPriority(), b.getPriorityMax(), 0.0001f);
+    }
+
+    @Test
+    public void testForgettingFromLiveBudget() {
+        SlotBag<CharSequence, NullItem> b = new SlotBag<>(4, new XorShift1024StarRandom(1));
+        NullItem x = new NullItem(0.8f, "x");
+        x.setDurability(0.5f);
+        x.setQuality(0.1f);
+        b.put(x);
+
+        //changed while in the bag
+        x.setPriority(0.3f);
+        x.setDurability(0.9f);
+
+        Budget expected = new Budget(x.getBudget(), true);
+        expected.forget(10, 5f, 0);
+
+        BagForgetting<CharSequence, NullItem> f = new BagForgetting<>();
+        assertSame(x, b.peekNext(f.set(5f, 10)));
+
+        assertEquals(expected.getPriority(), x.getPriority(), 0.0001f);
+        assertEquals(x.getPriority(), b.getPriorityMax(), 0.0001f);
+    }
+}
@@ -0,0 +1,142 @@
+package nars.concept;
+
+import nars.NAR;
+import nars.concept.util.ArrayListBeliefTable;
+import nars.concept.util.BeliefTable;
+import nars.concept.util.TemporalBeliefTable;
+import nars.nar.Default;
+import nars.task.Task;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TemporalBeliefTableTest {
+
+    final NAR n = new Default();
+
+    Task event(String truth, long occ) {
+        Task t = n.task("<a --> b>. :|: " + truth);
+        t.setOccurrenceTime(occ);
+        return t;
+    }
+
+    boolean add(TemporalBeliefTable table, Task t) {
+        return table.tryAdd(t, new BeliefTable.SolutionQualityMatchingOrderRanker(t, n.time()), n.memory);
+    }
+
+    @Test
+    public void testEternalAndTemporalSeparate() {
+        TemporalBeliefTable table = new TemporalBeliefTable(n.memory, 2, 8);
+
+        assertTrue(add(table, n.task("<a --> b>. %1.0;0.9%")));
+        assertTrue(add(table, event("%1.0;0.9%", 10)));
+        assertTrue(add(table, event("%0.0;0.9%", 20)));
+
+        assertEquals(3, table.size());
+        assertEquals(2, table.temporalSize());
+        assertTrue(table.top(true, false).isEternal());
+        assertFalse(table.top(false, true).isEternal());
+
+        int count = 0;
+        for (Task t : table) count++;
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testNearest() {
+        TemporalBeliefTable table = new TemporalBeliefTable(n.memory, 2, 16);
+        for (int i = 0; i < 10; i++)
+            add(table, event("%1.0;0.9%", i * 10));
+
+        assertEquals(30, table.nearest(32).getOccurrenceTime());
+        assertEquals(40, table.nearest(36).getOccurrenceTime());
+        assertEquals(0, table.nearest(-100).getOccurrenceTime());
+        assertEquals(90, table.nearest(1000).getOccurrenceTime());
+    }
+
+    @Test
+    public void testCapacityRemovesFurthestFromPresent() {
+        TemporalBeliefTable table = new TemporalBeliefTable(n.memory, 2, 4);
+        long now = n.time();
+
+        for (int i = 0; i < 4; i++)
+            assertTrue(add(table, event("%1.0;0.9%", now + i)));
+
+        //further in the future than all the others, so it is the one removed
+        assertFalse(add(table, event("%1.0;0.9%", now + 100)));
+
+        //replaces the belief at now+3
+        assertTrue(add(table, event("%1.0;0.9%", now - 1)));
+        assertEquals(4, table.temporalSize());
+        for (Task t : table)
+            assertTrue(t.getOccurrenceTime() < now + 3);
+    }
+
+    @Test
+    public void testEvictedBeliefsRemoved() {
+        TemporalBeliefTable table = new TemporalBeliefTable(n.memory, 2, 2);
+        long now = n.time();
+
+        List<Task> removed = new ArrayList();
+        n.memory.eventTaskRemoved.on(removed::add);
+
+        Task a = event("%1.0;0.9%", now), b = event("%1.0;0.9%", now + 1);
+        add(table, a);
+        add(table, b);
+
+        //the input itself is furthest from the present
+        Task far = event("%1.0;0.9%", now + 100);
+        assertFalse(add(table, far));
+        assertEquals(1, removed.size());
+        assertSame(far, removed.get(0));
+        assertTrue(far.isDeleted());
+
+        //evicts b
+        assertTrue(add(table, event("%1.0;0.9%", now - 1)));
+        assertEquals(2, removed.size());
+        assertSame(b, removed.get(1));
+
+        table.setCapacity(3); //2 eternal, 1 temporal
+        assertEquals(3, removed.size());
+        assertEquals(1, table.temporalSize());
+    }
+
+    /** of beliefs with the same confidence, the nearest neighbors include the
+     *  best, so the approximation selects the same as ranking all of them */
+    @Test
+    public void testTopSameAsArrayListBeliefTable() {
+        TemporalBeliefTable t = new TemporalBeliefTable(n.memory, 2, 64);
+        ArrayListBeliefTable a = new ArrayListBeliefTable(n.memory, 64);
+
+        for (int i = 0; i < 20; i++) {
+            Task e = event((i % 2 == 0) ? "%1.0;0.9%" : "%0.0;0.9%", i * 10);
+            assertTrue(add(t, e));
+            assertTrue(a.tryAdd(e, new BeliefTable.SolutionQualityMatchingOrderRanker(e, n.time()), n.memory));
+        }
+
+        //not midway between two beliefs, so there are no ties
+        for (long when = -47; when < 250; when += 10) {
+            Task q = n.task("<a --> b>? :|:");
+            q.setOccurrenceTime(when);
+            assertSame(Long.toString(when), a.top(q, n.time()), t.top(q, n.time()));
+        }
+    }
+
+    @Test
+    public void testConceptUsesTemporalTable() {
+        n.memory.conceptTemporalBeliefsMax.set(64);
+        n.nal(7);
+
+        for (int i = 0; i < 32; i++) {
+            n.input("<x --> y>. :|: %" + ((i % 2 == 0) ? "1.0" : "0.0") + ";0.9%");
+            n.frame(5);
+        }
+
+        BeliefTable b = n.concept("<x --> y>").getBeliefs();
+        assertTrue(b instanceof TemporalBeliefTable);
+        assertTrue(b.toString(), b.size() > n.memory.conceptBeliefsMax.intValue());
+    }
+}
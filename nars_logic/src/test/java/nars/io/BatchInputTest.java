@@ -0,0 +1,77 @@
+package nars.io;
+
+import nars.NAR;
+import nars.nar.Default;
+import nars.task.in.BatchInput;
+import org.junit.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Created by me on 12/6/15.
+ */
+public class BatchInputTest {
+
+    @Test
+    public void testBatchLines() {
+        NAR n = new Default();
+
+        BatchInput.Stats s = n.inputBatch(Stream.of(
+                "<a --> b>.",
+                "<b --> c>.",
+                "",
+                "//comment",
+                "<a --> b>.",
+                "<a --> b>. %0.5;0.9%",
+                "<c -->"
+        ));
+
+        assertEquals(5, s.lines);
+        assertEquals(1, s.parseErrors);
+        assertEquals(1, s.duplicates);
+        assertEquals(3, s.tasks);
+        assertEquals(2, s.newConcepts);
+
+        //concepts exist before any cycle has run
+        assertNotNull(n.concept("<a --> b>"));
+
+        n.frame(2);
+        assertNotNull(n.concept("<b --> c>").getBeliefs().top());
+    }
+
+    @Test
+    public void testBatchTasksInChunks() {
+        NAR n = new Default();
+
+        //the duplicate falls in another chunk, so it is input again
+        BatchInput.Stats s = BatchInput.tasks(n, Stream.of(
+                "<a --> b>.",
+                "<a --> b>.",
+                "<b --> c>.",
+                "<c --> d>.",
+                "<a --> b>."
+        ).map(n::task), 2);
+
+        //one chunk now, then one per frame
+        assertEquals(2, s.lines);
+        assertFalse(s.finished);
+        assertNull(n.concept("<c --> d>"));
+
+        n.frame(1);
+        assertEquals(4, s.lines);
+        assertFalse(s.finished);
+
+        n.frame(1);
+        assertTrue(s.finished);
+        assertEquals(5, s.lines);
+        assertEquals(1, s.duplicates);
+        assertEquals(4, s.tasks);
+        assertEquals(3, s.newConcepts);
+        assertNotNull(n.concept("<c --> d>"));
+
+        n.frame(1);
+        assertEquals(5, s.lines);
+    }
+}
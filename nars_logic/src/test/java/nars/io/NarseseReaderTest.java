@@ -0,0 +1,164 @@
+package nars.io;
+
+import nars.NAR;
+import nars.Narsese;
+import nars.NarseseReader;
+import nars.nal.DerivationRules;
+import nars.nar.Terminal;
+import nars.task.Task;
+import nars.term.Term;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/** compares NarseseReader with the Grappa parser */
+public class NarseseReaderTest {
+
+    final static NAR n = new Terminal();
+    final static Narsese grappa = Narsese.the();
+    final static NarseseReader reader = NarseseReader.the();
+
+    final static Path nal = Paths.get("../nal");
+
+    /** a task's content, without its stamp */
+    static String str(Task t) {
+        if (t == null) return "null";
+        return t.getTerm() + " " + t.getPunctuation() + ' ' + t.getTruth() + ' ' +
+                t.getBudget() + ' ' + t.getOccurrenceTime();
+    }
+
+    static String grappaTasks(String input) {
+        List<String> l = new ArrayList();
+        try {
+            Narsese.tasksStrict(input, t -> l.add(str(t)), n.memory);
+        } catch (RuntimeException e) {
+            return "invalid";
+        }
+        return l.toString();
+    }
+
+    static String readerTasks(String input) {
+        List<String> l = new ArrayList();
+        try {
+            if (!reader.tasks(input, t -> l.add(str(t)), n.memory))
+                return "invalid";
+        } catch (RuntimeException e) {
+            return "invalid";
+        }
+        return l.toString();
+    }
+
+    static String str(Supplier<Term> parse) {
+        try {
+            return String.valueOf(parse.get());
+        } catch (RuntimeException e) {
+            return "invalid";
+        }
+    }
+
+    static void assertSameTasks(String input) {
+        assertEquals(input, grappaTasks(input), readerTasks(input));
+    }
+
+    static void assertSameTerm(String input) {
+        assertEquals(input, str(() -> grappa.termRaw(input)), str(() -> reader.termRaw(input)));
+        assertEquals(input, str(() -> grappa.term(input)), str(() -> reader.term(input)));
+    }
+
+    static final String[] tasks = {
+            "<a --> b>.", "$0.5;0.8;0.9$ <a --> b>! %1.0;0.9%", "$0.5;0.8$<a --> b>?", "$0.5$ <a --> b>@",
+            "<a --> b>. :|: %0.7|", "<a --> b>. :\\: %0.7;0.8%", "<a --> b>. %1;0.9", "<a --> b>. %0.3%",
+            "(&&, a, b). :/:", "(&/, a, /5, b).", "(a, b, c)!", "(a --> b).", "(a & b).", "( a , b ).",
+            "op(a, b)!", "op()!", "^op(a)!", "x:y.", "x:y:z.", "x : (a, b).", "(--, a).", "--a.",
+            "{a, b}.", "[a, b]?", "(/, a, _, b).", "(\\, a, _, b).", "\"quoted\".", "\"\"\"multi\nline\"\"\".",
+            "<(*, a, b) ==> c>.", "<#x --> $y>. %0%", "<?x --> b>?", "<a --] b>.", "<a {-] b>.",
+            "// a comment\n<a --> b>.\n\n//another", "<a --> b>", "<a --> >.", "(a, b.", "<a --> b>.x",
+            "((((((((a)))))))).", "(a)(b).", "<a * b --> c>.", "(a * b & c).", "(&&)."
+    };
+
+    static final String[] terms = {
+            "a", "<a --> b>", "%A..%B", "(%A.., b)", "..", "<%A, %B |- %C>", "<%A |- %C, (Truth:Deduction)>",
+            "x:y", "op(a)", "^op", "/3", "()", "( )", "_", "\"a b\"", "--(a, b)", " <a --> b> ", ""
+    };
+
+    @Test
+    public void testSameTasks() {
+        for (String t : tasks)
+            assertSameTasks(t);
+    }
+
+    @Test
+    public void testSameTerms() {
+        for (String t : terms)
+            assertSameTerm(t);
+        for (String t : tasks)
+            assertSameTerm(t);
+    }
+
+    @Test
+    public void testSameNALFiles() throws IOException {
+        assumeTrue(Files.isDirectory(nal));
+
+        List<Path> files;
+        try (Stream<Path> s = Files.walk(nal)) {
+            files = s.filter(p -> p.toString().endsWith(".nal")).sorted().collect(Collectors.toList());
+        }
+        assertFalse(files.isEmpty());
+
+        int valid = 0;
+        for (Path f : files) {
+            String text = new String(Files.readAllBytes(f), UTF_8);
+            assertSameTasks(text);
+
+            for (String line : text.split("\n")) {
+                if (line.trim().isEmpty()) continue;
+                assertSameTasks(line);
+                assertSameTerm(line);
+                if (!"invalid".equals(readerTasks(line)))
+                    valid++;
+            }
+        }
+        assertTrue(valid > 0);
+    }
+
+    @Test
+    public void testSameDerivationRules() throws IOException {
+        int valid = 0;
+        for (String line : DerivationRules.standardSource().split("\n")) {
+            line = line.trim();
+            if (line.startsWith("//") || !line.contains("|-")) continue;
+
+            String r = '<' + line.replaceAll("\\s+", " ") + '>';
+            String g = str(() -> grappa.taskRule(r));
+            assertEquals(r, g, str(() -> reader.taskRule(r)));
+            if (!"invalid".equals(g))
+                valid++;
+        }
+        assertTrue(valid > 0);
+    }
+
+    @Test
+    public void testDeeplyNested() {
+        String s = "<a --> b>";
+        for (int i = 0; i < 40; i++)
+            s = '<' + s + " --> b" + i + '>';
+        assertEquals(s, reader.termRaw(s).toString());
+
+        String p = "a";
+        for (int i = 0; i < 40; i++)
+            p = "(" + p + ", b)";
+        assertEquals(p, reader.termRaw(p).toString());
+    }
+}
@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import nars.Global;
 import nars.NAR;
 import nars.nar.Default;
+import nars.task.Task;
 import nars.term.Term;
 import nars.util.meter.EventCount;
 import org.junit.Ignore;
@@ -198,6 +199,85 @@ public class NALObjectsTest  {
     }
 
 
+    @Test
+    public void testConcurrentCapture() throws Exception {
+        NAR n = new Default();
+        NALObjects no = new NALObjects(n, 64);
+        TestClass tc = no.wrap("obj", new TestClass());
+
+        int threads = 4, calls = 500;
+        Thread[] t = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            t[i] = new Thread(() -> {
+                for (int j = 0; j < calls; j++)
+                    tc.multiply(2, 3);
+            });
+            t[i].start();
+        }
+        for (Thread x : t)
+            x.join();
+
+        //nothing is input until the reasoner drains the ring
+        assertEquals(threads * calls, no.captured() + no.dropped());
+        assertEquals(64, no.captured());
+        assertEquals(64, no.pending());
+
+        no.setInputPerFrame(16);
+        n.frame(1);
+        assertEquals(48, no.pending());
+        n.frame(3);
+        assertEquals(0, no.pending());
+    }
+
+    @Test
+    public void testCaptureRateAndLimit() throws Exception {
+        NAR n = new Default();
+        NALObjects no = new NALObjects(n);
+        TestClass tc = no.wrap("obj", new TestClass());
+
+        no.setCaptureRate(0);
+        for (int i = 0; i < 100; i++)
+            tc.noParamMethodReturningVoid();
+        assertEquals(0, no.captured());
+        assertEquals(100, tc.count);
+
+        no.setCaptureRate(1);
+        no.setCaptureLimit(10);
+        for (int i = 0; i < 100; i++)
+            tc.noParamMethodReturningVoid();
+        assertTrue(no.captured() >= 10);
+        assertTrue(no.captured() < 100);
+        assertEquals(100, no.captured() + no.dropped());
+    }
+
+    @Test
+    public void testCaptureTime() throws Exception {
+        NAR n = new Default();
+        NALObjects no = new NALObjects(n);
+        TestClass tc = no.wrap("obj", new TestClass());
+
+        List<Task> goals = new ArrayList();
+        n.memory.eventInput.on(t -> {
+            if (t.isGoal() && t.getTerm().toString().contains("noParamMethodReturningVoid"))
+                goals.add(t);
+        });
+
+        no.setInputPerFrame(0);
+        n.frame(4);
+        long called = n.time();
+        tc.noParamMethodReturningVoid();
+        n.frame(4);
+        assertTrue(goals.isEmpty());
+
+        //input later, but occurring when called
+        no.setInputPerFrame(1);
+        n.frame(1);
+        assertFalse(goals.isEmpty());
+        Task g = goals.get(0);
+        assertEquals(called, g.getOccurrenceTime());
+        assertTrue(g.getCreationTime() > called);
+    }
+
     @Test public void testTermizerPrimitives() {
 
         testTermizer(null);
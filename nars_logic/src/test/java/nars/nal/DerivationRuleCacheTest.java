@@ -0,0 +1,86 @@
+package nars.nal;
+
+import nars.NAR;
+import nars.nal.meta.RuleTrie;
+import nars.nar.Default;
+import nars.process.ConceptProcess;
+import nars.term.Compound;
+import nars.util.event.On;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * The cached standard rules must be the same as those parsed from the rule file
+ */
+public class DerivationRuleCacheTest {
+
+    @Test
+    public void testCachedRulesMatchSource() throws IOException, URISyntaxException {
+
+        //first call may build and write the cache; the second reads it back
+        Deriver.loadCachedRules();
+        Deriver.CachedRules c = Deriver.loadCachedRules();
+
+        DerivationRules fresh = new DerivationRules();
+        assertEquals(Deriver.cacheChecksum(DerivationRules.standardSource()), c.checksum);
+        assertEquals(fresh.toString(), c.rules.toString());
+
+        RuleTrie.RuleBranch[] root = new TrieDeriver(fresh).root;
+        assertEquals(root.length, c.root.length);
+        for (int i = 0; i < root.length; i++)
+            assertEquals(Arrays.toString(root[i].precondition), Arrays.toString(c.root[i].precondition));
+    }
+
+    /** the hashes and metrics of the cached terms, which are not serialized, are recomputed */
+    @Test
+    public void testCachedTermsRehashed() throws IOException, URISyntaxException {
+        Deriver.loadCachedRules();
+        Deriver.CachedRules c = Deriver.loadCachedRules();
+        DerivationRules fresh = new DerivationRules();
+
+        assertEquals(fresh.size(), c.rules.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            Compound x = fresh.get(i), y = c.rules.get(i);
+            String s = x.toString();
+            assertEquals(s, x, y);
+            assertEquals(s, x.hashCode(), y.hashCode());
+            assertEquals(s, x.volume(), y.volume());
+            assertEquals(s, x.complexity(), y.complexity());
+            assertEquals(s, x.structure(), y.structure());
+            assertEquals(s, x.vars(), y.vars());
+        }
+    }
+
+    /** the cached trie derives the same as one compiled from the rule file */
+    @Test
+    public void testCachedRulesDeriveSame() throws IOException, URISyntaxException {
+        Deriver.loadCachedRules();
+        Deriver.CachedRules c = Deriver.loadCachedRules();
+
+        Deriver cached = new TrieDeriver(c.rules, c.root);
+        Deriver fresh = new TrieDeriver(new DerivationRules());
+
+        NAR n = new Default();
+        List<ConceptProcess> premises = new ArrayList();
+        On o = n.memory.eventConceptProcess.on(premises::add);
+        n.input("<a --> b>.", "<b --> c>.", "<c --> d>.", "<a --> d>?");
+        n.frame(16);
+        o.off();
+        assertFalse(premises.isEmpty());
+
+        for (ConceptProcess p : premises)
+            assertEquals(p.toString(), derive(fresh, p), derive(cached, p));
+    }
+
+    static Set<String> derive(Deriver d, ConceptProcess p) {
+        Set<String> s = new TreeSet();
+        d.run(p, t -> s.add(t.getTerm().toString() + t.getPunctuation() + ' ' + t.getTruth()));
+        return s;
+    }
+}
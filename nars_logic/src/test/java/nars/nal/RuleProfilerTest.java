@@ -0,0 +1,83 @@
+package nars.nal;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import nars.NAR;
+import nars.nar.Default;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RuleProfilerTest {
+
+    static long sum(List<RuleProfiler.Stats> l, boolean produced) {
+        long s = 0;
+        for (RuleProfiler.Stats x : l)
+            s += produced ? x.produced() : x.survived();
+        return s;
+    }
+
+    @Test
+    public void testProfile() {
+        TrieDeriver d = (TrieDeriver) Deriver.standardDeriver;
+        RuleProfiler p = new RuleProfiler(d);
+
+        NAR n = new Default();
+        p.start(n.memory);
+        assertTrue(p.isStarted());
+
+        n.input("<a --> b>.", "<b --> c>.", "<c --> d>.");
+        n.frame(32);
+
+        String metrics = n.memory.metrics().registry.scrape();
+        assertTrue(metrics.contains("nars_rule_calls_total{rule=\""));
+        assertTrue(metrics.contains("nars_rule_derived_total{rule=\""));
+
+        p.stop();
+        assertFalse(n.memory.metrics().registry.scrape().contains("nars_rule_calls_total"));
+
+        List<RuleProfiler.Stats> rules = p.rules(RuleProfiler.Order.TIME);
+        assertFalse(rules.isEmpty());
+        for (int i = 1; i < rules.size(); i++)
+            assertTrue(rules.get(i - 1).nanos() >= rules.get(i).nanos());
+
+        long produced = sum(rules, true);
+        assertTrue(produced > 0);
+        assertTrue(sum(rules, false) <= produced);
+
+        for (RuleProfiler.Stats s : p.conditions(RuleProfiler.Order.CALLS))
+            assertTrue(s.passes() <= s.calls());
+
+        String report = p.report(RuleProfiler.Order.PRODUCED, 10);
+        assertTrue(report.contains("rules"));
+        assertTrue(report.contains("preconditions"));
+
+        JsonNode j = p.toJSON();
+        assertEquals(rules.size(), j.get("rules").size());
+        assertEquals(produced, sumJSON(j.get("rules")));
+    }
+
+    static long sumJSON(JsonNode rules) {
+        long s = 0;
+        for (JsonNode r : rules)
+            s += r.get("produced").asLong();
+        return s;
+    }
+
+    @Test
+    public void testStoppedIsUnaffected() {
+        TrieDeriver d = (TrieDeriver) Deriver.standardDeriver;
+        RuleProfiler p = new RuleProfiler(d);
+        p.start(new Default().memory);
+        p.stop();
+        assertFalse(p.isStarted());
+
+        NAR n = new Default();
+        n.input("<a --> b>.", "<b --> c>.");
+        n.frame(8);
+
+        for (RuleProfiler.Stats s : p.rules(RuleProfiler.Order.CALLS))
+            assertEquals(0, s.calls());
+    }
+}
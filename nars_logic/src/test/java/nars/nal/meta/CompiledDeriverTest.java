@@ -0,0 +1,67 @@
+package nars.nal.meta;
+
+import nars.Global;
+import nars.NAR;
+import nars.Premise;
+import nars.nal.CompiledDeriver;
+import nars.nal.Deriver;
+import nars.nal.RuleMatch;
+import nars.nal.TrieDeriver;
+import nars.nar.Default;
+import nars.task.Task;
+import nars.task.in.FileInput;
+import nars.task.in.LibraryInput;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that CompiledDeriver derives the same tasks as TrieDeriver for every
+ * premise fired while running the NAL test scripts
+ */
+public class CompiledDeriverTest {
+
+    static final Deriver trie = new TrieDeriver(Deriver.standard);
+    static final Deriver compiled = new CompiledDeriver(Deriver.standard);
+
+    @Test
+    public void testEquivalentToTrieDeriver() throws IOException {
+
+        AtomicInteger premises = new AtomicInteger();
+
+        for (String path : LibraryInput.getUnitTests("test1", "test2", "test3", "test4", "test5", "test6").values()) {
+
+            NAR n = new Default(256, 1, 2, 3);
+
+            AtomicBoolean comparing = new AtomicBoolean();
+            n.memory.eventConceptProcess.on(p -> {
+                //the derivers themselves emit this event
+                if (comparing.compareAndSet(false, true)) {
+                    assertEquals(path + ": " + p, derive(trie, p), derive(compiled, p));
+                    premises.incrementAndGet();
+                    comparing.set(false);
+                }
+            });
+
+            n.input(FileInput.load(path));
+            n.frame(100);
+        }
+
+        assertTrue(premises.get() > 0);
+    }
+
+    static String derive(Deriver d, Premise p) {
+        //both derivers begin with the same random sequence
+        RuleMatch.matchers.get().subst.random.setSeed(1);
+
+        List<Task> derived = Global.newArrayList();
+        d.run(p, derived::add);
+        return derived.toString();
+    }
+}
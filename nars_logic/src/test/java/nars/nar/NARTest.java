@@ -2,13 +2,20 @@ package nars.nar;
 
 import nars.NAR;
 import nars.Narsese;
+import nars.task.Task;
 import org.junit.Test;
 
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -72,6 +79,86 @@ public class NARTest {
     }
 
 
+    /** beliefs and derivation count after inputting a deduction chain */
+    static Set<String> beliefs(Default nar, int frames) throws Narsese.NarseseException {
+        //including compounds whose matching permutes
+        nar.input("<a-->b>.", "<b-->c>.", "<c-->d>.", "<(&,a,b) --> c>.", "<(*,a,b) --> (*,c,d)>.").frame(frames);
+
+        Set<String> s = new TreeSet();
+        nar.forEachConceptTask(true, false, false, false, t ->
+                s.add(t.getTerm() + " " + t.getTruth() + " " + t.getOccurrenceTime()));
+        s.add("derivations " + nar.memory.metrics().derivations.get());
+        return s;
+    }
+
+    @Test
+    public void testParallelConceptFiring() throws Narsese.NarseseException {
+
+        Set<String> sequential = beliefs(new Default(1000, 8, 2, 3), 64);
+
+        Default nar = new Default(1000, 8, 2, 3);
+        nar.core.threads.set(4);
+        Set<String> parallel = beliefs(nar, 64);
+        nar.stop();
+
+        //the same seed derives the same, though derived on workers and input at the end of the cycle
+        assertEquals(sequential, parallel);
+        assertNotNull(nar.concept("<a-->c>"));
+    }
+
+    /** the perception buffer after some frames, checking that derivation events are emitted on the cycle thread */
+    static List<String> perceived(Default nar) throws Narsese.NarseseException {
+        final Thread cycle = Thread.currentThread();
+        final AtomicBoolean offCycle = new AtomicBoolean();
+        nar.memory.eventDerived.on(t -> {
+            if (Thread.currentThread() != cycle) offCycle.set(true);
+        });
+        nar.memory.eventConceptProcess.on(p -> {
+            if (Thread.currentThread() != cycle) offCycle.set(true);
+        });
+
+        nar.input("<a-->b>.", "<b-->c>.", "<c-->d>.", "<(*,a,b) --> (*,c,d)>.").frame(16);
+        assertFalse("events emitted by a worker", offCycle.get());
+
+        List<String> l = new ArrayList();
+        for (Task t : nar.getInput().buffer)
+            l.add(t.toString());
+        return l;
+    }
+
+    @Test
+    public void testParallelDerivationEvents() throws Narsese.NarseseException {
+        List<String> sequential = perceived(new Default(1000, 8, 2, 3));
+
+        Default nar = new Default(1000, 8, 2, 3);
+        nar.core.threads.set(4);
+        List<String> parallel = perceived(nar);
+        nar.stop();
+
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+
+        Default premises = new Default(1000, 1, 4, 4);
+        premises.core.premiseThreads.set(4);
+        List<String> parallelPremises = perceived(premises);
+        premises.stop();
+        assertEquals(perceived(new Default(1000, 1, 4, 4)), parallelPremises);
+    }
+
+    @Test
+    public void testParallelPremiseEvaluation() throws Narsese.NarseseException {
+
+        Set<String> sequential = beliefs(new Default(1000, 1, 4, 4), 64);
+
+        Default nar = new Default(1000, 1, 4, 4);
+        nar.core.premiseThreads.set(4);
+        Set<String> parallel = beliefs(nar, 64);
+        nar.stop();
+
+        assertEquals(sequential, parallel);
+        assertNotNull(nar.concept("<a-->c>"));
+    }
+
     @Test
     public void testFluentBasics() throws Exception {
         int frames = 32;
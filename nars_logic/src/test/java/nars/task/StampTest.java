@@ -1,5 +1,6 @@
 package nars.task;
 
+import nars.Global;
 import nars.truth.Stamp;
 import org.junit.Test;
 
@@ -40,6 +41,33 @@ public class StampTest {
 
     }
 
+    @Test
+    public void testSignatureOverlap() {
+        long[][] bases = { a(1), a(2), a(1, 2), a(3, 4), a(2, 3), a(5, 6, 7, 8), a(1000, 2000) };
+        for (long[] x : bases) {
+            for (long[] y : bases) {
+                assertTrue(Stamp.overlapping(x, y) ==
+                        Stamp.overlapping(x, Stamp.signature(x), y, Stamp.signature(y)));
+            }
+        }
+    }
+
+    @Test
+    public void testZipSet() {
+        long[][] bases = { a(), a(1), a(1, 2), a(2, 3), a(3, 4, 5) };
+        for (long[] x : bases) {
+            for (long[] y : bases) {
+                assertTrue(Arrays.equals(
+                        toSetArray(Stamp.zip(x, y)), Stamp.zipSet(x, y)));
+            }
+        }
+
+        //truncated to the maximum length, as zip
+        long[] big = new long[Global.MAXIMUM_EVIDENTAL_BASE_LENGTH];
+        for (int i = 0; i < big.length; i++) big[i] = i + 100;
+        assertTrue(Arrays.equals(toSetArray(Stamp.zip(big, a(1, 2))), Stamp.zipSet(big, a(1, 2))));
+    }
+
     @Test 
     public void testStampToSetArray() {
         assertTrue(toSetArray(new long[] { 1, 2, 3 }).length == 3);        
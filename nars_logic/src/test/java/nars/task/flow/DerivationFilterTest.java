@@ -0,0 +1,85 @@
+package nars.task.flow;
+
+import nars.NAR;
+import nars.nar.Default;
+import nars.task.Task;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DerivationFilterTest {
+
+    final NAR n = new Default();
+
+    Task task(String s, long... evidence) {
+        Task t = n.task(s);
+        t.setEvidence(evidence);
+        return t;
+    }
+
+    @Test
+    public void testDuplicateWithinWindow() {
+        DerivationFilter f = new DerivationFilter(10, 64);
+
+        assertTrue(f.test(task("<a --> b>. %1.0;0.9%", 1, 2), 0));
+        assertFalse(f.test(task("<a --> b>. %1.0;0.9%", 1, 2), 5));
+        assertEquals(1, f.duplicates());
+
+        //differs in truth, evidence, or punctuation
+        assertTrue(f.test(task("<a --> b>. %1.0;0.8%", 1, 2), 5));
+        assertTrue(f.test(task("<a --> b>. %1.0;0.9%", 1, 3), 5));
+        assertTrue(f.test(task("<a --> b>?", 1, 2), 5));
+    }
+
+    @Test
+    public void testExpires() {
+        DerivationFilter f = new DerivationFilter(10, 64);
+
+        assertTrue(f.test(task("<a --> b>.", 1), 0));
+        assertTrue(f.test(task("<a --> b>.", 1), 25));
+        assertFalse(f.test(task("<a --> b>.", 1), 26));
+        assertEquals(1f / 3, f.hitRate(), 0.01f);
+    }
+
+    @Test
+    public void testReasonerWithFilter() {
+        Default d = new Default();
+        d.memory.derivationDuplicateWindow.set(10);
+        d.input("<a --> b>.", "<b --> c>.", "<c --> d>.");
+        d.frame(50);
+
+        DerivationFilter f = d.core.derivationFilter;
+        assertTrue(f.tested() > 0);
+    }
+
+    @Test
+    public void testRepeatNotPerceived() {
+        Default d = new Default();
+        d.memory.derivationDuplicateWindow.set(10);
+
+        //what reaches the perception buffer, and when
+        List<Task> perceived = new ArrayList();
+        List<Long> times = new ArrayList();
+        d.memory.eventDerived.on(t -> {
+            perceived.add(t);
+            times.add(d.time());
+        });
+
+        d.input("<a --> b>.", "<b --> c>.", "<c --> d>.");
+        d.frame(50);
+
+        DerivationFilter f = d.core.derivationFilter;
+        assertTrue("repeated derivations occurred", f.duplicates() > 0);
+
+        for (int i = 0; i < perceived.size(); i++) {
+            for (int j = i + 1; j < perceived.size(); j++) {
+                if (times.get(j) - times.get(i) < 5)
+                    assertFalse(perceived.get(j) + " repeated",
+                            DerivationFilter.equal(perceived.get(i), perceived.get(j)));
+            }
+        }
+    }
+}
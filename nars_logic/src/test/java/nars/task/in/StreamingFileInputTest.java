@@ -0,0 +1,91 @@
+package nars.task.in;
+
+import nars.NAR;
+import nars.nar.Default;
+import nars.task.Task;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class StreamingFileInputTest {
+
+    @Rule
+    public final TemporaryFolder dir = new TemporaryFolder();
+
+    static final int N = 500;
+
+    Path write(boolean withError) throws Exception {
+        List<String> lines = new ArrayList();
+        lines.add("//generated");
+        for (int i = 0; i < N; i++) {
+            lines.add("<a" + i + " --> b>.");
+            if (withError && i == N / 2)
+                lines.add("<<< not narsese");
+        }
+        Path p = dir.getRoot().toPath().resolve("in.nal");
+        Files.write(p, lines);
+        return p;
+    }
+
+    @Test
+    public void testTasksInFileOrder() throws Exception {
+        NAR n = new Default();
+        Path p = write(false);
+
+        //small chunks and queue, so that reading waits for the parsed chunks to be taken
+        StreamingFileInput s = new StreamingFileInput(n, p, 64, 3, 2);
+
+        List<String> terms = new ArrayList();
+        Task t;
+        while ((t = s.get()) != null)
+            terms.add(t.getTerm().toString());
+
+        assertEquals(N, terms.size());
+        for (int i = 0; i < N; i++)
+            assertEquals(n.term("<a" + i + " --> b>").toString(), terms.get(i));
+
+        assertTrue(s.isFinished());
+        assertEquals(Files.size(p), s.bytesRead());
+        assertEquals(1f, s.progress(), 0.0001f);
+        assertEquals(N, s.tasksParsed());
+        assertEquals(0, s.errors());
+        assertNull(s.getFailure());
+    }
+
+    @Test
+    public void testInvalidLineReported() throws Exception {
+        NAR n = new Default();
+        List<Object> errors = new ArrayList();
+        n.memory.eventError.on(errors::add);
+
+        StreamingFileInput s = new StreamingFileInput(n, write(true), 128, 2, 4);
+        int count = 0;
+        while (s.get() != null) count++;
+
+        assertEquals(N, count);
+        assertEquals(1, s.errors());
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void testInputPerFrame() throws Exception {
+        NAR n = new Default();
+        StreamingFileInput s = n.input(write(false), 64);
+
+        for (int i = 0; i < 1000 && !s.isFinished(); i++) {
+            n.frame();
+            Thread.sleep(1);
+        }
+
+        assertTrue(s.isFinished());
+        assertEquals(N, s.tasksInput());
+        assertTrue(s.toString().contains("100.0%"));
+    }
+}
@@ -1,9 +1,11 @@
 package nars.term.compile;
 
 import nars.NAR;
+import nars.Narsese;
 import nars.nar.Default;
 import nars.nar.Terminal;
 import nars.task.Task;
+import nars.term.Compound;
 import nars.term.Term;
 import org.junit.Test;
 
@@ -43,4 +45,18 @@ public class TermIndexTest {
         //t.forEach(System.out::println);
 
     }
-}
\ No newline at end of file
+
+    @Test public void testWeakTermIndexInterns() throws Narsese.NarseseException {
+        WeakTermIndex i = new WeakTermIndex();
+
+        Term a = (Term) i.get(Narsese.the().term("<(a & b) --> c>"));
+        Term b = (Term) i.get(Narsese.the().term("<(a & b) --> c>"));
+        Term c = (Term) i.get(Narsese.the().term("<(a & b) --> d>"));
+
+        assertTrue(a == b);
+        assertTrue(((Compound) a).term(0) == ((Compound) c).term(0));
+
+        assertTrue(i.hits() > 0);
+        assertTrue(i.size() > 0);
+    }
+}
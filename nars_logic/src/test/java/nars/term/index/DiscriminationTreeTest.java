@@ -0,0 +1,138 @@
+package nars.term.index;
+
+import nars.Global;
+import nars.NAR;
+import nars.Op;
+import nars.concept.Concept;
+import nars.nar.Default;
+import nars.process.QueryVariableExhaustiveResults;
+import nars.term.Compound;
+import nars.term.Term;
+import nars.term.transform.FindSubst;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class DiscriminationTreeTest {
+
+    final static NAR n = new Default();
+
+    static Term t(String s) {
+        return n.term(s);
+    }
+
+    static final String[] terms = {
+            "<a --> b>", "<c --> b>", "<a --> c>", "<(a, b) --> c>", "<(a, c) --> c>",
+            "<a <-> c>", "<c <-> d>", "<#y --> b>", "(&&, a, b)", "<<a --> b> ==> <c --> d>>",
+            "a", "b"
+    };
+
+    static DiscriminationTree<Term> index() {
+        DiscriminationTree<Term> d = new DiscriminationTree<>();
+        for (String s : terms)
+            assertTrue(d.put(t(s)));
+        return d;
+    }
+
+    static Set<String> retrieve(DiscriminationTree<Term> d, String pattern) {
+        Set<String> s = new HashSet();
+        d.forEachUnifiable(t(pattern), x -> assertTrue(s.add(x.toString())));
+        return s;
+    }
+
+    static Set<String> unifiable(String pattern) {
+        Set<String> s = new HashSet();
+        FindSubst f = new FindSubst(Op.VAR_QUERY, new Random(1));
+        for (String x : terms) {
+            Term y = t(x);
+            if (f.next(t(pattern), y, Global.UNIFICATION_POWER))
+                s.add(y.toString());
+            f.clear();
+        }
+        return s;
+    }
+
+    @Test
+    public void testRetrieveSupersetOfUnifiable() {
+        DiscriminationTree<Term> d = index();
+        assertEquals(terms.length, d.size());
+
+        for (String p : new String[]{
+                "<?x --> b>", "<a --> ?x>", "<(a, ?x) --> c>", "<?x --> c>",
+                "<?x <-> c>", "<<?x --> b> ==> ?y>", "<a --> b>", "<?x --> d>" }) {
+            Set<String> r = retrieve(d, p);
+            assertTrue(p + ": " + r, r.containsAll(unifiable(p)));
+        }
+    }
+
+    @Test
+    public void testRetrieveDiscriminates() {
+        DiscriminationTree<Term> d = index();
+
+        Set<String> r = retrieve(d, "<?x --> b>");
+        assertTrue(r.contains(t("<a --> b>").toString()));
+        assertTrue(r.contains(t("<c --> b>").toString()));
+        assertTrue(r.contains(t("<#y --> b>").toString()));
+        assertFalse(r.contains(t("<a --> c>").toString()));
+        assertFalse(r.contains(t("<a <-> c>").toString()));
+        assertEquals(3, r.size());
+
+        //an indexed variable matches a pattern's compound subterm
+        assertTrue(retrieve(d, "<(a, ?x) --> b>").contains(t("<#y --> b>").toString()));
+
+        //a variable of the pattern skips a compound subterm
+        assertEquals(3, retrieve(d, "<?x --> c>").size());
+
+        assertTrue(retrieve(d, "<?x --> e>").isEmpty());
+    }
+
+    @Test
+    public void testRemove() {
+        DiscriminationTree<Term> d = index();
+        Term ab = t("<a --> b>");
+        assertFalse(d.put(ab));
+        assertTrue(d.remove(ab));
+        assertFalse(d.remove(ab));
+        assertEquals(terms.length - 1, d.size());
+        assertFalse(retrieve(d, "<?x --> b>").contains(ab.toString()));
+
+        for (String s : terms)
+            d.remove(t(s));
+        assertEquals(0, d.size());
+        assertTrue(retrieve(d, "<?x --> ?y>").isEmpty());
+    }
+
+    @Test
+    public void testConceptIndexMatchesScan() {
+        Default nar = new Default();
+        nar.input("<a --> b>.", "<c --> b>.", "<a --> c>.", "<d --> e>.");
+        nar.frame(8);
+
+        Compound q = nar.term("<?x --> b>");
+
+        Set<String> indexed = new HashSet();
+        QueryVariableExhaustiveResults.forEachMatch(nar, q, t -> indexed.add(t.getTerm().toString()));
+
+        Set<String> scanned = new HashSet();
+        FindSubst f = new FindSubst(Op.VAR_QUERY, nar.memory.random);
+        nar.forEachConcept((Concept c) -> {
+            if (c.hasBeliefs() && f.next(q, c.getTerm(), Global.UNIFICATION_POWER))
+                scanned.add(c.getBeliefs().top().getTerm().toString());
+            f.clear();
+        });
+
+        assertFalse(scanned.isEmpty());
+        assertEquals(scanned, indexed);
+        assertEquals(nar.conceptIndex().size(), countActive(nar));
+    }
+
+    static int countActive(NAR n) {
+        int[] c = {0};
+        n.forEachConcept(x -> c[0]++);
+        return c[0];
+    }
+}
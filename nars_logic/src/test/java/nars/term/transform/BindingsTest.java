@@ -0,0 +1,97 @@
+package nars.term.transform;
+
+import nars.Narsese;
+import nars.Op;
+import nars.term.Atom;
+import nars.term.Term;
+import nars.util.data.random.XORShiftRandom;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BindingsTest {
+
+    static final Term a = Atom.the("a"), b = Atom.the("b"), c = Atom.the("c"), d = Atom.the("d");
+
+    /** not normalized, so that variables keep their names */
+    static Term t(String s) {
+        return Narsese.the().termRaw(s);
+    }
+
+    @Test
+    public void testUndo() {
+        Bindings m = new Bindings(1);
+        m.put(a, b);
+        int mark = m.mark();
+
+        m.put(c, d);
+        assertEquals(b, m.put(a, c));
+        assertEquals(2, m.size());
+        assertEquals(c, m.get(a));
+
+        m.undo(mark);
+        assertEquals(1, m.size());
+        assertEquals(b, m.get(a));
+        assertNull(m.get(c));
+        assertEquals("{a=b}", m.toString());
+    }
+
+    @Test
+    public void testUndoClear() {
+        Bindings m = new Bindings();
+        m.put(a, b);
+        m.put(b, c);
+        int mark = m.mark();
+
+        m.clear();
+        assertTrue(m.isEmpty());
+        m.put(c, d);
+        assertEquals("{c=d}", m.toString());
+
+        m.undo(mark);
+        assertEquals("{a=b, b=c}", m.toString());
+
+        Map<Term, Term> h = new HashMap();
+        h.put(a, b);
+        h.put(b, c);
+        assertEquals(h, m);
+    }
+
+    @Test
+    public void testBacktrackFrame() {
+        FindSubst f = new FindSubst(Op.VAR_PATTERN, new XORShiftRandom(1));
+        Frame.ChoicePoint p = new Frame.ChoicePoint();
+
+        assertTrue(f.next(t("<%X --> b>"), t("<a --> b>"), 64));
+        f.y = a;
+        f.choice(p);
+
+        assertTrue(f.next(t("<%Y --> %X>"), t("<c --> a>"), 64));
+        assertEquals(2, f.xy().size());
+        f.y = c;
+
+        f.backtrack(p);
+        assertEquals(1, f.xy().size());
+        assertEquals(a, f.xy().get(t("%X")));
+        assertEquals(a, f.y);
+    }
+
+    @Test
+    public void testPermuteRestoresFailedBindings() {
+        FindSubst f = new FindSubst(Op.VAR_PATTERN, new XORShiftRandom(1));
+
+        //only one of the two orders unifies; a failed order must not leave its bindings
+        for (int i = 0; i < 16; i++) {
+            assertTrue(f.next(t("{(%X, a), (%Y, b)}"), t("{(c, a), (d, b)}"), 256));
+            assertEquals(c, f.xy().get(t("%X")));
+            assertEquals(d, f.xy().get(t("%Y")));
+            f.clear();
+
+            assertFalse(f.next(t("{(%X, a), (%X, b)}"), t("{(c, a), (d, b)}"), 256));
+            f.clear();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package nars.util.io;
+
+import nars.NAR;
+import nars.nar.Default;
+import nars.task.Task;
+import nars.term.Term;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BinaryCodecTest {
+
+    final NAR n = new Default();
+
+    static final String[] terms = {
+            "a",
+            "<a --> b>",
+            "<(*, a, b) --> c>",
+            "{a, b, c}",
+            "[x, y]",
+            "(&, a, b)",
+            "(-, a, b)",
+            "(--, <a --> b>)",
+            "<$x --> b>",
+            "<#x --> (/, c, _, d)>",
+            "(\\, c, a, _)",
+            "<?x <-> b>",
+            "<(&&, <a --> b>, <c --> d>) ==> <e --> f>>",
+            "(&/, <a --> b>, /3, <c --> d>)",
+            "(&|, <a --> b>, <c --> d>)",
+            "<<a --> b> =/> <c --> d>>",
+            "<(*, a, b) --> ^op>",
+            "<<a --> a> <=> <a --> (*, a, a)>>",
+    };
+
+    @Test
+    public void testTermRoundTrip() {
+        for (String s : terms) {
+            Term t = n.term(s);
+            Term u = BinaryCodec.decodeTerm(BinaryCodec.encode(t));
+            assertEquals(s, t, u);
+            assertEquals(s, t.toString(), u.toString());
+        }
+    }
+
+    @Test
+    public void testTaskRoundTrip() {
+        for (String s : new String[] {
+                "<a --> b>. %0.8;0.7%",
+                "<a --> b>. :|: %1.0;0.9%",
+                "<a --> b>?",
+                "(&/, <a --> b>, /3, <c --> d>)! :/:" }) {
+
+            Task t = n.inputTask(s);
+            Task u = BinaryCodec.decodeTask(BinaryCodec.encode(t));
+
+            assertEquals(s, t, u);
+            assertEquals(s, t.getTruth(), u.getTruth());
+            assertEquals(t.getCreationTime(), u.getCreationTime());
+            assertEquals(t.getOccurrenceTime(), u.getOccurrenceTime());
+            assertEquals(t.getPriority(), u.getPriority(), 0);
+            assertEquals(t.getDurability(), u.getDurability(), 0);
+            assertEquals(t.getQuality(), u.getQuality(), 0);
+            assertArrayEquals(t.getEvidence(), u.getEvidence());
+        }
+    }
+
+    @Test
+    public void testStreamSharesAtoms() {
+        BinaryCodec.Encoder e = new BinaryCodec.Encoder();
+        Term[] t = Arrays.stream(terms).map(s -> (Term) n.term(s)).toArray(Term[]::new);
+        for (Term x : t)
+            e.term(x);
+
+        int once = BinaryCodec.encode(n.term("<(&&, <a --> b>, <c --> d>) ==> <e --> f>>")).length;
+        e.term(n.term("<(&&, <a --> b>, <c --> d>) ==> <e --> f>>"));
+        int len = e.length();
+        e.term(n.term("<(&&, <a --> b>, <c --> d>) ==> <e --> f>>"));
+        assertTrue("repeated atoms are references", e.length() - len < once);
+
+        BinaryCodec.Decoder d = new BinaryCodec.Decoder(e.toByteBuffer());
+        for (Term x : t)
+            assertEquals(x, d.term());
+    }
+
+    @Test
+    public void testDirectBuffer() {
+        byte[] b = BinaryCodec.encode(n.term("<(*, a, b) --> c>"));
+        ByteBuffer direct = ByteBuffer.allocateDirect(b.length);
+        direct.put(b).flip();
+        assertEquals(n.term("<(*, a, b) --> c>"), new BinaryCodec.Decoder(direct).term());
+    }
+
+    @Test
+    public void testSmallerThanSerialization() throws IOException {
+        Task t = n.inputTask("<(&&, <a --> b>, <c --> d>) ==> <e --> f>>. %0.8;0.7%");
+
+        ByteArrayOutputStream bs = new ByteArrayOutputStream();
+        ObjectOutputStream o = new ObjectOutputStream(bs);
+        o.writeObject(t);
+        o.close();
+
+        assertTrue(BinaryCodec.encode(t).length < bs.size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testRejectsOtherStreams() {
+        BinaryCodec.decodeTerm(new byte[] { 1, 2, 3, 4, 5 });
+    }
+}
@@ -0,0 +1,192 @@
+package nars.util.io;
+
+import nars.NAR;
+import nars.concept.Concept;
+import nars.nar.Default;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+public class CheckpointTest {
+
+    @Rule
+    public final TemporaryFolder dir = new TemporaryFolder();
+
+    static Set<String> beliefs(NAR n) {
+        Set<String> s = new HashSet();
+        n.forEachConceptTask(true, false, false, false, t -> s.add(t.toString()));
+        return s;
+    }
+
+    @Test
+    public void testFullRestore() throws Exception {
+        NAR a = new Default();
+        a.input("<a --> b>.", "<b --> c>.", "<c --> d>?");
+        a.frame(16);
+
+        Path p = dir.getRoot().toPath().resolve("nar.ckpt");
+        Checkpoint c = new Checkpoint(a, p);
+        Checkpoint.Stats s = c.save(false).get();
+        c.close();
+        assertFalse(s.incremental);
+        assertTrue(s.concepts > 0);
+
+        NAR b = new Default();
+        int restored = Checkpoint.restore(b, p);
+        assertEquals(s.concepts, restored);
+        assertEquals(a.time(), b.time());
+        assertEquals(beliefs(a), beliefs(b));
+
+        Concept ab = b.concept("<a --> b>");
+        assertNotNull(ab);
+        assertEquals(a.concept("<a --> b>").getTermLinks().size(), ab.getTermLinks().size());
+
+        //the restored NAR continues reasoning
+        b.frame(4);
+    }
+
+    static int active(NAR n) {
+        int[] count = { 0 };
+        n.forEachConcept(c -> count[0]++);
+        return count[0];
+    }
+
+    @Test
+    public void testInactiveConcepts() throws Exception {
+        //fewer active concepts than the input creates
+        NAR a = new Default(4, 1, 1, 3);
+        a.input("<a --> b>.", "<b --> c>.", "<c --> d>.", "<d --> e>.", "<e --> f>.");
+        a.frame(8);
+        assertTrue(a.memory.size() > active(a));
+
+        Path p = dir.getRoot().toPath().resolve("nar.ckpt");
+        Checkpoint.Stats s = a.checkpoint(p, false).get();
+        assertEquals(a.memory.size(), s.concepts);
+
+        NAR b = new Default(4, 1, 1, 3);
+        assertEquals(s.concepts, b.restore(p));
+        assertEquals(a.memory.size(), b.memory.size());
+        assertEquals(active(a), active(b));
+        assertEquals(beliefs(a), beliefs(b));
+    }
+
+    @Test
+    public void testNARCheckpoint() throws Exception {
+        NAR a = new Default();
+        a.input("<a --> b>.");
+        a.frame(4);
+
+        Path p = dir.getRoot().toPath().resolve("nar.ckpt");
+        assertFalse(a.checkpoint(p, true).get().incremental);
+
+        a.input("<x --> y>.");
+        a.frame(4);
+        assertTrue(a.checkpoint(p, true).get().incremental);
+
+        NAR b = new Default();
+        b.restore(p);
+        assertNotNull(b.concept("<a --> b>"));
+        assertNotNull(b.concept("<x --> y>"));
+        assertEquals(a.time(), b.time());
+    }
+
+    @Test
+    public void testIncremental() throws Exception {
+        NAR a = new Default();
+        a.input("<a --> b>.");
+        a.frame(4);
+
+        Path p = dir.getRoot().toPath().resolve("nar.ckpt");
+        Checkpoint c = new Checkpoint(a, p);
+        Checkpoint.Stats full = c.save(true).get();
+        assertFalse("no previous checkpoint", full.incremental);
+
+        a.input("<x --> y>.");
+        a.frame(4);
+
+        Checkpoint.Stats inc = c.save(true).get();
+        c.close();
+        assertTrue(inc.incremental);
+        assertTrue(inc.concepts > 0);
+
+        NAR b = new Default();
+        Checkpoint.restore(b, p);
+        assertNotNull(b.concept("<a --> b>"));
+        assertNotNull(b.concept("<x --> y>"));
+        assertEquals(a.time(), b.time());
+    }
+
+    @Test
+    public void testRestoreInWindows() throws Exception {
+        NAR a = new Default();
+        a.input("<a --> b>.", "<b --> c>.", "<c --> d>?");
+        a.frame(16);
+
+        Path p = dir.getRoot().toPath().resolve("nar.ckpt");
+        Checkpoint c = new Checkpoint(a, p);
+        Checkpoint.Stats s = c.save(false).get();
+        a.input("<x --> y>.");
+        a.frame(4);
+        c.save(true).get();
+        c.close();
+
+        NAR whole = new Default();
+        int n = Checkpoint.restore(whole, p);
+
+        //windows smaller than most records, so records cross their ends
+        NAR windowed = new Default();
+        assertEquals(n, Checkpoint.restore(windowed, p, 64));
+        assertTrue(n >= s.concepts);
+        assertEquals(a.time(), windowed.time());
+        assertEquals(beliefs(whole), beliefs(windowed));
+        assertNotNull(windowed.concept("<x --> y>"));
+    }
+
+    @Test
+    public void testFailedWriteKeepsChanges() throws Exception {
+        NAR a = new Default();
+        a.input("<a --> b>.");
+        a.frame(4);
+
+        Path p = dir.getRoot().toPath().resolve("nar.ckpt");
+        Checkpoint c = new Checkpoint(a, p);
+        c.save(false).get();
+        byte[] saved = Files.readAllBytes(p);
+
+        a.input("<x --> y>.");
+        a.frame(4);
+
+        //a directory in place of the file fails the append
+        Files.delete(p);
+        Files.createDirectory(p);
+        try {
+            c.save(true).get();
+            fail("append to a directory");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        Files.delete(p);
+        Files.write(p, saved);
+
+        //the next checkpoint includes the changes of the failed one
+        Checkpoint.Stats s = c.save(true).get();
+        c.close();
+        assertTrue(s.incremental);
+
+        NAR b = new Default();
+        Checkpoint.restore(b, p);
+        Concept xy = b.concept("<x --> y>");
+        assertNotNull(xy);
+        assertEquals(a.concept("<x --> y>").getBeliefs().size(), xy.getBeliefs().size());
+    }
+}
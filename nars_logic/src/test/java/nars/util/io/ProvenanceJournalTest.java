@@ -0,0 +1,102 @@
+package nars.util.io;
+
+import nars.NAR;
+import nars.nar.Default;
+import nars.task.Task;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProvenanceJournalTest {
+
+    @Test
+    public void testRecordAndRead() throws Exception {
+        NAR n = new Default();
+        try (ProvenanceJournal j = ProvenanceJournal.tmp()) {
+            Task a = n.task("<a --> b>.");
+            Task b = n.task("<b --> c>.");
+
+            long ia = j.task(a, ProvenanceJournal.NONE, ProvenanceJournal.NONE, Arrays.asList("Input"));
+            long ib = j.task(b, ia, ProvenanceJournal.NONE, null);
+
+            assertEquals(ia, j.parentTask(ib));
+            assertEquals(ProvenanceJournal.NONE, j.parentBelief(ib));
+            assertEquals(a.getTerm(), j.get(ia).getTerm());
+
+            long l1 = j.log(ia, ProvenanceJournal.NONE, "x");
+            long l2 = j.log(ia, l1, "y");
+            assertEquals(Arrays.asList("Input", "x", "y"), j.log(ia, l2));
+        }
+    }
+
+    @Test
+    public void testWalkParents() throws Exception {
+        NAR n = new Default();
+        try (ProvenanceJournal j = ProvenanceJournal.tmp()) {
+            Task a = n.task("<a --> b>.");
+            Task b = n.task("<b --> c>.");
+            Task c = n.task("<a --> c>.");
+
+            long ia = j.task(a, ProvenanceJournal.NONE, ProvenanceJournal.NONE, null);
+            long ib = j.task(b, ia, ProvenanceJournal.NONE, null);
+            long ic = j.task(c, ib, ia, null);
+
+            Task t = j.get(ic);
+            assertTrue(t.isDouble());
+            assertFalse(t.isInput());
+
+            Task p = t.getParentTask();
+            assertEquals(b.getTerm(), p.getTerm());
+            assertTrue(p.isSingle());
+            assertEquals(a.getTerm(), p.getParentTask().getTerm());
+            assertTrue(p.getParentTask().isInput());
+            assertEquals(a.getTerm(), t.getRootTask().getTerm());
+            assertTrue(t.hasParent(j.get(ia)));
+        }
+    }
+
+    @Test
+    public void testSegments() throws Exception {
+        NAR n = new Default();
+        try (ProvenanceJournal j = new ProvenanceJournal(
+                java.nio.file.Files.createTempFile("provenance", ".journal"), 256)) {
+            Task a = n.task("<a --> b>.");
+            long prev = ProvenanceJournal.NONE;
+            for (int i = 0; i < 100; i++)
+                prev = j.task(a, prev, ProvenanceJournal.NONE, null);
+
+            int depth = 0;
+            for (long x = prev; x != ProvenanceJournal.NONE; x = j.parentTask(x))
+                depth++;
+            assertEquals(100, depth);
+        }
+    }
+
+    @Test
+    public void testDerivedTasksReadParentsFromJournal() throws Exception {
+        Default n = new Default();
+        try (ProvenanceJournal j = ProvenanceJournal.tmp()) {
+            n.memory.journal = j;
+            n.input("<a --> b>.", "<b --> c>.");
+            n.frame(20);
+
+            Task[] derived = { null };
+            n.forEachConceptTask(t -> {
+                if (!t.isInput() && derived[0] == null)
+                    derived[0] = t;
+            });
+            assertNotNull(derived[0]);
+
+            Task p = derived[0].getParentTask();
+            assertNotNull(p);
+            assertNull(derived[0].getParentTaskRef());
+
+            List log = derived[0].getLog();
+            assertNotNull(log);
+            assertTrue(j.size() > 0);
+        }
+    }
+}
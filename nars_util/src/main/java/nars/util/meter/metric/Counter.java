@@ -0,0 +1,51 @@
+package nars.util.meter.metric;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count, striped across threads (LongAdder) so that concurrent
+ * increments do not contend; the stripes are only summed when read.
+ */
+public final class Counter implements Metric {
+
+    private final String name, help;
+    private final LongAdder count = new LongAdder();
+
+    public Counter(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    public void inc() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+
+    @Override
+    public String type() {
+        return "counter";
+    }
+
+    @Override
+    public void writeSamples(Appendable out) throws IOException {
+        out.append(name).append(' ').append(Long.toString(get())).append('\n');
+    }
+}
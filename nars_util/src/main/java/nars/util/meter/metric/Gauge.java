@@ -0,0 +1,45 @@
+package nars.util.meter.metric;
+
+import java.io.IOException;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Value computed only when read, so it costs nothing between scrapes.
+ * The supplier is called from the scraping thread and so should only read
+ * fields which are safe to read racily (ex: a collection's size).
+ */
+public final class Gauge implements Metric {
+
+    private final String name, help;
+    private final DoubleSupplier value;
+
+    public Gauge(String name, String help, DoubleSupplier value) {
+        this.name = name;
+        this.help = help;
+        this.value = value;
+    }
+
+    public double get() {
+        return value.getAsDouble();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+
+    @Override
+    public String type() {
+        return "gauge";
+    }
+
+    @Override
+    public void writeSamples(Appendable out) throws IOException {
+        out.append(name).append(' ').append(Double.toString(get())).append('\n');
+    }
+}
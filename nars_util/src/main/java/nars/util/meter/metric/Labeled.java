@@ -0,0 +1,66 @@
+package nars.util.meter.metric;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Values of one name distinguished by a label (ex: a count per rule), read
+ * from a map only when scraped.  The supplier is called from the scraping
+ * thread, like a Gauge's.
+ */
+public final class Labeled implements Metric {
+
+    private final String name, help, type, label;
+    private final Supplier<? extends Map<String, ? extends Number>> values;
+
+    /** @param type counter or gauge */
+    public Labeled(String name, String help, String type, String label, Supplier<? extends Map<String, ? extends Number>> values) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.label = label;
+        this.values = values;
+    }
+
+    public Map<String, ? extends Number> get() {
+        return values.get();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+
+    @Override
+    public String type() {
+        return type;
+    }
+
+    @Override
+    public void writeSamples(Appendable out) throws IOException {
+        for (Map.Entry<String, ? extends Number> e : get().entrySet()) {
+            out.append(name).append('{').append(label).append("=\"");
+            escape(e.getKey(), out);
+            out.append("\"} ").append(e.getValue().toString()).append('\n');
+        }
+    }
+
+    /** backslash, double-quote and line feed are escaped in label values */
+    static void escape(String s, Appendable out) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '"': out.append("\\\""); break;
+                case '\n': out.append("\\n"); break;
+                default: out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package nars.util.meter.metric;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative long values (ex: nanoseconds) in log-linear
+ * buckets, as in HdrHistogram: values below 8 are exact, and each power of 2
+ * above is divided into 8 buckets, so a value is recorded within 12.5% with
+ * a fixed 496 bucket array.  Recording is one atomic increment and two
+ * striped adds, without locking or allocation.
+ */
+public final class LogHistogram implements Metric {
+
+    static final int SUB_BITS = 3, SUB = 1 << SUB_BITS;
+    static final int BUCKETS = SUB + (64 - SUB_BITS) * SUB;
+
+    private final String name, help;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder(), sum = new LongAdder();
+
+    public LogHistogram(String name, String help) {
+        this.name = name;
+        this.help = help;
+    }
+
+    static int bucket(long v) {
+        if (v < SUB) return (int) Math.max(v, 0);
+        int e = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (e - SUB_BITS)) & (SUB - 1);
+        return SUB + (e - SUB_BITS) * SUB + sub;
+    }
+
+    /** the least value of a bucket */
+    static long lowest(int bucket) {
+        if (bucket < SUB) return bucket;
+        int e = (bucket - SUB) / SUB + SUB_BITS;
+        int sub = (bucket - SUB) % SUB;
+        return (1L << e) | ((long) sub << (e - SUB_BITS));
+    }
+
+    /** the greatest value of a bucket */
+    static long highest(int bucket) {
+        return (bucket == BUCKETS - 1) ? Long.MAX_VALUE : lowest(bucket + 1) - 1;
+    }
+
+    public void record(long v) {
+        buckets.incrementAndGet(bucket(v));
+        count.increment();
+        sum.add(v);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public double mean() {
+        long c = count();
+        return (c == 0) ? 0 : sum() / (double) c;
+    }
+
+    /** upper bound of the value at quantile q in [0, 1] */
+    public long quantile(double q) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += buckets.get(i);
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(q * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= Math.max(rank, 1))
+                return highest(i);
+        }
+        return highest(BUCKETS - 1);
+    }
+
+    public void clear() {
+        for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String help() {
+        return help;
+    }
+
+    @Override
+    public String type() {
+        return "histogram";
+    }
+
+    /** cumulative buckets at each power of 2 which has been reached, then +Inf */
+    @Override
+    public void writeSamples(Appendable out) throws IOException {
+        long cumulative = 0;
+        int last = BUCKETS - 1;
+        while (last > 0 && buckets.get(last) == 0) last--;
+
+        for (int i = 0; i <= last; i++) {
+            cumulative += buckets.get(i);
+            //the last bucket of each power of 2, and the exact buckets
+            if (i < SUB || (i - SUB) % SUB == SUB - 1 || i == last) {
+                out.append(name).append("_bucket{le=\"").append(Long.toString(highest(i)))
+                        .append("\"} ").append(Long.toString(cumulative)).append('\n');
+            }
+        }
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(Long.toString(count())).append('\n');
+        out.append(name).append("_sum ").append(Long.toString(sum())).append('\n');
+        out.append(name).append("_count ").append(Long.toString(count())).append('\n');
+    }
+}
@@ -0,0 +1,20 @@
+package nars.util.meter.metric;
+
+import java.io.IOException;
+
+/**
+ * A named value of a MetricRegistry, written in the Prometheus text
+ * exposition format when scraped.
+ */
+public interface Metric {
+
+    String name();
+
+    String help();
+
+    /** counter, gauge or histogram */
+    String type();
+
+    /** appends the sample lines (not the HELP and TYPE lines) */
+    void writeSamples(Appendable out) throws IOException;
+}
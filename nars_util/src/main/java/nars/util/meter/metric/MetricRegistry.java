@@ -0,0 +1,209 @@
+package nars.util.meter.metric;
+
+import javax.management.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named metrics, exported in the Prometheus text exposition format or as a
+ * JMX MBean.  Metrics are updated without locking; registration and
+ * scraping are the only synchronized operations.
+ * <p>
+ * Scrape listeners are notified before each export, and before each read of
+ * the MBean's attributes, so that a value which is expensive to compute can
+ * be refreshed only while something is reading it.
+ */
+public class MetricRegistry {
+
+    private final String prefix;
+    private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+    private final List<Runnable> onScrape = new CopyOnWriteArrayList<>();
+
+    /** @param prefix prepended, with '_', to the names of the metrics */
+    public MetricRegistry(String prefix) {
+        this.prefix = prefix.isEmpty() ? "" : prefix + '_';
+    }
+
+    private synchronized <M extends Metric> M add(M m) {
+        Metric existing = metrics.putIfAbsent(m.name(), m);
+        if (existing != null) {
+            if (existing.getClass() != m.getClass())
+                throw new IllegalArgumentException("metric " + m.name() + " already registered as " + existing.type());
+            return (M) existing;
+        }
+        return m;
+    }
+
+    public Counter counter(String name, String help) {
+        return add(new Counter(prefix + name, help));
+    }
+
+    public Gauge gauge(String name, String help, DoubleSupplier value) {
+        return add(new Gauge(prefix + name, help, value));
+    }
+
+    public LogHistogram histogram(String name, String help) {
+        return add(new LogHistogram(prefix + name, help));
+    }
+
+    /** values distinguished by a label, ex: a counter per rule */
+    public Labeled labeled(String name, String help, String type, String label,
+                           Supplier<? extends Map<String, ? extends Number>> values) {
+        return add(new Labeled(prefix + name, help, type, label, values));
+    }
+
+    public Metric get(String name) {
+        return metrics.get(prefix + name);
+    }
+
+    public void remove(String name) {
+        metrics.remove(prefix + name);
+    }
+
+    public void onScrape(Runnable r) {
+        onScrape.add(r);
+    }
+
+    public Iterable<Metric> metrics() {
+        return metrics.values();
+    }
+
+    private void scraping() {
+        for (Runnable r : onScrape)
+            r.run();
+    }
+
+    public void scrape(Appendable out) throws IOException {
+        scraping();
+
+        for (Metric m : metrics.values()) {
+            out.append("# HELP ").append(m.name()).append(' ').append(m.help()).append('\n');
+            out.append("# TYPE ").append(m.name()).append(' ').append(m.type()).append('\n');
+            m.writeSamples(out);
+        }
+    }
+
+    /** the metrics in Prometheus text exposition format (version 0.0.4) */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(128 * metrics.size());
+        try {
+            scrape(sb);
+        } catch (IOException e) {
+            throw new RuntimeException(e); //not thrown by StringBuilder
+        }
+        return sb.toString();
+    }
+
+    /** registers an MBean, named ex: "nars:type=Metrics", whose attributes read the metrics */
+    public ObjectName registerMBean(String objectName) throws JMException {
+        ObjectName n = new ObjectName(objectName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), n);
+        return n;
+    }
+
+    public void unregisterMBean(ObjectName n) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(n);
+    }
+
+    /**
+     * counters and gauges as attributes of their name; histograms as
+     * name.count, name.mean, name.p50, name.p99 and name.max; labeled
+     * values as name[value]
+     */
+    final class MBean implements DynamicMBean {
+
+        static final String COUNT = ".count", MEAN = ".mean", P50 = ".p50", P99 = ".p99", MAX = ".max";
+
+        @Override
+        public Object getAttribute(String a) throws AttributeNotFoundException {
+            scraping();
+            return value(a);
+        }
+
+        private Object value(String a) throws AttributeNotFoundException {
+            Metric m = metrics.get(a);
+            if (m instanceof Counter) return ((Counter) m).get();
+            if (m instanceof Gauge) return ((Gauge) m).get();
+
+            int bracket = a.indexOf('[');
+            if (bracket != -1 && a.endsWith("]") && metrics.get(a.substring(0, bracket)) instanceof Labeled) {
+                Number v = ((Labeled) metrics.get(a.substring(0, bracket))).get()
+                        .get(a.substring(bracket + 1, a.length() - 1));
+                if (v != null) return v.doubleValue();
+            }
+
+            int dot = a.lastIndexOf('.');
+            if (dot != -1 && metrics.get(a.substring(0, dot)) instanceof LogHistogram) {
+                LogHistogram h = (LogHistogram) metrics.get(a.substring(0, dot));
+                switch (a.substring(dot)) {
+                    case COUNT: return h.count();
+                    case MEAN: return h.mean();
+                    case P50: return h.quantile(0.5);
+                    case P99: return h.quantile(0.99);
+                    case MAX: return h.quantile(1);
+                }
+            }
+            throw new AttributeNotFoundException(a);
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            scraping();
+            AttributeList l = new AttributeList(names.length);
+            for (String n : names) {
+                try {
+                    l.add(new Attribute(n, value(n)));
+                } catch (AttributeNotFoundException ignored) {
+                }
+            }
+            return l;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> a = new ArrayList<>();
+            for (Metric m : metrics.values()) {
+                if (m instanceof LogHistogram) {
+                    a.add(attribute(m.name() + COUNT, "long", m.help()));
+                    a.add(attribute(m.name() + MEAN, "double", m.help()));
+                    a.add(attribute(m.name() + P50, "long", m.help()));
+                    a.add(attribute(m.name() + P99, "long", m.help()));
+                    a.add(attribute(m.name() + MAX, "long", m.help()));
+                } else if (m instanceof Labeled) {
+                    for (String v : ((Labeled) m).get().keySet())
+                        a.add(attribute(m.name() + '[' + v + ']', "double", m.help()));
+                } else {
+                    a.add(attribute(m.name(), (m instanceof Counter) ? "long" : "double", m.help()));
+                }
+            }
+            return new MBeanInfo(MetricRegistry.class.getName(), "NARS metrics",
+                    a.toArray(new MBeanAttributeInfo[a.size()]), null, null, null);
+        }
+
+        private MBeanAttributeInfo attribute(String name, String type, String help) {
+            return new MBeanAttributeInfo(name, type, help, true, false, false);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package nars.util.event;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testExpiresAtDeadline() {
+        TimingWheel<String> w = new TimingWheel<>(8, 0);
+        w.add("a", 3);
+        w.add("b", 5);
+        w.add("c", 5 + 8); //same slot as b, next rotation
+
+        List<String> out = new ArrayList<>();
+        w.advance(2, out::add);
+        assertTrue(out.isEmpty());
+
+        w.advance(3, out::add);
+        assertEquals("[a]", out.toString());
+
+        w.advance(5, out::add);
+        assertEquals("[a, b]", out.toString());
+        assertEquals(1, w.size());
+
+        w.advance(13, out::add);
+        assertEquals("[a, b, c]", out.toString());
+        assertTrue(w.isEmpty());
+    }
+
+    @Test
+    public void testAdvanceBeyondRotation() {
+        TimingWheel<Integer> w = new TimingWheel<>(4, 0);
+        for (int i = 1; i <= 20; i++)
+            w.add(i, i);
+
+        List<Integer> out = new ArrayList<>();
+        assertEquals(10, w.advance(10, out::add));
+        for (int i = 1; i <= 10; i++)
+            assertTrue(out.contains(i));
+
+        assertEquals(10, w.advance(100, out::add));
+        assertEquals(20, out.size());
+    }
+
+    @Test
+    public void testPastDeadlineExpiresNextTick() {
+        TimingWheel<String> w = new TimingWheel<>(8, 10);
+        w.add("late", 4);
+        List<String> out = new ArrayList<>();
+        w.advance(11, out::add);
+        assertEquals("[late]", out.toString());
+    }
+}
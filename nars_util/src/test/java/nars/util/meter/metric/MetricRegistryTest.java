@@ -0,0 +1,104 @@
+package nars.util.meter.metric;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long v : new long[] { 0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789L }) {
+            int b = LogHistogram.bucket(v);
+            assertTrue(v + " >= " + LogHistogram.lowest(b), v >= LogHistogram.lowest(b));
+            assertTrue(v + " <= " + LogHistogram.highest(b), v <= LogHistogram.highest(b));
+            //within 12.5%
+            assertTrue(LogHistogram.highest(b) - LogHistogram.lowest(b) <= Math.max(0, v / 8));
+        }
+    }
+
+    @Test
+    public void testHistogramQuantile() {
+        LogHistogram h = new LogHistogram("x", "");
+        for (int i = 1; i <= 1000; i++)
+            h.record(i);
+        assertEquals(1000, h.count());
+        assertEquals(500.5, h.mean(), 0.001);
+
+        long p50 = h.quantile(0.5);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125);
+        assertTrue(h.quantile(1) >= 1000);
+    }
+
+    @Test
+    public void testScrape() {
+        MetricRegistry r = new MetricRegistry("test");
+        r.counter("a_total", "A").add(3);
+        r.gauge("b", "B", () -> 2.5);
+        r.histogram("c", "C").record(10);
+
+        int[] scrapes = { 0 };
+        r.onScrape(() -> scrapes[0]++);
+
+        String s = r.scrape();
+        assertEquals(1, scrapes[0]);
+        assertTrue(s, s.contains("# TYPE test_a_total counter\ntest_a_total 3\n"));
+        assertTrue(s, s.contains("test_b 2.5\n"));
+        assertTrue(s, s.contains("test_c_bucket{le=\"+Inf\"} 1\n"));
+        assertTrue(s, s.contains("test_c_count 1\n"));
+
+        //the same metric is returned when registered again
+        assertSame(r.counter("a_total", "A"), r.counter("a_total", "A"));
+    }
+
+    @Test
+    public void testLabeled() throws Exception {
+        MetricRegistry r = new MetricRegistry("test");
+        Map<String, Long> m = new TreeMap<>();
+        m.put("a", 1L);
+        m.put("b \"c\"", 2L);
+        r.labeled("hits_total", "Hits", "counter", "rule", () -> m);
+
+        String s = r.scrape();
+        assertTrue(s, s.contains("# TYPE test_hits_total counter\n"));
+        assertTrue(s, s.contains("test_hits_total{rule=\"a\"} 1\n"));
+        assertTrue(s, s.contains("test_hits_total{rule=\"b \\\"c\\\"\"} 2\n"));
+
+        ObjectName n = r.registerMBean("nars:type=MetricRegistryTestLabeled");
+        try {
+            assertEquals(1.0, ManagementFactory.getPlatformMBeanServer().getAttribute(n, "test_hits_total[a]"));
+        } finally {
+            r.unregisterMBean(n);
+        }
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        MetricRegistry r = new MetricRegistry("mbean");
+        r.counter("hits", "").add(5);
+        r.histogram("t", "").record(100);
+
+        int[] scrapes = { 0 };
+        r.onScrape(() -> scrapes[0]++);
+
+        ObjectName n = r.registerMBean("nars:type=MetricRegistryTest");
+        try {
+            MBeanServer s = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(5L, s.getAttribute(n, "mbean_hits"));
+            assertEquals(1L, s.getAttribute(n, "mbean_t.count"));
+            assertEquals(2, scrapes[0]);
+
+            //once for several attributes
+            assertEquals(2, s.getAttributes(n, new String[] { "mbean_hits", "mbean_t.count" }).size());
+            assertEquals(3, scrapes[0]);
+        } finally {
+            r.unregisterMBean(n);
+        }
+    }
+}
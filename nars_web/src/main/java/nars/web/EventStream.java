@@ -0,0 +1,233 @@
+package nars.web;
+
+import com.gs.collections.impl.map.mutable.primitive.ObjectIntHashMap;
+import nars.Memory;
+import nars.task.Task;
+import nars.util.event.Active;
+import nars.util.event.On;
+import nars.util.event.Topic;
+import nars.util.io.BinaryCodec;
+import nars.util.utf8.Utf8;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound event queue of one client.  The reasoner's event handlers only
+ * enqueue the event, without formatting or blocking; a flush, scheduled
+ * periodically off the reasoner thread, drains the queue into a single frame.
+ * <p>
+ * Identical events within a batch are coalesced into one line with a count.
+ * While the previous frame has not been sent the queue is not drained, so a
+ * slow client fills its queue, after which events are dropped according to
+ * the Overflow policy and the number dropped is reported in the next frame.
+ * <p>
+ * Text frames are newline separated lines: "KIND: event", with " (xN)"
+ * appended to coalesced events.  Binary frames are a BinaryCodec stream of
+ * (u8 kind, varint count, u8 format, task or utf8 text) per event.
+ */
+abstract public class EventStream {
+
+    public enum Kind {
+        IN(" IN"), DER("DER"), ANS("ANS"), EXE("EXE"), ERR("ERR");
+
+        public final String label;
+
+        Kind(String label) {
+            this.label = label;
+        }
+
+        Topic<?> topic(Memory m) {
+            switch (this) {
+                case IN: return m.eventInput;
+                case DER: return m.eventDerived;
+                case ANS: return m.eventAnswer;
+                case EXE: return m.eventExecute;
+                default: return m.eventError;
+            }
+        }
+    }
+
+    public enum Overflow {
+        /** discard the incoming event */
+        DROP_NEWEST,
+        /** discard the oldest queued event to admit the incoming */
+        DROP_OLDEST
+    }
+
+    static final class Event {
+        final Kind kind;
+        final Object value;
+
+        Event(Kind kind, Object value) {
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+
+    static final int FORMAT_TEXT = 0, FORMAT_TASK = 1;
+
+    private final ArrayBlockingQueue<Event> queue;
+    private final Overflow overflow;
+    private final int maxBatch;
+    public final boolean binary;
+
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    private Active active;
+
+    public EventStream(int capacity, int maxBatch, Overflow overflow, boolean binary) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.overflow = overflow;
+        this.binary = binary;
+    }
+
+    /** sends a text frame; must call sent() when the send completes or fails */
+    abstract protected void sendText(String s);
+
+    /** sends a binary frame; must call sent() when the send completes or fails */
+    abstract protected void sendBinary(ByteBuffer b);
+
+    public EventStream on(Memory m, Set<Kind> kinds) {
+        off();
+        On[] ons = new On[kinds.size()];
+        int i = 0;
+        for (Kind k : kinds)
+            ons[i++] = k.topic(m).on(v -> add(k, v));
+        active = new Active(ons);
+        return this;
+    }
+
+    public void off() {
+        if (active != null) {
+            active.off();
+            active = null;
+        }
+    }
+
+    /** called from the reasoner; never blocks */
+    public void add(Kind k, Object value) {
+        Event e = new Event(k, value);
+        if (queue.offer(e))
+            return;
+
+        if (overflow == Overflow.DROP_OLDEST) {
+            while (!queue.offer(e)) {
+                if (queue.poll() != null)
+                    dropped.incrementAndGet();
+            }
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    public int dropped() {
+        return dropped.get();
+    }
+
+    /** the previous frame was sent, or failed */
+    public void sent() {
+        sending.set(false);
+    }
+
+    /**
+     * drains up to maxBatch events into one frame, unless the previous frame
+     * is still being sent
+     *
+     * @return the number of events sent
+     */
+    public int flush() {
+        if (queue.isEmpty() && dropped.get() == 0)
+            return 0;
+        if (!sending.compareAndSet(false, true))
+            return 0;
+
+        List<Event> batch = new ArrayList<>(Math.min(queue.size(), maxBatch));
+        queue.drainTo(batch, maxBatch);
+        int lost = dropped.getAndSet(0);
+
+        if (batch.isEmpty() && lost == 0) {
+            sending.set(false);
+            return 0;
+        }
+
+        //coalesce identical events, in order of first occurrence
+        ObjectIntHashMap<String> counts = new ObjectIntHashMap<>(batch.size());
+        List<Event> unique = new ArrayList<>(batch.size());
+        List<String> lines = new ArrayList<>(batch.size());
+        for (Event e : batch) {
+            String line = e.kind.label + ": " + e.value;
+            if (counts.getIfAbsentPut(line, 0) == 0) {
+                unique.add(e);
+                lines.add(line);
+            }
+            counts.addToValue(line, 1);
+        }
+
+        try {
+            if (binary)
+                sendBinary(encode(unique, lines, counts, lost));
+            else
+                sendText(text(lines, counts, lost));
+        } catch (RuntimeException ex) {
+            sending.set(false);
+            throw ex;
+        }
+        return batch.size();
+    }
+
+    static String text(List<String> lines, ObjectIntHashMap<String> counts, int lost) {
+        StringBuilder sb = new StringBuilder(lines.size() * 64);
+        for (String l : lines) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(l);
+            int n = counts.get(l);
+            if (n > 1) sb.append(" (x").append(n).append(')');
+        }
+        if (lost > 0) {
+            if (sb.length() > 0) sb.append('\n');
+            sb.append("... ").append(lost).append(" events dropped");
+        }
+        return sb.toString();
+    }
+
+    static ByteBuffer encode(List<Event> unique, List<String> lines, ObjectIntHashMap<String> counts, int lost) {
+        BinaryCodec.Encoder e = new BinaryCodec.Encoder(64 * unique.size());
+        e.varint(unique.size());
+        for (int i = 0; i < unique.size(); i++) {
+            Event x = unique.get(i);
+            e.u8(x.kind.ordinal());
+            e.varint(counts.get(lines.get(i)));
+            if (x.value instanceof Task) {
+                e.u8(FORMAT_TASK).task((Task) x.value);
+            } else {
+                e.u8(FORMAT_TEXT).bytes(Utf8.toUtf8(String.valueOf(x.value)));
+            }
+        }
+        e.varint(lost);
+        return e.toByteBuffer();
+    }
+
+    /** parses a comma separated list of Kind names; all kinds if null or empty */
+    public static Set<Kind> kinds(String csv) {
+        if (csv == null || csv.trim().isEmpty())
+            return EnumSet.allOf(Kind.class);
+
+        Set<Kind> s = EnumSet.noneOf(Kind.class);
+        for (String k : csv.split(","))
+            s.add(Kind.valueOf(k.trim().toUpperCase()));
+        return s;
+    }
+}
@@ -5,6 +5,7 @@ import io.undertow.Undertow;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.handlers.PathHandler;
 import io.undertow.server.handlers.resource.FileResourceManager;
+import io.undertow.util.Headers;
 import io.undertow.websockets.WebSocketConnectionCallback;
 import io.undertow.websockets.core.*;
 import io.undertow.websockets.extensions.PerMessageDeflateHandshake;
@@ -17,12 +18,18 @@ import nars.nar.Default;
 import nars.time.RealtimeMSClock;
 import nars.util.data.random.XorShift1024StarRandom;
 import nars.util.db.InfiniPeer;
-import nars.util.event.Active;
 import nars.util.io.JSON;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static io.undertow.Handlers.resource;
 import static io.undertow.Handlers.websocket;
@@ -38,11 +45,18 @@ public class NARWebServer extends PathHandler {
 
     long idleFPS = 7 /* low alpha brainwaves */;
 
+    /** per-client event queue size, events per frame, and interval between frames */
+    int streamCapacity = 4096, streamBatchMax = 512;
+    long streamFlushMS = 100;
 
-    public class WebSocketCore extends AbstractReceiveListener implements WebSocketCallback<Void>, WebSocketConnectionCallback {
+    final Set<EventStream> streams = new CopyOnWriteArraySet<>();
+
+    /** sends the clients' queued events, off the reasoner thread */
+    private ScheduledExecutorService flusher;
 
 
-        private Active active;
+    public class WebSocketCore extends AbstractReceiveListener implements WebSocketCallback<Void>, WebSocketConnectionCallback {
+
 
         public WebSocketCore() {
             super();
@@ -54,6 +68,14 @@ public class NARWebServer extends PathHandler {
         }
 
 
+        /**
+         * subscribes the socket to the reasoner's events.  query parameters:
+         *      events=in,der,ans,exe,err   (default: all)
+         *      binary                      BinaryCodec frames rather than text
+         *      overflow=drop_oldest        (default: drop_newest)
+         * an unknown event kind or overflow policy closes the socket with a
+         * policy violation whose reason names the valid values.
+         */
         @Override
         public void onConnect(WebSocketHttpExchange exchange, WebSocketChannel socket) {
 
@@ -67,50 +89,81 @@ public class NARWebServer extends PathHandler {
                 send(socket, k + ":" + v);
             });*/
 
+            Map<String, List<String>> param = exchange.getRequestParameters();
 
-            active = new Active(
-                nar.memory.eventInput.on(t -> send(socket,
-                        " IN: " + t)),
-                nar.memory.eventDerived.on(t -> send(socket,
-                        "DER: " + t)),
-                nar.memory.eventAnswer.on(t -> send(socket,
-                        "ANS: " + t)),
-                nar.memory.eventExecute.on(t -> send(socket,
-                        "EXE: " + t)),
-                nar.memory.eventError.on(t -> send(socket,
-                        "ERR: " + t))
-            );
-
-//            textOutput = new TextOutput(nar) {
-//
-//
-//                @Override
-//                protected boolean output(final Channel channel, final Class event, final Object... args) {
-//
-//                    final String prefix = channel.getLinePrefix(event, args);
-//                    final CharSequence s = channel.get(event, args);
-//
-//                    if (s != null) {
-//                        return output(prefix, s);
-//                    }
-//
-//
-//                    return false;
-//                }
-//
-//                @Override
-//                protected boolean output(String prefix, CharSequence s) {
-//                    send(socket, prefix + ": " + s);
-//                    return true;
-//                }
-//            };
+            final EventStream.Overflow overflow;
+            try {
+                overflow = param.containsKey("overflow") ?
+                        EventStream.Overflow.valueOf(param.get("overflow").get(0).trim().toUpperCase()) :
+                        EventStream.Overflow.DROP_NEWEST;
+            } catch (IllegalArgumentException e) {
+                reject(socket, "overflow must be one of " + names(EventStream.Overflow.values()));
+                return;
+            }
+
+            List<String> events = param.get("events");
+            final Set<EventStream.Kind> kinds;
+            try {
+                kinds = EventStream.kinds(events != null ? events.get(0) : null);
+            } catch (IllegalArgumentException e) {
+                reject(socket, "events must be a comma-separated list of " + names(EventStream.Kind.values()));
+                return;
+            }
+
+            EventStream s = new EventStream(streamCapacity, streamBatchMax, overflow, param.containsKey("binary")) {
+
+                final WebSocketCallback<Void> onSent = new WebSocketCallback<Void>() {
+                    @Override
+                    public void complete(WebSocketChannel channel, Void context) {
+                        sent();
+                    }
+
+                    @Override
+                    public void onError(WebSocketChannel channel, Void context, Throwable throwable) {
+                        sent();
+                    }
+                };
+
+                @Override
+                protected void sendText(String text) {
+                    WebSockets.sendText(text, socket, onSent);
+                }
+
+                @Override
+                protected void sendBinary(ByteBuffer b) {
+                    WebSockets.sendBinary(b, socket, onSent);
+                }
+            };
+
+            s.on(nar.memory, kinds);
+
+            socket.setAttribute(EventStream.class.getName(), s);
+            streams.add(s);
 
         }
 
+        /** closes a socket whose request is invalid */
+        private void reject(WebSocketChannel socket, String reason) {
+            WebSockets.sendClose(CloseMessage.MSG_VIOLATES_POLICY, reason, socket, null);
+        }
+
+        private String names(Enum[] values) {
+            StringBuilder sb = new StringBuilder();
+            for (Enum v : values) {
+                if (sb.length() > 0) sb.append(',');
+                sb.append(v.name().toLowerCase());
+            }
+            return sb.toString();
+        }
+
         @Override
         protected void onClose(WebSocketChannel socket, StreamSourceFrameChannel channel) throws IOException {
 
-            active.off();
+            EventStream s = (EventStream) socket.getAttribute(EventStream.class.getName());
+            if (s != null) {
+                s.off();
+                streams.remove(s);
+            }
 
             /*if (log.isInfoEnabled())
                 log.info(socket.getPeerAddress() + " disconnected websocket");*/
@@ -187,6 +240,10 @@ public class NARWebServer extends PathHandler {
                 new FileResourceManager(c, 100)).
                 setDirectoryListingEnabled(false));
         addPrefixPath("/ws", new WebSocketCore().get());
+        addExactPath("/metrics", exchange -> {
+            exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/plain; version=0.0.4");
+            exchange.getResponseSender().send(nar.memory.metrics().registry.scrape());
+        });
 
 
         server = Undertow.builder()
@@ -208,6 +265,22 @@ public class NARWebServer extends PathHandler {
                 //TextOutput.out(nar).setShowInput(false);
                 server.start();
 
+                flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "websocket flush");
+                    t.setDaemon(true);
+                    return t;
+                });
+                flusher.scheduleWithFixedDelay(() -> {
+                    //an exception would cancel the schedule
+                    for (EventStream s : streams) {
+                        try {
+                            s.flush();
+                        } catch (RuntimeException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }, streamFlushMS, streamFlushMS, TimeUnit.MILLISECONDS);
+
                 loop = nar.loop(idleFPS);
             }
         }
@@ -221,6 +294,10 @@ public class NARWebServer extends PathHandler {
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
+            if (flusher != null) {
+                flusher.shutdown();
+                flusher = null;
+            }
             server.stop();
         }
     }
@@ -255,6 +332,8 @@ public class NARWebServer extends PathHandler {
 
         NARWebServer s = new NARWebServer(nar, httpPort);
 
+        nar.memory.metrics().registry.registerMBean("nars:type=Metrics");
+
         System.out.println("NARS Web Server ready. port: " + httpPort);
         /*if (nlp!=null) {
             System.out.println("  NLP enabled, using: " + nlpHost + ":" + nlpPort);
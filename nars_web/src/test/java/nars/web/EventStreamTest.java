@@ -0,0 +1,71 @@
+package nars.web;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventStreamTest {
+
+    static class TestStream extends EventStream {
+        final List<String> frames = new ArrayList<>();
+
+        TestStream(int capacity, Overflow overflow) {
+            super(capacity, 100, overflow, false);
+        }
+
+        @Override
+        protected void sendText(String s) {
+            frames.add(s);
+        }
+
+        @Override
+        protected void sendBinary(ByteBuffer b) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void testBatchAndCoalesce() {
+        TestStream s = new TestStream(16, EventStream.Overflow.DROP_NEWEST);
+        s.add(EventStream.Kind.IN, "a");
+        s.add(EventStream.Kind.DER, "b");
+        s.add(EventStream.Kind.DER, "b");
+        s.add(EventStream.Kind.DER, "b");
+
+        assertEquals(4, s.flush());
+        assertEquals(1, s.frames.size());
+        assertEquals(" IN: a\nDER: b (x3)", s.frames.get(0));
+    }
+
+    @Test
+    public void testBackpressure() {
+        TestStream s = new TestStream(2, EventStream.Overflow.DROP_NEWEST);
+        s.add(EventStream.Kind.IN, "a");
+        s.flush();
+
+        //previous frame not yet sent: nothing is drained, and the queue overflows
+        s.add(EventStream.Kind.IN, "b");
+        s.add(EventStream.Kind.IN, "c");
+        s.add(EventStream.Kind.IN, "d");
+        assertEquals(0, s.flush());
+        assertEquals(1, s.dropped());
+
+        s.sent();
+        assertEquals(2, s.flush());
+        assertEquals(" IN: b\n IN: c\n... 1 events dropped", s.frames.get(1));
+    }
+
+    @Test
+    public void testDropOldest() {
+        TestStream s = new TestStream(2, EventStream.Overflow.DROP_OLDEST);
+        s.add(EventStream.Kind.IN, "a");
+        s.add(EventStream.Kind.IN, "b");
+        s.add(EventStream.Kind.IN, "c");
+        s.flush();
+        assertEquals(" IN: b\n IN: c\n... 1 events dropped", s.frames.get(0));
+    }
+}